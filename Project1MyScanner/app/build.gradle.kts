@@ -36,6 +36,14 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        unitTests.all {
+            // 골든 재기록(-Pgolden.record=true), 시간 예산 검사(-Pscanner.timing=true)와 느린 장비용 배율 전달
+            it.systemProperty("golden.record", project.findProperty("golden.record") ?: "false")
+            it.systemProperty("scanner.timing", project.findProperty("scanner.timing") ?: "false")
+            it.systemProperty("scanner.budgetScale", project.findProperty("scanner.budgetScale") ?: "1")
+        }
+    }
 }
 
 dependencies {
@@ -69,6 +77,9 @@ dependencies {
     // Image loading
     implementation(libs.glide)
     
+    // Background archive compaction
+    implementation(libs.androidx.work.runtime)
+    
     testImplementation(libs.junit)
     androidTestImplementation(libs.androidx.junit)
     androidTestImplementation(libs.androidx.espresso.core)
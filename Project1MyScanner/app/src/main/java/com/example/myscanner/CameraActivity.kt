@@ -1,25 +1,35 @@
 package com.example.myscanner
 
-import android.content.ContentValues
 import android.content.Intent
-import android.graphics.Bitmap
-import android.graphics.BitmapFactory
-import android.graphics.Matrix
 import android.os.Build
 import android.os.Bundle
-import android.provider.MediaStore
 import android.util.Log
+import android.util.Size
 import android.view.View
 import android.view.WindowManager
 import android.widget.Toast
+import androidx.activity.viewModels
 import androidx.appcompat.app.AppCompatActivity
 import androidx.camera.core.*
+import androidx.camera.core.resolutionselector.AspectRatioStrategy
+import androidx.camera.core.resolutionselector.ResolutionSelector
+import androidx.camera.core.resolutionselector.ResolutionStrategy
 import androidx.camera.lifecycle.ProcessCameraProvider
 import androidx.core.content.ContextCompat
-import androidx.exifinterface.media.ExifInterface
+import androidx.core.content.FileProvider
+import com.bumptech.glide.Glide
+import com.bumptech.glide.MemoryCategory
+import com.example.myscanner.capture.PageEncoder
+import com.example.myscanner.capture.PageProcessor
+import com.example.myscanner.catalog.ScanCatalog
 import com.example.myscanner.databinding.ActivityCameraBinding
+import com.example.myscanner.export.PdfExporter
+import com.example.myscanner.memory.MemoryGovernor
+import com.example.myscanner.session.CaptureViewModel
+import com.example.myscanner.session.ScanSession
+import com.google.android.material.dialog.MaterialAlertDialogBuilder
+import com.google.android.material.progressindicator.LinearProgressIndicator
 import java.io.File
-import java.io.FileOutputStream
 import java.text.SimpleDateFormat
 import java.util.*
 import java.util.concurrent.ExecutorService
@@ -33,12 +43,28 @@ class CameraActivity : AppCompatActivity() {
     private var imageCapture: ImageCapture? = null
     private var camera: Camera? = null
     private var imageAnalyzer: ImageAnalysis? = null
+    private var documentAnalyzer: DocumentAnalyzer? = null
     private var isScanModeEnabled = false
     private var isEdgeDetectionEnabled = false
+    private var isColorScanEnabled = false
+    private var isBinaryScanEnabled = false
+    private var isArrangeTextEnabled = false
+    
+    // 자동 촬영 (분석 스레드에서도 읽음)
+    @Volatile
+    private var isAutoCaptureEnabled = false
+    private var isCapturing = false
+    
+    // 여러 페이지 스캔 세션과 PDF 내보내기
+    // 세션과 촬영 후 처리는 화면 회전 중에도 이어지도록 ViewModel이 보관
+    private val captureViewModel: CaptureViewModel by viewModels()
+    private val scanSession: ScanSession get() = captureViewModel.session
+    private lateinit var exportExecutor: ExecutorService
     
     companion object {
         private const val TAG = "CameraActivity"
         private const val FILENAME_FORMAT = "yyyy-MM-dd-HHmmss"
+        private const val KEY_SESSION_PAGES = "session_pages"
     }
     
     override fun onCreate(savedInstanceState: Bundle?) {
@@ -51,11 +77,34 @@ class CameraActivity : AppCompatActivity() {
         setupFullScreen()
         
         cameraExecutor = Executors.newSingleThreadExecutor()
+        exportExecutor = Executors.newSingleThreadExecutor()
+        
+        // 프로세스가 종료됐다 돌아온 경우 촬영한 페이지 복원
+        captureViewModel.restore(savedInstanceState?.getStringArrayList(KEY_SESSION_PAGES))
+        captureViewModel.listener = pageListener
         
         setupUI()
         startCamera()
     }
     
+    override fun onResume() {
+        super.onResume()
+        // 카메라 화면에서는 썸네일이 필요 없으므로 캐시를 줄여 CameraX와 처리 버퍼에 메모리 양보
+        Glide.get(this).setMemoryCategory(MemoryCategory.LOW)
+    }
+    
+    override fun onPause() {
+        super.onPause()
+        if (!MemoryGovernor.isConstrained) {
+            Glide.get(this).setMemoryCategory(MemoryCategory.NORMAL)
+        }
+    }
+    
+    override fun onSaveInstanceState(outState: Bundle) {
+        super.onSaveInstanceState(outState)
+        outState.putStringArrayList(KEY_SESSION_PAGES, scanSession.toPaths())
+    }
+    
     private fun setupFullScreen() {
         // 상태바와 네비게이션 바 숨기기
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
@@ -106,10 +155,233 @@ class CameraActivity : AppCompatActivity() {
             toggleScanMode()
             true
         }
+        
+        // 자동 촬영 버튼
+        binding.btnAutoCapture.setOnClickListener {
+            toggleAutoCapture()
+        }
+        
+        // 컬러 스캔 버튼 (영수증, 컬러 양식용)
+        binding.btnColorScan.setOnClickListener {
+            toggleColorScan()
+        }
+        
+        // 흑백 문서 버튼 (글자 위주 문서를 1비트 PNG로 저장)
+        binding.btnBinaryScan.setOnClickListener {
+            toggleBinaryScan()
+        }
+        
+        // 글자 정리 버튼 (뒤집힌 페이지 바로 세우기, 글자 영역 밖 여백 자르기)
+        binding.btnArrangeText.setOnClickListener {
+            toggleArrangeText()
+        }
+        
+        // 세션 완료 버튼 - 페이지 정리 및 PDF 내보내기
+        binding.btnFinishSession.setOnClickListener {
+            showSessionDialog()
+        }
+        updateSessionButton()
+    }
+    
+    private fun updateSessionButton() {
+        binding.btnFinishSession.visibility = if (scanSession.pageCount > 0) View.VISIBLE else View.GONE
+        binding.btnFinishSession.text = getString(R.string.session_done, scanSession.pageCount)
+    }
+    
+    private fun showSessionDialog() {
+        val pages = scanSession.pages()
+        val items = pages.mapIndexed { index, file -> "${index + 1}. ${file.nameWithoutExtension}" }.toTypedArray()
+        
+        MaterialAlertDialogBuilder(this)
+            .setTitle("스캔한 페이지 (${pages.size})")
+            .setItems(items) { _, which ->
+                showPageOptions(which)
+            }
+            .setPositiveButton("PDF 내보내기") { _, _ ->
+                exportPdf()
+            }
+            .setNegativeButton("닫기") { _, _ ->
+                finish()
+            }
+            .setNeutralButton("계속 촬영", null)
+            .show()
+    }
+    
+    private fun showPageOptions(index: Int) {
+        val options = arrayOf("앞으로 이동", "뒤로 이동", "삭제")
+        
+        MaterialAlertDialogBuilder(this)
+            .setTitle("${index + 1} 페이지")
+            .setItems(options) { _, which ->
+                when (which) {
+                    0 -> scanSession.movePage(index, index - 1)
+                    1 -> scanSession.movePage(index, index + 1)
+                    2 -> {
+                        ScanCatalog.get(this).removeInBackground(scanSession.pages()[index].name)
+                        scanSession.removePage(index)
+                    }
+                }
+                updateSessionButton()
+                if (scanSession.pageCount > 0) {
+                    showSessionDialog()
+                }
+            }
+            .show()
+    }
+    
+    private fun exportPdf() {
+        val pages = scanSession.pages()
+        if (pages.isEmpty()) return
+        
+        val progressIndicator = LinearProgressIndicator(this).apply {
+            max = pages.size
+            setPadding(48, 32, 48, 0)
+        }
+        val progressDialog = MaterialAlertDialogBuilder(this)
+            .setTitle("PDF 만드는 중")
+            .setView(progressIndicator)
+            .setCancelable(false)
+            .show()
+        
+        val name = SimpleDateFormat(FILENAME_FORMAT, Locale.KOREA)
+            .format(System.currentTimeMillis())
+        val documentsDir = File(filesDir, "documents")
+        if (!documentsDir.exists()) {
+            documentsDir.mkdirs()
+        }
+        val pdfFile = File(documentsDir, "$name.pdf")
+        
+        // 페이지 디코딩과 압축은 백그라운드에서 한 페이지씩 진행
+        exportExecutor.execute {
+            val result = try {
+                PdfExporter().export(pages, pdfFile) { done, total ->
+                    runOnUiThread {
+                        progressIndicator.setProgressCompat(done, true)
+                        progressDialog.setTitle("PDF 만드는 중 ($done/$total)")
+                    }
+                }
+            } catch (e: Exception) {
+                Log.e(TAG, "PDF 내보내기 실패", e)
+                null
+            }
+            
+            runOnUiThread {
+                if (isDestroyed) return@runOnUiThread
+                progressDialog.dismiss()
+                
+                if (result == null) {
+                    Toast.makeText(this, "PDF 내보내기에 실패했습니다.", Toast.LENGTH_SHORT).show()
+                    return@runOnUiThread
+                }
+                
+                Toast.makeText(this, "PDF가 저장되었습니다.", Toast.LENGTH_SHORT).show()
+                scanSession.clear()
+                openPdf(result)
+                finish()
+            }
+        }
+    }
+    
+    private fun openPdf(pdfFile: File) {
+        val uri = FileProvider.getUriForFile(
+            this,
+            "$packageName.fileprovider",
+            pdfFile
+        )
+        
+        val intent = Intent(Intent.ACTION_VIEW).apply {
+            setDataAndType(uri, "application/pdf")
+            addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
+        }
+        
+        if (intent.resolveActivity(packageManager) != null) {
+            startActivity(intent)
+        }
+    }
+    
+    private fun toggleAutoCapture() {
+        isAutoCaptureEnabled = !isAutoCaptureEnabled
+        binding.btnAutoCapture.isSelected = isAutoCaptureEnabled
+        binding.btnAutoCapture.alpha = if (isAutoCaptureEnabled) 1.0f else 0.6f
+        
+        val message = if (isAutoCaptureEnabled) {
+            "자동 촬영 활성화 - 문서를 고정하면 촬영됩니다"
+        } else {
+            "자동 촬영 비활성화"
+        }
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show()
+    }
+    
+    private fun toggleColorScan() {
+        isColorScanEnabled = !isColorScanEnabled
+        // 흑백 문서와 컬러 스캔은 함께 쓸 수 없음
+        if (isColorScanEnabled && isBinaryScanEnabled) {
+            setBinaryScan(false)
+        }
+        documentAnalyzer?.invalidate()
+        binding.btnColorScan.isSelected = isColorScanEnabled
+        binding.btnColorScan.alpha = if (isColorScanEnabled) 1.0f else 0.6f
+        
+        val message = if (isColorScanEnabled) {
+            "컬러 스캔 활성화 - 종이 색만 흰색으로 보정합니다"
+        } else {
+            "흑백 스캔"
+        }
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show()
+        
+        // 스캔 모드가 활성화되어 있지 않으면 자동으로 활성화
+        if (!isScanModeEnabled && isColorScanEnabled) {
+            toggleScanMode()
+        }
+    }
+    
+    private fun toggleBinaryScan() {
+        setBinaryScan(!isBinaryScanEnabled)
+        if (isBinaryScanEnabled && isColorScanEnabled) {
+            toggleColorScan()
+        }
+        
+        val message = if (isBinaryScanEnabled) {
+            "흑백 문서 - 글자만 남겨 작은 PNG로 저장합니다"
+        } else {
+            "흑백 문서 비활성화"
+        }
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show()
+        
+        // 스캔 모드가 활성화되어 있지 않으면 자동으로 활성화
+        if (!isScanModeEnabled && isBinaryScanEnabled) {
+            toggleScanMode()
+        }
+    }
+    
+    // 자르기는 글자 줄 밖의 서명, 도장도 잘라낼 수 있고 결과가 원본을 대신하므로 사용자가 켤 때만
+    private fun toggleArrangeText() {
+        isArrangeTextEnabled = !isArrangeTextEnabled
+        binding.btnArrangeText.isSelected = isArrangeTextEnabled
+        binding.btnArrangeText.alpha = if (isArrangeTextEnabled) 1.0f else 0.6f
+        
+        val message = if (isArrangeTextEnabled) {
+            "글자 정리 - 뒤집힌 페이지를 바로 세우고 글자 영역만 남깁니다"
+        } else {
+            "글자 정리 비활성화"
+        }
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show()
+        
+        // 스캔 모드가 활성화되어 있지 않으면 자동으로 활성화
+        if (!isScanModeEnabled && isArrangeTextEnabled) {
+            toggleScanMode()
+        }
+    }
+    
+    private fun setBinaryScan(enabled: Boolean) {
+        isBinaryScanEnabled = enabled
+        binding.btnBinaryScan.isSelected = enabled
+        binding.btnBinaryScan.alpha = if (enabled) 1.0f else 0.6f
     }
     
     private fun toggleScanMode() {
         isScanModeEnabled = !isScanModeEnabled
+        documentAnalyzer?.invalidate()
         
         if (isScanModeEnabled) {
             binding.processedImageView.visibility = View.VISIBLE
@@ -124,6 +396,7 @@ class CameraActivity : AppCompatActivity() {
     
     private fun toggleEdgeDetection() {
         isEdgeDetectionEnabled = !isEdgeDetectionEnabled
+        documentAnalyzer?.invalidate()
         
         val message = if (isEdgeDetectionEnabled) {
             "엣지 검출 모드 활성화"
@@ -157,23 +430,54 @@ class CameraActivity : AppCompatActivity() {
                 .setTargetRotation(windowManager.defaultDisplay.rotation)
                 .build()
             
+            // 분석 해상도: 처리 목표 이상인 해상도 중 가장 작은 것 (없으면 그 아래에서 가장 가까운 것)
+            val analysisResolution = ResolutionSelector.Builder()
+                .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                .setResolutionStrategy(
+                    ResolutionStrategy(
+                        Size(DocumentAnalyzer.PROCESSING_SIZE, DocumentAnalyzer.PROCESSING_SIZE * 3 / 4),
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER
+                    )
+                )
+                .build()
+            
             // ImageAnalysis 설정
             imageAnalyzer = ImageAnalysis.Builder()
+                .setResolutionSelector(analysisResolution)
                 .setTargetRotation(windowManager.defaultDisplay.rotation)
                 .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                 .build()
                 .also {
-                    it.setAnalyzer(cameraExecutor, DocumentAnalyzer(
-                        onImageProcessed = { processedBitmap ->
-                            // UI 스레드에서 이미지 업데이트
+                    val analyzer = DocumentAnalyzer(
+                        onImageProcessed = { processedBitmap, generation ->
+                            // UI 스레드에서 이미지 업데이트 (그사이 모드가 바뀌었거나 종료되었으면 버림)
                             runOnUiThread {
-                                if (isScanModeEnabled && processedBitmap != null) {
+                                val current = documentAnalyzer?.isCurrent(generation) == true
+                                if (current && isScanModeEnabled && processedBitmap != null) {
                                     binding.processedImageView.setImageBitmap(processedBitmap)
                                 }
                             }
                         },
-                        isEdgeDetectionEnabled = { isEdgeDetectionEnabled }
-                    ))
+                        isPreviewEnabled = { isScanModeEnabled },
+                        isEdgeDetectionEnabled = { isEdgeDetectionEnabled },
+                        isColorScanEnabled = { isColorScanEnabled },
+                        isAutoCaptureEnabled = { isAutoCaptureEnabled },
+                        onStableDocument = {
+                            runOnUiThread {
+                                if (!isDestroyed && isAutoCaptureEnabled) {
+                                    takePhoto()
+                                }
+                            }
+                        },
+                        // 문서 윤곽은 좌표만 넘기고 오버레이가 직접 그림
+                        onDocumentDetected = binding.quadOverlay::submit
+                    )
+                    
+                    // 메모리가 부족하면 분석 버퍼를 해제하도록 등록
+                    documentAnalyzer?.let { old -> MemoryGovernor.unregister(old) }
+                    documentAnalyzer = analyzer
+                    MemoryGovernor.register(analyzer)
+                    it.setAnalyzer(cameraExecutor, analyzer)
                 }
             
             // 카메라 선택 (후면 카메라)
@@ -203,6 +507,10 @@ class CameraActivity : AppCompatActivity() {
     private fun takePhoto() {
         val imageCapture = imageCapture ?: return
         
+        // 이전 촬영이 끝나기 전에는 중복 촬영하지 않음
+        if (isCapturing) return
+        isCapturing = true
+        
         // 파일명 생성
         val name = SimpleDateFormat(FILENAME_FORMAT, Locale.KOREA)
             .format(System.currentTimeMillis())
@@ -222,29 +530,28 @@ class CameraActivity : AppCompatActivity() {
             ContextCompat.getMainExecutor(this),
             object : ImageCapture.OnImageSavedCallback {
                 override fun onImageSaved(output: ImageCapture.OutputFileResults) {
+                    isCapturing = false
                     output.savedUri ?: android.net.Uri.fromFile(photoFile)
                     
-                    // 이미지 회전 보정
-                    correctImageOrientation(photoFile)
-                    
-                    // MediaStore에도 저장 (갤러리에 표시되도록)
-                    saveToMediaStore(photoFile)
-                    
-                    Toast.makeText(
-                        this@CameraActivity,
-                        "사진이 저장되었습니다.",
-                        Toast.LENGTH_SHORT
-                    ).show()
+                    // 스캔 모드에서는 회색조(컬러 스캔이면 흰색 보정한 컬러, 흑백 문서면 1비트 PNG)로 저장하고 기울기 보정
+                    // 글자 정리를 켰을 때만 뒤집힘 보정 후 글자 영역만 남김
+                    val binary = isScanModeEnabled && isBinaryScanEnabled
+                    val arrange = isScanModeEnabled && isArrangeTextEnabled
+                    val options = PageProcessor.Options(
+                        format = if (binary) PageEncoder.Format.BINARY_PNG else PageEncoder.Format.JPEG,
+                        grayscale = isScanModeEnabled && !isColorScanEnabled,
+                        deskew = isScanModeEnabled,
+                        autoRotate = arrange,
+                        smartCrop = arrange,
+                        colorScan = isScanModeEnabled && isColorScanEnabled
+                    )
                     
-                    // 결과 반환
-                    val resultIntent = Intent().apply {
-                        putExtra("photo_path", photoFile.absolutePath)
-                    }
-                    setResult(RESULT_OK, resultIntent)
-                    finish()
+                    // 처리 중에 화면이 회전해도 결과는 세션에 추가됨
+                    captureViewModel.submit(photoFile, options)
                 }
                 
                 override fun onError(exception: ImageCaptureException) {
+                    isCapturing = false
                     Log.e(TAG, "사진 저장 실패: ${exception.message}", exception)
                     Toast.makeText(
                         this@CameraActivity,
@@ -256,83 +563,30 @@ class CameraActivity : AppCompatActivity() {
         )
     }
     
-    private fun saveToMediaStore(photoFile: File) {
-        try {
-            val contentValues = ContentValues().apply {
-                put(MediaStore.MediaColumns.DISPLAY_NAME, photoFile.name)
-                put(MediaStore.MediaColumns.MIME_TYPE, "image/jpeg")
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                    put(MediaStore.MediaColumns.RELATIVE_PATH, "Pictures/MyScanner")
-                }
+    // 페이지는 ViewModel이 이미 세션에 추가함 (여러 페이지를 이어서 촬영할 수 있도록 화면은 유지)
+    private val pageListener = object : CaptureViewModel.Listener {
+        override fun onPageProcessed(file: File?) {
+            if (file == null) {
+                Toast.makeText(this@CameraActivity, "사진 저장에 실패했습니다.", Toast.LENGTH_SHORT).show()
+                return
             }
             
-            val uri = contentResolver.insert(
-                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                contentValues
-            )
-            
-            uri?.let {
-                contentResolver.openOutputStream(it)?.use { outputStream ->
-                    photoFile.inputStream().use { inputStream ->
-                        inputStream.copyTo(outputStream)
-                    }
-                }
-            }
-        } catch (e: Exception) {
-            Log.e(TAG, "MediaStore 저장 실패", e)
-        }
-    }
-    
-    private fun correctImageOrientation(photoFile: File) {
-        try {
-            val exif = ExifInterface(photoFile.absolutePath)
-            val orientation = exif.getAttributeInt(
-                ExifInterface.TAG_ORIENTATION,
-                ExifInterface.ORIENTATION_NORMAL
-            )
+            Toast.makeText(
+                this@CameraActivity,
+                "사진이 저장되었습니다.",
+                Toast.LENGTH_SHORT
+            ).show()
             
-            val bitmap = BitmapFactory.decodeFile(photoFile.absolutePath)
-            val rotatedBitmap = when (orientation) {
-                ExifInterface.ORIENTATION_ROTATE_90 -> rotateBitmap(bitmap, 90f)
-                ExifInterface.ORIENTATION_ROTATE_180 -> rotateBitmap(bitmap, 180f)
-                ExifInterface.ORIENTATION_ROTATE_270 -> rotateBitmap(bitmap, 270f)
-                ExifInterface.ORIENTATION_FLIP_HORIZONTAL -> flipBitmap(bitmap, horizontal = true)
-                ExifInterface.ORIENTATION_FLIP_VERTICAL -> flipBitmap(bitmap, horizontal = false)
-                else -> bitmap
-            }
+            updateSessionButton()
             
-            // 회전된 이미지를 다시 저장
-            if (rotatedBitmap != bitmap) {
-                FileOutputStream(photoFile).use { out ->
-                    rotatedBitmap.compress(Bitmap.CompressFormat.JPEG, 95, out)
-                }
-                rotatedBitmap.recycle()
+            // 결과 반환
+            val resultIntent = Intent().apply {
+                putExtra("photo_path", file.absolutePath)
             }
-            bitmap.recycle()
-            
-        } catch (e: Exception) {
-            Log.e(TAG, "이미지 회전 보정 실패", e)
+            setResult(RESULT_OK, resultIntent)
         }
     }
     
-    private fun rotateBitmap(bitmap: Bitmap, degrees: Float): Bitmap {
-        val matrix = Matrix().apply {
-            postRotate(degrees)
-        }
-        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.width, bitmap.height, matrix, true)
-    }
-    
-    private fun flipBitmap(bitmap: Bitmap, horizontal: Boolean): Bitmap {
-        val matrix = Matrix().apply {
-            if (horizontal) {
-                postScale(-1f, 1f, bitmap.width / 2f, bitmap.height / 2f)
-            } else {
-                postScale(1f, -1f, bitmap.width / 2f, bitmap.height / 2f)
-            }
-        }
-        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.width, bitmap.height, matrix, true)
-    }
-    
     private fun openGallery() {
         val photosDir = File(filesDir, "photos")
         if (!photosDir.exists() || photosDir.listFiles()?.isEmpty() == true) {
@@ -357,6 +611,15 @@ class CameraActivity : AppCompatActivity() {
     
     override fun onDestroy() {
         super.onDestroy()
+        // 처리 중인 프레임 결과는 버리고, 대기 중인 프레임은 바로 반환되도록 한 뒤 종료
+        documentAnalyzer?.close()
+        imageAnalyzer?.clearAnalyzer()
         cameraExecutor.shutdown()
+        exportExecutor.shutdown()
+        // 처리 중인 페이지는 ViewModel이 마저 받아 둠
+        if (captureViewModel.listener === pageListener) {
+            captureViewModel.listener = null
+        }
+        documentAnalyzer?.let { MemoryGovernor.unregister(it) }
     }
 }
\ No newline at end of file
@@ -4,47 +4,200 @@ import android.graphics.Bitmap
 import android.util.Log
 import androidx.camera.core.ImageAnalysis
 import androidx.camera.core.ImageProxy
+import com.example.myscanner.core.AutoCaptureTrigger
+import com.example.myscanner.core.DocumentTracker
+import com.example.myscanner.core.FrameMetrics
+import com.example.myscanner.core.GrayImage
+import com.example.myscanner.core.HoughLineDetector
+import com.example.myscanner.core.ImagePyramid
+import com.example.myscanner.core.PlaneReader
+import com.example.myscanner.core.Quad
+import com.example.myscanner.core.Region
+import com.example.myscanner.core.ScanGraph
+import com.example.myscanner.core.ScanRenderer
+import com.example.myscanner.core.ToneLut
+import com.example.myscanner.memory.MemoryGovernor
+import java.util.concurrent.atomic.AtomicInteger
 
+// 모드가 바뀌거나 화면이 닫히면 세대(generation)를 올려, 처리 중이던 프레임의 결과는 UI로 보내기 전에 버린다
 class DocumentAnalyzer(
-    private val onImageProcessed: (Bitmap?) -> Unit,
-    private val isEdgeDetectionEnabled: () -> Boolean = { false }
-) : ImageAnalysis.Analyzer {
+    private val onImageProcessed: (Bitmap?, Int) -> Unit,
+    private val isPreviewEnabled: () -> Boolean = { true },
+    private val isEdgeDetectionEnabled: () -> Boolean = { false },
+    private val isColorScanEnabled: () -> Boolean = { false },
+    private val isAutoCaptureEnabled: () -> Boolean = { false },
+    private val onStableDocument: () -> Unit = {},
+    private val onDocumentDetected: (FloatArray?, Int, Int) -> Unit = { _, _, _ -> }
+) : ImageAnalysis.Analyzer, MemoryGovernor.Pool {
     
     companion object {
+        // 처리 목표 크기 (분석 해상도 요청에도 사용)
+        const val PROCESSING_SIZE = 480
+        
         private const val TAG = "DocumentAnalyzer"
         private const val PROCESS_INTERVAL = 15 // 15프레임마다 처리
+        private const val SCAN_CONTRAST = 1.8f
+        private const val EDGE_CONTRAST = 2.2f
+        private const val WHITE_PERCENTILE = 0.02f // 가장 밝은 2%를 종이 흰색으로 추정
+        private const val SEARCH_SIZE = PROCESSING_SIZE // 전체 프레임 검출용 휘도 이미지 크기
+        private const val ROI_SIZE = PROCESSING_SIZE // 관심 영역 추적용 휘도 이미지 크기
+        private const val PYRAMID_LEVELS = 3 // 검출은 가장 거친 단계, 정밀화는 고운 단계에서
+        private const val HOUGH_LEVEL = 1 // 직선 검출 보조 경로는 검색 피라미드의 한 단계 아래 (240px)에서
+        private const val HOUGH_RECENT_FRAMES = 30 // 페이지를 놓친 뒤 약 1초 동안은 매 프레임 직선 검출
+        private const val HOUGH_INTERVAL = 10 // 그 밖에는 이 간격으로만 (페이지가 없는 화면에서 매 프레임 돌지 않도록)
+        
+        private const val MODE_SCAN = 0
+        private const val MODE_EDGES = 1
+        private const val MODE_COLOR = 2
+        
+        private const val TRIM_NONE = 0
+        private const val TRIM_PREVIEW = 1 // 미리보기 버퍼만
+        private const val TRIM_ALL = 2 // 추적 버퍼까지
     }
     
     private var frameCount = 0
     
+    // 결과를 받을 UI 상태의 세대 (모드 변경마다 증가)
+    private val generation = AtomicInteger()
+    
+    @Volatile
+    private var isClosed = false
+    
+    // 메모리 회수 요청 (버퍼는 분석 스레드에서만 건드리므로 다음 프레임 시작 시 처리)
+    @Volatile
+    private var pendingTrim = TRIM_NONE
+    
+    // 문서 추적 상태 (프레임 간 재사용)
+    // 문서를 찾은 뒤에는 그 주변 관심 영역만 더 높은 해상도로 처리
+    private val searchImage = GrayImage()
+    private val roiImage = GrayImage()
+    private val searchPyramid = ImagePyramid(PYRAMID_LEVELS)
+    private val roiPyramid = ImagePyramid(PYRAMID_LEVELS)
+    private val roi = Region()
+    private val lumaReader = PlaneReader()
+    
+    // 꼭짓점이 가려져 밝기 검출이 실패할 때 쓰는 허프 직선 검출 (버퍼 재사용)
+    private val houghDetector = HoughLineDetector()
+    private val houghQuad = Quad()
+    private var lastFoundFrame = -HOUGH_RECENT_FRAMES - 1
+    
+    // 스캔 미리보기용 버퍼 (표시 중인 비트맵을 덮어쓰지 않도록 두 장을 번갈아 사용)
+    private val previewImage = GrayImage()
+    private var previewPixels = IntArray(0)
+    private val previewBitmaps = arrayOfNulls<Bitmap>(2)
+    private var previewIndex = 0
+    // 스캔/엣지 미리보기 단계 그래프 (대비 -> 변환, 대비 -> 엣지 -> 변환을 한 번의 순회로)
+    private val scanGraph = ScanGraph.scan(SCAN_CONTRAST)
+    private val edgeGraph = ScanGraph.edges(EDGE_CONTRAST)
+    
+    // 컬러 스캔 미리보기용 색차 버퍼와 채널별 흰색 보정표
+    private val previewU = GrayImage()
+    private val previewV = GrayImage()
+    private val histR = IntArray(256)
+    private val histG = IntArray(256)
+    private val histB = IntArray(256)
+    private val lutR = IntArray(256)
+    private val lutG = IntArray(256)
+    private val lutB = IntArray(256)
+    private val tracker = DocumentTracker()
+    private val autoCapture = AutoCaptureTrigger()
+    private val rotatedCorners = FloatArray(8)
+    
+    init {
+        val logTiming: (String, Long) -> Unit = { name, nanos -> Log.v(TAG, "$name: ${nanos / 1000}us") }
+        scanGraph.onStageTimed = logTiming
+        edgeGraph.onStageTimed = logTiming
+    }
+    
+    override val name = "analyzer buffers"
+    override val priority = MemoryGovernor.PRIORITY_PREVIEW
+    
+    // 미리보기 버퍼는 보통 수준에서, 추적 버퍼는 심각한 수준에서만 해제
+    override fun trim(aggressive: Boolean) {
+        pendingTrim = maxOf(pendingTrim, if (aggressive) TRIM_ALL else TRIM_PREVIEW)
+    }
+    
+    private fun releaseBuffers(level: Int) {
+        previewImage.release()
+        previewU.release()
+        previewV.release()
+        previewPixels = IntArray(0)
+        scanGraph.release()
+        edgeGraph.release()
+        // 화면에 표시 중일 수 있으므로 recycle하지 않고 참조만 끊음
+        previewBitmaps.fill(null)
+        if (level < TRIM_ALL) return
+        
+        searchImage.release()
+        roiImage.release()
+        searchPyramid.release()
+        roiPyramid.release()
+        houghDetector.release()
+        lumaReader.release()
+    }
+    
+    // 모드가 바뀌었을 때 UI 스레드에서 호출
+    fun invalidate() {
+        generation.incrementAndGet()
+    }
+    
+    // 화면 종료 시 호출 (이후 들어오는 프레임은 처리하지 않고 바로 반환)
+    fun close() {
+        isClosed = true
+        generation.incrementAndGet()
+    }
+    
+    // UI 스레드에서 결과를 표시하기 직전에 다시 확인
+    fun isCurrent(frameGeneration: Int): Boolean {
+        return !isClosed && frameGeneration == generation.get()
+    }
+    
     override fun analyze(image: ImageProxy) {
+        // 종료 후 남은 프레임은 바로 닫아 cameraExecutor가 빨리 비도록
+        if (isClosed) {
+            image.close()
+            return
+        }
+        val frameGeneration = generation.get()
+        
+        val trimLevel = pendingTrim
+        if (trimLevel != TRIM_NONE) {
+            pendingTrim = TRIM_NONE
+            releaseBuffers(trimLevel)
+            Log.d(TAG, "Released buffers (level $trimLevel)")
+        }
+        
         frameCount++
+        if (frameCount == 1) {
+            Log.d(TAG, "Analysis resolution: ${image.width}x${image.height}")
+        }
         
-        // 15프레임마다 이미지 처리
-        if (frameCount % PROCESS_INTERVAL == 0) {
+        // 매 프레임 문서 꼭짓점 추적 (윤곽 표시와 자동 촬영에 사용)
+        try {
+            trackDocument(image)
+        } catch (e: Exception) {
+            Log.e(TAG, "Error tracking document", e)
+        }
+        
+        // 15프레임마다 이미지 처리 (미리보기를 보고 있을 때만)
+        if (frameCount % PROCESS_INTERVAL == 0 && isPreviewEnabled() && isCurrent(frameGeneration)) {
             try {
-                // ImageProxy를 Bitmap으로 변환
-                val bitmap = DocumentProcessor.imageProxyToBitmap(image)
+                // 모드는 프레임 시작 시 한 번만 읽음 (도중에 바뀌면 세대가 달라져 결과를 버림)
+                val mode = when {
+                    isEdgeDetectionEnabled() -> MODE_EDGES
+                    isColorScanEnabled() -> MODE_COLOR
+                    else -> MODE_SCAN
+                }
                 
-                if (bitmap != null) {
-                    // 성능을 위해 이미지 크기 축소
-                    val resized = DocumentProcessor.resizeForProcessing(bitmap, 480)
-                    
-                    // 문서 스캔 처리 적용 (엣지 검출 모드 지원)
-                    val processed = DocumentProcessor.processForScan(resized, isEdgeDetectionEnabled())
-                    
-                    // UI 업데이트를 위해 콜백 호출
-                    onImageProcessed(processed)
-                    
-                    val modeText = if (isEdgeDetectionEnabled()) "edge detection" else "normal scan"
-                    Log.d(TAG, "Frame $frameCount processed ($modeText), size: ${processed.width}x${processed.height}")
-                    
-                    // 원본 비트맵 메모리 해제
-                    if (bitmap != resized) {
-                        bitmap.recycle()
-                    }
+                // Y 평면에서 바로 스캔 처리 (엣지 검출 모드 지원)
+                val processed = renderPreview(image, mode)
+                
+                // 처리하는 동안 모드가 바뀌었으면 이전 모드의 결과를 보내지 않음
+                if (isCurrent(frameGeneration)) {
+                    onImageProcessed(processed, frameGeneration)
+                    Log.d(TAG, "Frame $frameCount processed (mode $mode), size: ${processed.width}x${processed.height}")
                 } else {
-                    Log.w(TAG, "Failed to convert ImageProxy to Bitmap")
+                    Log.d(TAG, "Frame $frameCount dropped (mode changed)")
                 }
             } catch (e: Exception) {
                 Log.e(TAG, "Error processing image", e)
@@ -54,4 +207,99 @@ class DocumentAnalyzer(
         // 이미지 처리 완료 후 반드시 close 호출
         image.close()
     }
+    
+    // 협상된 분석 해상도가 처리 목표 이하면 축소 없이 그대로 사용
+    // 화면 방향 회전은 커널이 출력을 기록할 때 함께 적용 (별도 Matrix 회전 없음)
+    private fun renderPreview(image: ImageProxy, mode: Int): Bitmap {
+        DocumentProcessor.extractLuminance(image, PROCESSING_SIZE, previewImage, reader = lumaReader)
+        val rotation = image.imageInfo.rotationDegrees
+        val width = ScanRenderer.outputWidth(previewImage, rotation)
+        val height = ScanRenderer.outputHeight(previewImage, rotation)
+        
+        val pixels = when (mode) {
+            MODE_EDGES -> edgeGraph.run(previewImage, rotation).pixels
+            MODE_COLOR -> renderColorPreview(image, rotation, width * height)
+            else -> scanGraph.run(previewImage, rotation).pixels
+        }
+        
+        previewIndex = previewIndex xor 1
+        var bitmap = previewBitmaps[previewIndex]
+        if (bitmap == null || bitmap.width != width || bitmap.height != height) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
+            previewBitmaps[previewIndex] = bitmap
+        }
+        bitmap.setPixels(pixels, 0, width, 0, 0, width, height)
+        return bitmap
+    }
+    
+    // 드문드문 센 히스토그램으로 채널별 흰색을 추정한 뒤 변환과 보정을 한 번에 적용
+    // 색차 평면이 필요해 휘도 그래프 대신 전용 커널 사용
+    private fun renderColorPreview(image: ImageProxy, rotation: Int, size: Int): IntArray {
+        if (previewPixels.size < size) {
+            previewPixels = IntArray(size)
+        }
+        DocumentProcessor.extractChroma(image, previewImage, previewU, previewV, lumaReader)
+        ScanRenderer.colorHistograms(previewImage, previewU, previewV, histR, histG, histB)
+        ToneLut.whiteBalance(ToneLut.whitePoint(histR, WHITE_PERCENTILE), lutR)
+        ToneLut.whiteBalance(ToneLut.whitePoint(histG, WHITE_PERCENTILE), lutG)
+        ToneLut.whiteBalance(ToneLut.whitePoint(histB, WHITE_PERCENTILE), lutB)
+        ScanRenderer.renderColorScan(previewImage, previewU, previewV, lutR, lutG, lutB, previewPixels, rotation)
+        return previewPixels
+    }
+    
+    private fun trackDocument(image: ImageProxy) {
+        var luminance = roiImage
+        var found = false
+        
+        if (tracker.isTracking) {
+            tracker.regionOfInterest(image.width, image.height, roi)
+            DocumentProcessor.extractLuminance(image, ROI_SIZE, roiImage, roi, lumaReader)
+            found = tracker.track(roiPyramid.build(roiImage))
+        }
+        
+        // 추적을 놓치면 전체 프레임에서 다시 검색
+        if (!found) {
+            luminance = searchImage
+            DocumentProcessor.extractLuminance(image, SEARCH_SIZE, searchImage, reader = lumaReader)
+            found = tracker.detect(searchPyramid.build(searchImage))
+        }
+        
+        var quad = if (found) tracker.quad else null
+        
+        // 그래도 못 찾으면 변을 직선으로 찾아 교점을 꼭짓점으로 사용
+        // 방금 놓쳤을 때(손가락에 모서리가 가려진 경우 등)와 일정 간격으로만, 이미 만든 검색 피라미드에서
+        if (quad == null && (frameCount - lastFoundFrame <= HOUGH_RECENT_FRAMES || frameCount % HOUGH_INTERVAL == 0)) {
+            val level = minOf(HOUGH_LEVEL, searchPyramid.levelCount - 1)
+            if (houghDetector.findQuad(searchPyramid.level(level), houghQuad)) {
+                quad = houghQuad
+            }
+        }
+        if (quad != null) {
+            lastFoundFrame = frameCount
+        }
+        
+        // 화면이 닫힌 뒤에는 UI로 보내지 않음
+        if (isClosed) return
+        
+        // 화면 방향으로 회전한 좌표만 UI에 전달
+        val rotation = image.imageInfo.rotationDegrees
+        val swap = rotation == 90 || rotation == 270
+        quad?.writeRotated(rotatedCorners, image.width, image.height, rotation)
+        onDocumentDetected(
+            if (quad != null) rotatedCorners else null,
+            if (swap) image.height else image.width,
+            if (swap) image.width else image.height
+        )
+        
+        if (!isAutoCaptureEnabled()) {
+            autoCapture.reset()
+            return
+        }
+        
+        // 꼭짓점이 안정되고 선명하면 촬영 요청
+        if (autoCapture.onFrame(quad) { FrameMetrics.laplacianVariance(luminance, quad ?: tracker.quad) }) {
+            Log.d(TAG, "Frame $frameCount stable document, requesting capture")
+            onStableDocument()
+        }
+    }
 }
\ No newline at end of file
@@ -1,206 +1,149 @@
 package com.example.myscanner
 
 import android.graphics.Bitmap
-import android.graphics.BitmapFactory
 import android.graphics.Canvas
+import android.graphics.Color
 import android.graphics.ColorMatrix
 import android.graphics.ColorMatrixColorFilter
-import android.graphics.ImageFormat
 import android.graphics.Paint
-import android.graphics.Rect
-import android.graphics.YuvImage
 import androidx.camera.core.ImageProxy
-import java.io.ByteArrayOutputStream
-import java.nio.ByteBuffer
+import com.example.myscanner.core.GrayImage
+import com.example.myscanner.core.PlaneReader
+import com.example.myscanner.core.Region
+import com.example.myscanner.core.ScanRenderer
+import com.example.myscanner.core.TileRotator
+import com.example.myscanner.core.ToneLut
 
 object DocumentProcessor {
     
-    // ImageProxy를 Bitmap으로 변환
-    fun imageProxyToBitmap(image: ImageProxy): Bitmap? {
-        return if (image.format == ImageFormat.YUV_420_888) {
-            yuv420ToBitmap(image)
-        } else {
-            null
-        }
+    // ImageProxy 평면을 PlaneReader로 감싸기 (0: Y, 1: U, 2: V)
+    fun wrapPlane(image: ImageProxy, index: Int, reader: PlaneReader = PlaneReader()): PlaneReader {
+        val plane = image.planes[index]
+        val width = if (index == 0) image.width else image.width / 2
+        val height = if (index == 0) image.height else image.height / 2
+        return reader.wrap(plane.buffer, width, height, plane.rowStride, plane.pixelStride)
     }
     
-    // YUV_420_888 형식을 Bitmap으로 변환
-    private fun yuv420ToBitmap(image: ImageProxy): Bitmap? {
-        val yBuffer = image.planes[0].buffer
-        val uBuffer = image.planes[1].buffer
-        val vBuffer = image.planes[2].buffer
-        
-        val ySize = yBuffer.remaining()
-        val uSize = uBuffer.remaining()
-        val vSize = vBuffer.remaining()
-        
-        val nv21 = ByteArray(ySize + uSize + vSize)
-        
-        // Y 채널 복사
-        yBuffer.get(nv21, 0, ySize)
-        
-        // U와 V 채널을 인터리빙
-        val uvPixelStride = image.planes[1].pixelStride
-        if (uvPixelStride == 1) {
-            uBuffer.get(nv21, ySize, uSize)
-            vBuffer.get(nv21, ySize + uSize, vSize)
-        } else {
-            var pos = ySize
-            for (i in 0 until uSize / uvPixelStride) {
-                nv21[pos] = vBuffer.get(i * uvPixelStride)
-                nv21[pos + 1] = uBuffer.get(i * uvPixelStride)
-                pos += 2
-            }
-        }
-        
-        val yuvImage = YuvImage(nv21, ImageFormat.NV21, image.width, image.height, null)
-        val out = ByteArrayOutputStream()
-        yuvImage.compressToJpeg(Rect(0, 0, image.width, image.height), 100, out)
-        val imageBytes = out.toByteArray()
-        
-        return BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.size)
+    // Y 평면에서 휘도만 추출 (maxSize 이하가 되도록 간격을 두고 샘플링)
+    // region을 지정하면 해당 영역만 추출한다
+    fun extractLuminance(
+        image: ImageProxy,
+        maxSize: Int,
+        out: GrayImage,
+        region: Region? = null,
+        reader: PlaneReader = PlaneReader()
+    ): GrayImage {
+        return wrapPlane(image, 0, reader).sample(out, maxSize, region)
     }
     
-    // 그레이스케일 변환
-    fun toGrayscale(bitmap: Bitmap): Bitmap {
-        val width = bitmap.width
-        val height = bitmap.height
-        val result = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
-        
-        val canvas = Canvas(result)
-        val paint = Paint()
-        
-        val colorMatrix = ColorMatrix().apply {
-            setSaturation(0f)
-        }
-        paint.colorFilter = ColorMatrixColorFilter(colorMatrix)
-        
-        canvas.drawBitmap(bitmap, 0f, 0f, paint)
-        
-        return result
+    // luma와 같은 격자로 U, V 평면 샘플링 (컬러 스캔 미리보기용)
+    fun extractChroma(image: ImageProxy, luma: GrayImage, uOut: GrayImage, vOut: GrayImage, reader: PlaneReader = PlaneReader()) {
+        wrapPlane(image, 1, reader).sampleAligned(uOut, luma)
+        wrapPlane(image, 2, reader).sampleAligned(vOut, luma)
     }
     
-    // 대비 향상 (간단한 히스토그램 스트레칭)
-    fun enhanceContrast(bitmap: Bitmap, factor: Float = 1.5f): Bitmap {
+    // 컬러 스캔: 채널별로 종이 흰색을 추정해 흰색으로 맞춤 (잉크 색은 유지)
+    // 미리보기와 같은 LUT를 행 단위로 적용하므로 원본 크기의 픽셀 배열을 만들지 않는다
+    fun whitenPaper(bitmap: Bitmap, percentile: Float = 0.02f): Bitmap {
         val width = bitmap.width
         val height = bitmap.height
-        val result = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
-        
-        val canvas = Canvas(result)
-        val paint = Paint()
-        
-        val colorMatrix = ColorMatrix().apply {
-            setScale(factor, factor, factor, 1f)
-            
-            // 밝기 조정을 위한 오프셋
-            val brightness = -0.5f * factor + 0.5f
-            val array = this.array
-            array[4] = brightness * 255
-            array[9] = brightness * 255
-            array[14] = brightness * 255
+        val row = IntArray(width)
+        val histR = IntArray(256)
+        val histG = IntArray(256)
+        val histB = IntArray(256)
+        
+        // 흰색 추정은 4행, 4열마다 하나씩만 세어도 충분
+        for (y in 0 until height step 4) {
+            bitmap.getPixels(row, 0, width, 0, y, width, 1)
+            ScanRenderer.accumulateHistograms(row, width, histR, histG, histB, sampleStep = 4)
+        }
+        val lutR = ToneLut.whiteBalance(ToneLut.whitePoint(histR, percentile))
+        val lutG = ToneLut.whiteBalance(ToneLut.whitePoint(histG, percentile))
+        val lutB = ToneLut.whiteBalance(ToneLut.whitePoint(histB, percentile))
+        
+        val result = if (bitmap.isMutable) bitmap else bitmap.copy(Bitmap.Config.ARGB_8888, true)
+        for (y in 0 until height) {
+            bitmap.getPixels(row, 0, width, 0, y, width, 1)
+            ScanRenderer.applyChannelLuts(row, width, lutR, lutG, lutB)
+            result.setPixels(row, 0, width, 0, y, width, 1)
         }
-        
-        paint.colorFilter = ColorMatrixColorFilter(colorMatrix)
-        canvas.drawBitmap(bitmap, 0f, 0f, paint)
-        
         return result
     }
     
-    // 간단한 엣지 검출 (픽셀 단위 처리)
-    fun detectEdges(bitmap: Bitmap): Bitmap {
+    // 긴 변이 maxSize 이하인 썸네일 (원본보다 작을 때만 축소)
+    fun createThumbnail(bitmap: Bitmap, maxSize: Int = 256): Bitmap {
+        val scale = maxSize.toFloat() / maxOf(bitmap.width, bitmap.height)
+        if (scale >= 1f) return bitmap
+        val width = maxOf(1, (bitmap.width * scale).toInt())
+        val height = maxOf(1, (bitmap.height * scale).toInt())
+        return Bitmap.createScaledBitmap(bitmap, width, height, true)
+    }
+    
+    // Bitmap의 휘도를 GrayImage로 복사 (썸네일처럼 작은 이미지용)
+    fun toGrayImage(bitmap: Bitmap, out: GrayImage = GrayImage()): GrayImage {
         val width = bitmap.width
         val height = bitmap.height
-        val result = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
-        
-        // 픽셀 배열 가져오기
         val pixels = IntArray(width * height)
         bitmap.getPixels(pixels, 0, width, 0, 0, width, height)
         
-        val newPixels = IntArray(width * height)
-        
-        // Sobel 필터 적용 (간단한 버전)
-        for (y in 1 until height - 1) {
-            for (x in 1 until width - 1) {
-                val idx = y * width + x
-                
-                // 주변 픽셀의 밝기 값 가져오기
-                val tl = pixels[(y - 1) * width + (x - 1)] and 0xFF
-                val tm = pixels[(y - 1) * width + x] and 0xFF
-                val tr = pixels[(y - 1) * width + (x + 1)] and 0xFF
-                val ml = pixels[y * width + (x - 1)] and 0xFF
-                val mm = pixels[y * width + x] and 0xFF
-                val mr = pixels[y * width + (x + 1)] and 0xFF
-                val bl = pixels[(y + 1) * width + (x - 1)] and 0xFF
-                val bm = pixels[(y + 1) * width + x] and 0xFF
-                val br = pixels[(y + 1) * width + (x + 1)] and 0xFF
-                
-                // 수평 및 수직 그래디언트 계산
-                val gx = (tr + 2 * mr + br) - (tl + 2 * ml + bl)
-                val gy = (bl + 2 * bm + br) - (tl + 2 * tm + tr)
-                
-                // 그래디언트 크기 계산
-                var magnitude = kotlin.math.sqrt((gx * gx + gy * gy).toDouble()).toInt()
-                magnitude = magnitude.coerceIn(0, 255)
-                
-                // 반전하여 엣지를 검은색으로 표시
-                val edgeValue = 255 - magnitude
-                
-                // 흑백 이미지로 저장
-                newPixels[idx] = (0xFF shl 24) or (edgeValue shl 16) or (edgeValue shl 8) or edgeValue
-            }
+        out.reset(width, height)
+        out.originX = 0f
+        out.originY = 0f
+        out.step = 1f
+        out.frameWidth = width
+        out.frameHeight = height
+        val data = out.data
+        for (i in 0 until width * height) {
+            val pixel = pixels[i]
+            val r = (pixel shr 16) and 0xFF
+            val g = (pixel shr 8) and 0xFF
+            val b = pixel and 0xFF
+            data[i] = ((r * 77 + g * 150 + b * 29) shr 8).toByte()
         }
-        
-        result.setPixels(newPixels, 0, width, 0, 0, width, height)
-        return result
-    }
-    
-    // 문서 감지를 위한 윤곽선 강조
-    fun enhanceDocumentEdges(bitmap: Bitmap): Bitmap {
-        // 1. 그레이스케일 변환
-        val grayscale = toGrayscale(bitmap)
-        
-        // 2. 대비 향상 (더 강하게)
-        val enhanced = enhanceContrast(grayscale, 2.2f)
-        
-        // 3. 엣지 검출
-        val edges = detectEdges(enhanced)
-        
-        return edges
+        return out
     }
     
-    // 문서 스캔용 종합 처리
-    fun processForScan(bitmap: Bitmap, detectEdges: Boolean = false): Bitmap {
-        return if (detectEdges) {
-            // 엣지 검출 모드
-            enhanceDocumentEdges(bitmap)
-        } else {
-            // 일반 스캔 모드
-            // 1. 그레이스케일 변환
-            val grayscale = toGrayscale(bitmap)
-            
-            // 2. 대비 향상
-            enhanceContrast(grayscale, 1.8f)
-        }
+    // 중심 기준으로 degrees만큼 회전 (크기 유지, 빈 곳은 흰 종이색)
+    // 타일 단위로 읽고 쓰므로 원본 크기의 픽셀 배열을 따로 만들지 않는다
+    // grayscale이면 회색조 이미지로 보고 한 채널만 보간 (컬러의 약 2/3 시간)
+    fun rotateTiled(bitmap: Bitmap, degrees: Float, rotator: TileRotator = TileRotator(), grayscale: Boolean = false): Bitmap {
+        val result = Bitmap.createBitmap(bitmap.width, bitmap.height, Bitmap.Config.ARGB_8888)
+        rotator.rotate(
+            bitmap.width,
+            bitmap.height,
+            degrees,
+            Color.WHITE,
+            object : TileRotator.PixelSource {
+                override fun read(x: Int, y: Int, width: Int, height: Int, dst: IntArray) {
+                    bitmap.getPixels(dst, 0, width, x, y, width, height)
+                }
+            },
+            object : TileRotator.PixelSink {
+                override fun write(x: Int, y: Int, width: Int, height: Int, src: IntArray) {
+                    result.setPixels(src, 0, width, x, y, width, height)
+                }
+            },
+            grayscale
+        )
+        return result
     }
     
-    // 작은 크기로 리사이징 (성능 최적화)
-    fun resizeForProcessing(bitmap: Bitmap, maxSize: Int = 640): Bitmap {
+    // 그레이스케일 변환
+    fun toGrayscale(bitmap: Bitmap): Bitmap {
         val width = bitmap.width
         val height = bitmap.height
+        val result = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
         
-        if (width <= maxSize && height <= maxSize) {
-            return bitmap
-        }
+        val canvas = Canvas(result)
+        val paint = Paint()
         
-        val scale = if (width > height) {
-            maxSize.toFloat() / width
-        } else {
-            maxSize.toFloat() / height
+        val colorMatrix = ColorMatrix().apply {
+            setSaturation(0f)
         }
+        paint.colorFilter = ColorMatrixColorFilter(colorMatrix)
         
-        val newWidth = (width * scale).toInt()
-        val newHeight = (height * scale).toInt()
+        canvas.drawBitmap(bitmap, 0f, 0f, paint)
         
-        return Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true)
+        return result
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.example.myscanner
+
+import android.app.Application
+import com.bumptech.glide.Glide
+import com.bumptech.glide.MemoryCategory
+import com.example.myscanner.archive.CompactionWorker
+import com.example.myscanner.memory.MemoryGovernor
+
+class ScannerApplication : Application() {
+    
+    override fun onCreate() {
+        super.onCreate()
+        MemoryGovernor.init(this)
+        
+        // 메모리가 적은 기기에서는 썸네일 캐시를 작게 사용
+        if (MemoryGovernor.isConstrained) {
+            Glide.get(this).setMemoryCategory(MemoryCategory.LOW)
+        }
+        
+        // Glide 메모리 캐시 (썸네일)
+        MemoryGovernor.register(object : MemoryGovernor.Pool {
+            override val name = "thumbnail cache"
+            override val priority = MemoryGovernor.PRIORITY_CACHE
+            
+            override fun trim(aggressive: Boolean) {
+                Glide.get(this@ScannerApplication).clearMemory()
+            }
+        })
+        
+        // 오래된 스캔 재압축 (충전 중 유휴 상태일 때만 실행)
+        CompactionWorker.schedule(this)
+    }
+    
+    override fun onTrimMemory(level: Int) {
+        super.onTrimMemory(level)
+        MemoryGovernor.onTrimMemory(level)
+    }
+    
+    @Deprecated("Deprecated in Java")
+    override fun onLowMemory() {
+        super.onLowMemory()
+        MemoryGovernor.onLowMemory()
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.example.myscanner.adapter
 
 import android.annotation.SuppressLint
 import android.view.LayoutInflater
+import android.view.View
 import android.view.ViewGroup
 import androidx.recyclerview.widget.RecyclerView
 import com.bumptech.glide.Glide
@@ -11,19 +12,68 @@ import java.text.SimpleDateFormat
 import java.util.*
 
 class PhotoAdapter(
-    private val onItemClick: (File) -> Unit
+    private val onItemClick: (File) -> Unit,
+    private val isDuplicate: (File) -> Boolean = { false },
+    private val onSelectionChanged: (Int) -> Unit = {}
 ) : RecyclerView.Adapter<PhotoAdapter.PhotoViewHolder>() {
     
+    companion object {
+        // 선택 표시만 바뀔 때 이미지를 다시 불러오지 않도록 구분
+        private const val PAYLOAD_SELECTION = "selection"
+        private const val PAYLOAD_DUPLICATE = "duplicate"
+    }
+    
     private val photos = mutableListOf<File>()
+    private val selected = HashSet<File>()
     private val dateFormat = SimpleDateFormat("MM/dd HH:mm", Locale.KOREA)
     
+    // 길게 눌러 여러 장 선택 중인지 여부
+    var isSelectionMode = false
+        private set
+    
     @SuppressLint("NotifyDataSetChanged")
     fun setPhotos(newPhotos: List<File>) {
         photos.clear()
         photos.addAll(newPhotos)
+        // 삭제된 파일은 선택에서도 제외
+        if (selected.retainAll(newPhotos.toSet())) {
+            onSelectionChanged(selected.size)
+        }
         notifyDataSetChanged()
     }
     
+    // 중복 정보를 나중에 읽어 들였을 때 배지만 다시 그림
+    fun refreshDuplicates() {
+        notifyItemRangeChanged(0, photos.size, PAYLOAD_DUPLICATE)
+    }
+    
+    // 선택한 사진 (목록 순서대로)
+    fun selectedPhotos(): List<File> = photos.filter { it in selected }
+    
+    fun startSelection() {
+        if (isSelectionMode) return
+        isSelectionMode = true
+        notifyItemRangeChanged(0, photos.size, PAYLOAD_SELECTION)
+        onSelectionChanged(selected.size)
+    }
+    
+    fun clearSelection() {
+        if (!isSelectionMode) return
+        isSelectionMode = false
+        selected.clear()
+        notifyItemRangeChanged(0, photos.size, PAYLOAD_SELECTION)
+        onSelectionChanged(0)
+    }
+    
+    private fun toggleSelection(position: Int) {
+        val photo = photos[position]
+        if (!selected.remove(photo)) {
+            selected.add(photo)
+        }
+        notifyItemChanged(position, PAYLOAD_SELECTION)
+        onSelectionChanged(selected.size)
+    }
+    
     override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): PhotoViewHolder {
         val binding = ItemPhotoBinding.inflate(
             LayoutInflater.from(parent.context),
@@ -37,6 +87,15 @@ class PhotoAdapter(
         holder.bind(photos[position])
     }
     
+    override fun onBindViewHolder(holder: PhotoViewHolder, position: Int, payloads: MutableList<Any>) {
+        if (payloads.isNotEmpty() && payloads.all { it == PAYLOAD_SELECTION || it == PAYLOAD_DUPLICATE }) {
+            if (payloads.contains(PAYLOAD_SELECTION)) holder.bindSelection(photos[position])
+            if (payloads.contains(PAYLOAD_DUPLICATE)) holder.bindDuplicate(photos[position])
+        } else {
+            super.onBindViewHolder(holder, position, payloads)
+        }
+    }
+    
     override fun getItemCount() = photos.size
     
     inner class PhotoViewHolder(
@@ -47,9 +106,22 @@ class PhotoAdapter(
             binding.root.setOnClickListener {
                 val position = adapterPosition
                 if (position != RecyclerView.NO_POSITION) {
-                    onItemClick(photos[position])
+                    if (isSelectionMode) {
+                        toggleSelection(position)
+                    } else {
+                        onItemClick(photos[position])
+                    }
                 }
             }
+            
+            // 길게 누르면 선택 모드 시작
+            binding.root.setOnLongClickListener {
+                val position = adapterPosition
+                if (position == RecyclerView.NO_POSITION) return@setOnLongClickListener false
+                startSelection()
+                toggleSelection(position)
+                true
+            }
         }
         
         fun bind(photo: File) {
@@ -62,6 +134,19 @@ class PhotoAdapter(
             // 파일명과 날짜 설정
             binding.tvFileName.text = photo.nameWithoutExtension
             binding.tvDate.text = dateFormat.format(Date(photo.lastModified()))
+            
+            bindDuplicate(photo)
+            bindSelection(photo)
+        }
+        
+        // 이미 스캔한 페이지와 거의 같으면 중복 표시
+        fun bindDuplicate(photo: File) {
+            binding.tvDuplicate.visibility = if (isDuplicate(photo)) View.VISIBLE else View.GONE
+        }
+        
+        fun bindSelection(photo: File) {
+            binding.cbSelected.visibility = if (isSelectionMode) View.VISIBLE else View.GONE
+            binding.cbSelected.isChecked = photo in selected
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+package com.example.myscanner.archive
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.util.Log
+import com.example.myscanner.DocumentProcessor
+import com.example.myscanner.capture.PageEncoder
+import com.example.myscanner.catalog.ScanCatalog
+import com.example.myscanner.core.GrayImage
+import com.example.myscanner.core.PerceptualHash
+import java.io.File
+import java.io.FileOutputStream
+import java.util.concurrent.TimeUnit
+
+// 오래된 스캔(고품질 JPEG)을 WebP로 다시 압축해 저장 공간 회수
+// 한 장씩 디코딩 -> 정해진 품질로 인코딩 -> 검증(크기, 지각 해시) -> 원본 교체 순서로 진행하고,
+// 결과 파일을 끝까지 쓰고 동기화한 뒤에만 이름을 바꾸므로 중간에 종료되어도 원본을 잃지 않는다
+// 카탈로그에 없는 파일은 아직 가져오기/재처리 대상이므로 건드리지 않는다
+class ArchiveCompactor(
+    context: Context,
+    private val minAgeDays: Int = DEFAULT_MIN_AGE_DAYS,
+    private val quality: Int = DEFAULT_QUALITY,
+    private val format: PageEncoder.Format = PageEncoder.Format.WEBP
+) {
+    
+    class Summary(
+        val compacted: Int,
+        val skipped: Int,
+        val failed: Int,
+        val bytesReclaimed: Long
+    )
+    
+    companion object {
+        private const val TAG = "ArchiveCompactor"
+        private const val DEFAULT_MIN_AGE_DAYS = 30
+        private const val DEFAULT_QUALITY = 80
+        private const val SOURCE_EXTENSION = "jpg"
+        private const val TEMP_SUFFIX = ".compact.tmp"
+        private const val MIN_SAVING_RATIO = 0.9 // 10% 이상 줄지 않으면 원본 유지
+        private const val MAX_HASH_DISTANCE = 4 // 다시 압축한 결과가 원본과 같은 페이지로 보이는 최대 거리
+        private const val VERIFY_SIZE = 256 // 검증용 축소 디코딩 크기
+        
+        private const val PREFS_NAME = "archive_compaction"
+        private const val KEY_SKIPPED = "skipped" // 줄지 않거나 검증에 실패해 다시 시도하지 않을 파일
+        private const val KEY_TOTAL_RECLAIMED = "total_reclaimed"
+        
+        // 지금까지 회수한 용량 (바이트)
+        fun totalReclaimed(context: Context): Long {
+            return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getLong(KEY_TOTAL_RECLAIMED, 0)
+        }
+    }
+    
+    private val context = context.applicationContext
+    private val photosDir = File(this.context.filesDir, "photos")
+    private val catalog = ScanCatalog.get(this.context)
+    private val encoder = PageEncoder()
+    private val thumbnailGray = GrayImage()
+    
+    // isStopped가 true가 되면 현재 파일까지만 처리하고 중단
+    fun run(isStopped: () -> Boolean): Summary {
+        val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+        val skippedNames = HashSet(prefs.getStringSet(KEY_SKIPPED, emptySet()) ?: emptySet())
+        recoverInterrupted()
+        
+        val cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(minAgeDays.toLong())
+        val candidates = photosDir.listFiles()
+            ?.filter {
+                it.extension == SOURCE_EXTENSION && it.lastModified() < cutoff &&
+                    it.name !in skippedNames && catalog.get(it.name) != null
+            }
+            ?.sortedBy { it.lastModified() }
+            ?: emptyList()
+        
+        var compacted = 0
+        var skipped = 0
+        var failed = 0
+        var reclaimed = 0L
+        for (file in candidates) {
+            if (isStopped()) break
+            
+            val saved = try {
+                compact(file)
+            } catch (e: Exception) {
+                Log.e(TAG, "${file.name} 압축 실패", e)
+                null
+            }
+            when {
+                saved == null -> {
+                    failed++
+                    skippedNames.add(file.name)
+                }
+                saved == 0L -> {
+                    skipped++
+                    skippedNames.add(file.name)
+                }
+                else -> {
+                    compacted++
+                    reclaimed += saved
+                }
+            }
+        }
+        
+        // 없어진 파일은 건너뛸 목록에서도 정리
+        skippedNames.retainAll { File(photosDir, it).exists() }
+        prefs.edit()
+            .putStringSet(KEY_SKIPPED, skippedNames)
+            .putLong(KEY_TOTAL_RECLAIMED, prefs.getLong(KEY_TOTAL_RECLAIMED, 0) + reclaimed)
+            .apply()
+        
+        Log.d(TAG, "압축 $compacted, 유지 $skipped, 실패 $failed, 회수 ${reclaimed / 1024}KB")
+        return Summary(compacted, skipped, failed, reclaimed)
+    }
+    
+    // 회수한 바이트 수, 줄지 않아 원본을 유지하면 0, 검증 실패면 null
+    private fun compact(source: File): Long? {
+        val output = File(photosDir, "${source.nameWithoutExtension}.${format.extension}")
+        val tempFile = File(photosDir, "${output.name}$TEMP_SUFFIX")
+        
+        val bitmap = BitmapFactory.decodeFile(source.absolutePath) ?: return null
+        val width = bitmap.width
+        val height = bitmap.height
+        val sourceHash: Long
+        try {
+            sourceHash = hash(bitmap)
+            FileOutputStream(tempFile).use { out ->
+                encoder.encodeAtQuality(bitmap, format, quality, out)
+                // 이름을 바꾸기 전에 내용이 디스크에 기록되도록
+                out.fd.sync()
+            }
+        } finally {
+            bitmap.recycle()
+        }
+        
+        val sourceLength = source.length()
+        val outputLength = tempFile.length()
+        if (outputLength >= sourceLength * MIN_SAVING_RATIO) {
+            tempFile.delete()
+            return 0
+        }
+        if (!verify(tempFile, width, height, sourceHash)) {
+            Log.w(TAG, "${source.name} 검증 실패, 원본 유지")
+            tempFile.delete()
+            return null
+        }
+        
+        // 새 파일로 이름을 바꾼 뒤 카탈로그를 옮기고 원본 삭제 (도중에 멈추면 recoverInterrupted가 마무리)
+        if (!tempFile.renameTo(output)) {
+            tempFile.delete()
+            return null
+        }
+        output.setLastModified(source.lastModified())
+        catalog.rename(source.name, output.name)
+        source.delete()
+        Log.d(TAG, "${source.name} -> ${output.name}: ${sourceLength / 1024}KB -> ${outputLength / 1024}KB")
+        return sourceLength - outputLength
+    }
+    
+    // 다시 디코딩해서 크기가 같고 축소본의 지각 해시가 원본과 거의 같은지 확인
+    private fun verify(file: File, width: Int, height: Int, sourceHash: Long): Boolean {
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        BitmapFactory.decodeFile(file.absolutePath, bounds)
+        if (bounds.outWidth != width || bounds.outHeight != height) return false
+        
+        var sampleSize = 1
+        while (maxOf(width, height) / (sampleSize * 2) >= VERIFY_SIZE) {
+            sampleSize *= 2
+        }
+        val options = BitmapFactory.Options().apply { inSampleSize = sampleSize }
+        val decoded = BitmapFactory.decodeFile(file.absolutePath, options) ?: return false
+        try {
+            return PerceptualHash.distance(hash(decoded), sourceHash) <= MAX_HASH_DISTANCE
+        } finally {
+            decoded.recycle()
+        }
+    }
+    
+    private fun hash(bitmap: Bitmap): Long {
+        val thumbnail = DocumentProcessor.createThumbnail(bitmap, VERIFY_SIZE)
+        try {
+            return PerceptualHash.dHash(DocumentProcessor.toGrayImage(thumbnail, thumbnailGray))
+        } finally {
+            if (thumbnail != bitmap) {
+                thumbnail.recycle()
+            }
+        }
+    }
+    
+    // 이전 실행이 이름을 바꾼 뒤 원본을 지우기 전에 멈췄으면 마무리하고, 남은 임시 파일은 삭제
+    private fun recoverInterrupted() {
+        val files = photosDir.listFiles() ?: return
+        for (file in files) {
+            if (file.name.endsWith(TEMP_SUFFIX)) {
+                file.delete()
+                continue
+            }
+            if (file.extension != SOURCE_EXTENSION) continue
+            
+            val output = File(photosDir, "${file.nameWithoutExtension}.${format.extension}")
+            if (!output.exists()) continue
+            if (catalog.get(output.name) == null) {
+                catalog.rename(file.name, output.name)
+            }
+            file.delete()
+            Log.d(TAG, "${file.name}: 이전 압축 마무리")
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.example.myscanner.archive
+
+import android.content.Context
+import androidx.work.Constraints
+import androidx.work.Data
+import androidx.work.ExistingPeriodicWorkPolicy
+import androidx.work.PeriodicWorkRequest
+import androidx.work.WorkManager
+import androidx.work.Worker
+import androidx.work.WorkerParameters
+import java.util.concurrent.TimeUnit
+
+// 충전 중이고 기기를 쓰지 않을 때 하루 한 번 오래된 스캔을 다시 압축
+// 결과(압축한 파일 수, 회수한 용량)는 작업 출력 데이터로 남긴다
+class CompactionWorker(
+    context: Context,
+    params: WorkerParameters
+) : Worker(context, params) {
+    
+    companion object {
+        private const val WORK_NAME = "archive_compaction"
+        private const val REPEAT_INTERVAL_DAYS = 1L
+        
+        const val KEY_COMPACTED = "compacted"
+        const val KEY_FAILED = "failed"
+        const val KEY_BYTES_RECLAIMED = "bytes_reclaimed"
+        
+        // 이미 예약되어 있으면 그대로 둠
+        fun schedule(context: Context) {
+            val constraints = Constraints.Builder()
+                .setRequiresCharging(true)
+                .setRequiresDeviceIdle(true)
+                .build()
+            val request = PeriodicWorkRequest.Builder(CompactionWorker::class.java, REPEAT_INTERVAL_DAYS, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build()
+            WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request)
+        }
+    }
+    
+    override fun doWork(): Result {
+        // 조건이 깨져 중단되면 처리한 곳까지만 반영하고 다음 실행에서 이어서 진행
+        val summary = ArchiveCompactor(applicationContext).run { isStopped }
+        val output = Data.Builder()
+            .putInt(KEY_COMPACTED, summary.compacted)
+            .putInt(KEY_FAILED, summary.failed)
+            .putLong(KEY_BYTES_RECLAIMED, summary.bytesReclaimed)
+            .build()
+        return Result.success(output)
+    }
+}
\ No newline at end of file
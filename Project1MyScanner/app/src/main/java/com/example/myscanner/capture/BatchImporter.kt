@@ -0,0 +1,256 @@
+package com.example.myscanner.capture
+
+import android.content.Context
+import android.graphics.BitmapFactory
+import android.net.Uri
+import android.os.Handler
+import android.os.Looper
+import android.util.Log
+import com.example.myscanner.catalog.ScanCatalog
+import com.example.myscanner.memory.MemoryGovernor
+import java.io.File
+import java.io.IOException
+import java.text.SimpleDateFormat
+import java.util.*
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+// 여러 이미지를 스캔 파이프라인(회전 보정, 해시, 인코딩)으로 일괄 처리
+// 소스는 사진 선택기에서 고른 content:// URI 또는 예전 버전이 남긴 photos 폴더의 파일 경로
+// 동시 처리 개수는 코어 수와 메모리 등급으로 제한하고, 작업 목록과 진행 위치(cursor)를 파일에 남겨
+// 앱이 종료되거나 취소된 뒤에도 이어서 처리할 수 있다
+// 작업 파일은 하나뿐이므로 화면이 다시 만들어져 인스턴스가 여러 개여도 프로세스 안에서 한 번에 하나만 실행한다
+class BatchImporter(context: Context) {
+    
+    interface Listener {
+        fun onProgress(done: Int, total: Int)
+        fun onFinished(done: Int, total: Int, cancelled: Boolean)
+    }
+    
+    companion object {
+        private const val TAG = "BatchImporter"
+        private const val JOB_FILE = "import_job.txt"
+        private const val CURSOR_FILE = "import_cursor.txt"
+        private const val MAX_IMAGE_SIZE = 3000 // 선택한 이미지를 가져올 때 긴 변 최대 픽셀 (원본은 사용자 갤러리에 남아 있음)
+        private const val BYTES_PER_PIXEL = 4
+        private const val BITMAPS_PER_TASK = 2 // 디코딩 결과 + 회전/회색조 변환본
+        private const val DECODE_BUDGET_MB = 128 // 기준 힙 등급에서 동시 디코딩에 쓸 메모리 (힙의 절반)
+        
+        // 아직 처리하지 않은 예전 사진 (카탈로그에 없는 파일)
+        fun findLegacyPhotos(context: Context): List<String> {
+            val catalog = ScanCatalog.get(context)
+            val photosDir = File(context.filesDir, "photos")
+            return photosDir.listFiles()
+                ?.filter { it.extension == "jpg" && catalog.get(it.name) == null }
+                ?.sortedBy { it.lastModified() }
+                ?.map { it.absolutePath }
+                ?: emptyList()
+        }
+        
+        fun hasPendingJob(context: Context): Boolean {
+            return File(context.filesDir, JOB_FILE).exists()
+        }
+        
+        // 프로세스 전체에서 실행 중인 작업 (이전 화면의 작업이 아직 마무리 중일 수 있음)
+        private val running = AtomicBoolean(false)
+        private val cancelled = AtomicBoolean(false)
+        
+        // 진행 상황을 받을 화면 (다시 만들어진 화면이 attach로 이어받음)
+        @Volatile
+        private var listener: Listener? = null
+    }
+    
+    private val context = context.applicationContext
+    private val mainHandler = Handler(Looper.getMainLooper())
+    
+    // 진행 위치 관리 (병렬 처리라 완료 순서가 섞이므로 앞에서부터 연속으로 끝난 곳까지만 기록)
+    private var completed = BooleanArray(0)
+    private var cursor = 0
+    
+    val isRunning get() = running.get()
+    
+    // 새 작업 시작 (이전에 끝나지 않은 작업은 버린다)
+    // 다른 작업이 아직 실행 중이면 작업 파일을 건드리지 않고 false
+    fun start(sources: List<String>, listener: Listener): Boolean {
+        if (isRunning) return false
+        val name = SimpleDateFormat("yyyy-MM-dd-HHmmss", Locale.KOREA).format(System.currentTimeMillis())
+        val job = listOf(name) + sources
+        File(context.filesDir, JOB_FILE).writeText(job.joinToString("\n"))
+        File(context.filesDir, CURSOR_FILE).delete()
+        return resume(listener)
+    }
+    
+    // 저장된 작업을 cursor 위치부터 이어서 처리
+    // 이미 실행 중인 작업이 있으면 (다른 인스턴스의 작업 포함) 시작하지 않고 false
+    fun resume(listener: Listener): Boolean {
+        if (!running.compareAndSet(false, true)) return false
+        BatchImporter.listener = listener
+        
+        val lines = try {
+            File(context.filesDir, JOB_FILE).readLines()
+        } catch (e: IOException) {
+            Log.e(TAG, "작업 목록 읽기 실패", e)
+            emptyList()
+        }
+        if (lines.isEmpty()) {
+            running.set(false)
+            return false
+        }
+        val jobName = lines[0]
+        val sources = lines.drop(1).filter { it.isNotBlank() }
+        
+        cursor = File(context.filesDir, CURSOR_FILE).takeIf { it.exists() }
+            ?.readText()?.trim()?.toIntOrNull()?.coerceIn(0, sources.size) ?: 0
+        completed = BooleanArray(sources.size)
+        for (i in 0 until cursor) completed[i] = true
+        cancelled.set(false)
+        
+        val total = sources.size
+        val next = AtomicInteger(cursor)
+        val done = AtomicInteger(cursor)
+        // 예전 사진(파일 경로)은 photos 폴더의 원본 자체이므로 축소하지 않고 원본 해상도로 처리
+        // 그만큼 한 장이 쓰는 메모리가 커지므로 가장 큰 사진 기준으로 동시 처리 개수를 정함
+        val maxPixels = maxOf(MAX_IMAGE_SIZE.toLong() * MAX_IMAGE_SIZE * 3 / 4, largestLegacyPixels(sources))
+        val parallelism = computeParallelism(maxPixels)
+        val workers = AtomicInteger(parallelism)
+        Log.d(TAG, "가져오기 시작: $cursor/$total, 동시 처리 $parallelism")
+        
+        val pool = Executors.newFixedThreadPool(parallelism)
+        repeat(parallelism) {
+            pool.execute {
+                // 인코더 버퍼는 스레드마다 하나씩
+                val processor = PageProcessor(ScanCatalog.get(context))
+                // 예전 사진은 사용자의 유일한 원본이므로 용량 목표 없이 최고 품질로 다시 저장 (필요할 때만 생성)
+                val legacyProcessor = lazy {
+                    PageProcessor(ScanCatalog.get(context), PageEncoder(targetBytes = Int.MAX_VALUE, minPsnr = 0f))
+                }
+                
+                try {
+                    while (!cancelled.get()) {
+                        val index = next.getAndIncrement()
+                        if (index >= total) break
+                        
+                        try {
+                            importOne(processor, legacyProcessor, sources[index], "$jobName-${index + 1}")
+                        } catch (e: Exception) {
+                            // 한 장이 실패해도 나머지는 계속 처리
+                            Log.e(TAG, "가져오기 실패: ${sources[index]}", e)
+                        }
+                        markCompleted(index)
+                        
+                        val count = done.incrementAndGet()
+                        mainHandler.post { BatchImporter.listener?.onProgress(count, total) }
+                    }
+                } finally {
+                    // 인코더의 네이티브 메모리 해제
+                    processor.release()
+                    if (legacyProcessor.isInitialized()) {
+                        legacyProcessor.value.release()
+                    }
+                }
+                
+                if (workers.decrementAndGet() == 0) {
+                    pool.shutdown()
+                    val wasCancelled = cancelled.get() && done.get() < total
+                    if (!wasCancelled) {
+                        clearJob()
+                    }
+                    running.set(false)
+                    mainHandler.post { BatchImporter.listener?.onFinished(done.get(), total, wasCancelled) }
+                }
+            }
+        }
+        return true
+    }
+    
+    // 실행 중인 작업의 진행 상황을 이 listener로 받음 (화면이 다시 만들어졌을 때)
+    fun attach(listener: Listener) {
+        BatchImporter.listener = listener
+    }
+    
+    // 화면이 사라질 때 listener를 붙잡고 있지 않도록
+    fun detach(listener: Listener) {
+        if (BatchImporter.listener == listener) {
+            BatchImporter.listener = null
+        }
+    }
+    
+    // 처리 중인 이미지는 마저 끝내고 멈춤 (진행 위치는 남아 있으므로 나중에 이어서 가능)
+    fun cancel() {
+        cancelled.set(true)
+    }
+    
+    fun discardPendingJob() {
+        if (!isRunning) clearJob()
+    }
+    
+    private fun importOne(processor: PageProcessor, legacyProcessor: Lazy<PageProcessor>, source: String, name: String) {
+        if (!source.startsWith("content://")) {
+            // 원본을 결과로 교체하므로 축소하지 않음
+            val file = File(source)
+            if (file.exists()) {
+                legacyProcessor.value.process(file, PageProcessor.Options())
+            }
+            return
+        }
+        
+        // 선택한 이미지를 photos 폴더로 복사 (같은 위치는 같은 이름이므로 다시 처리해도 중복되지 않음)
+        val photosDir = File(context.filesDir, "photos")
+        if (!photosDir.exists()) {
+            photosDir.mkdirs()
+        }
+        val target = File(photosDir, "$name.jpg")
+        val input = context.contentResolver.openInputStream(Uri.parse(source))
+            ?: throw IOException("열 수 없습니다: $source")
+        input.use { inputStream ->
+            target.outputStream().use { inputStream.copyTo(it) }
+        }
+        processor.process(target, PageProcessor.Options(maxSize = MAX_IMAGE_SIZE))
+    }
+    
+    @Synchronized
+    private fun markCompleted(index: Int) {
+        completed[index] = true
+        val start = cursor
+        while (cursor < completed.size && completed[cursor]) {
+            cursor++
+        }
+        if (cursor != start) {
+            try {
+                File(context.filesDir, CURSOR_FILE).writeText(cursor.toString())
+            } catch (e: IOException) {
+                Log.e(TAG, "진행 위치 저장 실패", e)
+            }
+        }
+    }
+    
+    // 코어 하나는 UI용으로 남기고, 힙 등급에 맞춰 줄인 디코딩 예산 안에서 동시에 디코딩할 수 있는 만큼만
+    // maxPixels는 이 작업에서 한 장을 디코딩할 때의 최대 픽셀 수
+    private fun computeParallelism(maxPixels: Long): Int {
+        if (MemoryGovernor.isConstrained) return 1
+        
+        val cores = Runtime.getRuntime().availableProcessors() - 1
+        val budget = MemoryGovernor.scaledSize(DECODE_BUDGET_MB).toLong() * 1024 * 1024
+        val perTask = maxPixels * BYTES_PER_PIXEL * BITMAPS_PER_TASK
+        val byMemory = (budget / perTask).toInt()
+        return minOf(cores, byMemory).coerceAtLeast(1)
+    }
+    
+    // 예전 사진 중 가장 큰 파일의 픽셀 수 (같은 카메라로 찍었으므로 파일 크기가 가장 크면 해상도도 가장 큼)
+    // 헤더만 읽으므로 메인 스레드에서 불러도 됨
+    private fun largestLegacyPixels(sources: List<String>): Long {
+        val largest = sources.asSequence()
+            .filter { !it.startsWith("content://") }
+            .map { File(it) }
+            .maxByOrNull { it.length() } ?: return 0
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        BitmapFactory.decodeFile(largest.path, bounds)
+        return (bounds.outWidth.toLong() * bounds.outHeight).coerceAtLeast(0)
+    }
+    
+    private fun clearJob() {
+        File(context.filesDir, JOB_FILE).delete()
+        File(context.filesDir, CURSOR_FILE).delete()
+    }
+}
\ No newline at end of file
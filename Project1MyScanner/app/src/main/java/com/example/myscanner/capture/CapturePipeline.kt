@@ -0,0 +1,45 @@
+package com.example.myscanner.capture
+
+import android.util.Log
+import com.example.myscanner.catalog.ScanCatalog
+import java.io.File
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+// 촬영한 페이지를 백그라운드 스레드 하나에서 순서대로 PageProcessor로 처리
+// 촬영 직후 바로 다음 촬영을 할 수 있도록 카메라 화면에서 사용한다
+class CapturePipeline(catalog: ScanCatalog? = null) {
+    
+    companion object {
+        private const val TAG = "CapturePipeline"
+    }
+    
+    private val executor: ExecutorService = Executors.newSingleThreadExecutor()
+    private val processor = PageProcessor(catalog)
+    private var recovered = false // 실행기 스레드에서만 사용
+    
+    // 처리가 끝나면 백그라운드 스레드에서 결과 파일(실패 시 null)로 onComplete 호출
+    fun submit(photoFile: File, options: PageProcessor.Options, onComplete: (File?) -> Unit) {
+        executor.execute {
+            if (!recovered) {
+                recovered = true
+                photoFile.parentFile?.let { PageProcessor.recoverInterrupted(it) }
+            }
+            val result = try {
+                processor.process(photoFile, options)
+            } catch (e: Exception) {
+                Log.e(TAG, "촬영 후 처리 실패", e)
+                null
+            }
+            onComplete(result)
+        }
+    }
+    
+    // 대기 중인 작업은 마저 처리한 뒤 종료 (촬영한 페이지를 잃지 않도록)
+    // 처리기는 마지막 작업 뒤에 해제되도록 큐 끝에 넣는다
+    fun shutdown() {
+        if (executor.isShutdown) return
+        executor.execute { processor.release() }
+        executor.shutdown()
+    }
+}
\ No newline at end of file
@@ -0,0 +1,248 @@
+package com.example.myscanner.capture
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Color
+import android.os.Build
+import com.example.myscanner.core.BinaryPngEncoder
+import com.example.myscanner.core.Otsu
+import com.example.myscanner.memory.MemoryGovernor
+import java.io.ByteArrayOutputStream
+import java.io.OutputStream
+
+// 스캔 페이지를 목표 용량 이하로 저장하는 인코더
+// JPEG/WebP는 품질을 이진 탐색해 targetBytes를 넘지 않는 가장 높은 품질을 고르고,
+// 그보다 낮은 품질로도 원본과 구별되지 않으면(밝기 PSNR이 minPsnr 이상) 그 품질까지 낮춘다
+// 이진화한 페이지는 1비트 PNG로 저장한다
+// 품질 시도마다 같은 버퍼를 재사용하므로 시도 횟수와 관계없이 버퍼는 하나뿐이다
+// 한 스레드에서만 사용해야 하고, 다 쓰면 release()로 압축기의 네이티브 메모리를 해제한다
+class PageEncoder(
+    private val targetBytes: Int = DEFAULT_TARGET_BYTES,
+    private val minQuality: Int = DEFAULT_MIN_QUALITY,
+    private val minPsnr: Float = DEFAULT_MIN_PSNR // 0이면 용량 목표만 사용
+) {
+    
+    enum class Format(val extension: String, val mimeType: String) {
+        JPEG("jpg", "image/jpeg"),
+        WEBP("webp", "image/webp"),
+        BINARY_PNG("png", "image/png")
+    }
+    
+    companion object {
+        private const val DEFAULT_TARGET_BYTES = 800 * 1024 // 업로드 제한보다 약간 작게
+        private const val DEFAULT_MIN_QUALITY = 40 // 이보다 낮으면 글자 주변 잡음이 눈에 띔
+        private const val MAX_QUALITY = 95
+        private const val DEFAULT_MIN_PSNR = 42f // 이 이상이면 화면에서 원본과 차이가 보이지 않음
+        private const val PSNR_SAMPLE_SIZE = 2 // 화질 비교는 절반 크기로 복원해 계산
+        private const val INITIAL_BUFFER_SIZE = 1024 * 1024 // 기준 힙 등급에서의 크기 (작은 기기는 필요할 때 늘어남)
+    }
+    
+    // 시도한 결과를 복사하지 않고 바로 복원할 수 있도록 내부 배열을 노출
+    private class EncodeBuffer(size: Int) : ByteArrayOutputStream(size) {
+        fun bytes(): ByteArray = buf
+    }
+    
+    private val buffer = EncodeBuffer(MemoryGovernor.scaledSize(INITIAL_BUFFER_SIZE))
+    private var bufferQuality = -1
+    private val pngEncoder = BinaryPngEncoder()
+    private val histogram = IntArray(256)
+    private var rowPixels = IntArray(0)
+    private var lumaRow = ByteArray(0)
+    private var lumaRowBelow = ByteArray(0)
+    
+    // 지각 화질 비교용: 원본을 절반으로 줄인 밝기와 시도 결과를 복원할 비트맵 (시도마다 재사용)
+    private var reference = ByteArray(0)
+    private var referenceWidth = 0
+    private var referenceHeight = 0
+    private var trialBitmap: Bitmap? = null
+    private val trialOptions = BitmapFactory.Options().apply {
+        inSampleSize = PSNR_SAMPLE_SIZE
+        inMutable = true
+    }
+    
+    // bitmap을 format으로 인코딩해 output에 기록하고 사용한 품질을 반환 (PNG는 무손실이므로 100)
+    fun encode(bitmap: Bitmap, format: Format, output: OutputStream): Int {
+        return when (format) {
+            Format.JPEG -> encodeToTarget(bitmap, Bitmap.CompressFormat.JPEG, output)
+            Format.WEBP -> encodeToTarget(bitmap, webpFormat(), output)
+            Format.BINARY_PNG -> {
+                encodeBinary(bitmap, output)
+                100
+            }
+        }
+    }
+    
+    // 용량 목표 없이 정해진 품질로 인코딩 (보관 사진 압축처럼 품질을 설정으로 정할 때)
+    fun encodeAtQuality(bitmap: Bitmap, format: Format, quality: Int, output: OutputStream) {
+        when (format) {
+            Format.JPEG -> compress(bitmap, Bitmap.CompressFormat.JPEG, quality)
+            Format.WEBP -> compress(bitmap, webpFormat(), quality)
+            Format.BINARY_PNG -> {
+                encodeBinary(bitmap, output)
+                return
+            }
+        }
+        buffer.writeTo(output)
+    }
+    
+    // 최고 품질로 목표 이하면 MAX_QUALITY, 아니면 [minQuality, MAX_QUALITY) 구간 이진 탐색
+    // minQuality로도 목표를 넘으면 화질을 지키기 위해 minQuality 결과를 쓴다
+    // 그다음 지각 임계값으로 고른 품질보다 더 낮출 수 있는지 확인
+    private fun encodeToTarget(bitmap: Bitmap, format: Bitmap.CompressFormat, output: OutputStream): Int {
+        compress(bitmap, format, MAX_QUALITY)
+        var best = MAX_QUALITY
+        if (buffer.size() > targetBytes) {
+            var low = minQuality
+            var high = MAX_QUALITY - 1
+            best = minQuality
+            while (low <= high) {
+                val quality = (low + high) / 2
+                compress(bitmap, format, quality)
+                if (buffer.size() <= targetBytes) {
+                    best = quality
+                    low = quality + 1
+                } else {
+                    high = quality - 1
+                }
+            }
+        }
+        if (minPsnr > 0f && best > minQuality) {
+            best = lowestTransparentQuality(bitmap, format, best)
+        }
+        
+        // 마지막 시도가 채택한 품질이 아니면 한 번 더 인코딩
+        if (bufferQuality != best) {
+            compress(bitmap, format, best)
+        }
+        buffer.writeTo(output)
+        return best
+    }
+    
+    // [minQuality, maxQuality] 구간에서 PSNR이 minPsnr 이상인 가장 낮은 품질
+    // 품질이 높을수록 PSNR도 높다고 보고 이진 탐색 (복원에 실패하면 기준 미달로 취급)
+    private fun lowestTransparentQuality(bitmap: Bitmap, format: Bitmap.CompressFormat, maxQuality: Int): Int {
+        prepareReference(bitmap)
+        var low = minQuality
+        var high = maxQuality - 1
+        var best = maxQuality
+        while (low <= high) {
+            val quality = (low + high) / 2
+            compress(bitmap, format, quality)
+            if (trialPsnr() >= minPsnr) {
+                best = quality
+                high = quality - 1
+            } else {
+                low = quality + 1
+            }
+        }
+        return best
+    }
+    
+    // 원본 밝기를 2x2 평균으로 줄여 둠 (시도 결과도 같은 배율로 복원해 비교)
+    private fun prepareReference(bitmap: Bitmap) {
+        val width = bitmap.width
+        referenceWidth = width / PSNR_SAMPLE_SIZE
+        referenceHeight = bitmap.height / PSNR_SAMPLE_SIZE
+        if (reference.size < referenceWidth * referenceHeight) reference = ByteArray(referenceWidth * referenceHeight)
+        ensureRows(width)
+        
+        var index = 0
+        for (y in 0 until referenceHeight) {
+            readLuminanceRow(bitmap, y * 2, lumaRow)
+            readLuminanceRow(bitmap, y * 2 + 1, lumaRowBelow)
+            for (x in 0 until referenceWidth) {
+                val sum = (lumaRow[x * 2].toInt() and 0xFF) + (lumaRow[x * 2 + 1].toInt() and 0xFF) +
+                    (lumaRowBelow[x * 2].toInt() and 0xFF) + (lumaRowBelow[x * 2 + 1].toInt() and 0xFF)
+                reference[index++] = ((sum + 2) shr 2).toByte()
+            }
+        }
+    }
+    
+    // 버퍼의 시도 결과를 절반 크기로 복원해 기준 밝기와의 PSNR(dB) 계산
+    private fun trialPsnr(): Float {
+        trialOptions.inBitmap = trialBitmap
+        val decoded = try {
+            BitmapFactory.decodeByteArray(buffer.bytes(), 0, buffer.size(), trialOptions)
+        } catch (e: IllegalArgumentException) {
+            // 재사용할 비트맵 크기가 맞지 않으면 새로 할당
+            trialOptions.inBitmap = null
+            BitmapFactory.decodeByteArray(buffer.bytes(), 0, buffer.size(), trialOptions)
+        } ?: return 0f
+        trialBitmap = decoded
+        if (decoded.width < referenceWidth || decoded.height < referenceHeight) return 0f
+        
+        var squaredError = 0L
+        var index = 0
+        for (y in 0 until referenceHeight) {
+            decoded.getPixels(rowPixels, 0, referenceWidth, 0, y, referenceWidth, 1)
+            for (x in 0 until referenceWidth) {
+                val pixel = rowPixels[x]
+                val luma = (Color.red(pixel) * 77 + Color.green(pixel) * 150 + Color.blue(pixel) * 29) shr 8
+                val diff = luma - (reference[index++].toInt() and 0xFF)
+                squaredError += diff * diff
+            }
+        }
+        if (squaredError == 0L) return Float.MAX_VALUE
+        val mse = squaredError.toDouble() / (referenceWidth.toLong() * referenceHeight)
+        return (10 * Math.log10(255.0 * 255.0 / mse)).toFloat()
+    }
+    
+    private fun compress(bitmap: Bitmap, format: Bitmap.CompressFormat, quality: Int) {
+        buffer.reset()
+        bitmap.compress(format, quality, buffer)
+        bufferQuality = quality
+    }
+    
+    // 밝기 히스토그램으로 Otsu 임계값을 구한 뒤 한 줄씩 1비트 PNG로 기록
+    private fun encodeBinary(bitmap: Bitmap, output: OutputStream) {
+        val width = bitmap.width
+        val height = bitmap.height
+        ensureRows(width)
+        
+        histogram.fill(0)
+        for (y in 0 until height) {
+            readLuminanceRow(bitmap, y, lumaRow)
+            for (x in 0 until width) {
+                histogram[lumaRow[x].toInt() and 0xFF]++
+            }
+        }
+        
+        val threshold = Otsu.threshold(histogram)
+        pngEncoder.encode(width, height, threshold, { y, dst -> readLuminanceRow(bitmap, y, dst) }, output)
+    }
+    
+    private fun ensureRows(width: Int) {
+        if (rowPixels.size < width) rowPixels = IntArray(width)
+        if (lumaRow.size < width) {
+            lumaRow = ByteArray(width)
+            lumaRowBelow = ByteArray(width)
+        }
+    }
+    
+    private fun readLuminanceRow(bitmap: Bitmap, y: Int, dst: ByteArray) {
+        val width = bitmap.width
+        bitmap.getPixels(rowPixels, 0, width, 0, y, width, 1)
+        for (x in 0 until width) {
+            val pixel = rowPixels[x]
+            // toGrayscale과 같은 가중치 (정수 근사)
+            val luma = (Color.red(pixel) * 77 + Color.green(pixel) * 150 + Color.blue(pixel) * 29) shr 8
+            dst[x] = luma.toByte()
+        }
+    }
+    
+    // PNG 압축기(Deflater)의 네이티브 메모리와 화질 비교용 비트맵 해제, 이후에는 사용할 수 없음
+    fun release() {
+        pngEncoder.release()
+        trialBitmap?.recycle()
+        trialBitmap = null
+    }
+    
+    private fun webpFormat(): Bitmap.CompressFormat {
+        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            Bitmap.CompressFormat.WEBP_LOSSY
+        } else {
+            @Suppress("DEPRECATION")
+            Bitmap.CompressFormat.WEBP
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,275 @@
+package com.example.myscanner.capture
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Matrix
+import android.util.Log
+import androidx.exifinterface.media.ExifInterface
+import com.example.myscanner.DocumentProcessor
+import com.example.myscanner.catalog.ScanCatalog
+import com.example.myscanner.core.GrayImage
+import com.example.myscanner.core.PerceptualHash
+import com.example.myscanner.core.Region
+import com.example.myscanner.core.SkewEstimator
+import com.example.myscanner.core.TextRegionDetector
+import com.example.myscanner.core.TileRotator
+import java.io.File
+import java.io.FileOutputStream
+import kotlin.math.abs
+
+// 한 페이지의 촬영 후 처리 (회색조 변환 -> 회전 보정 -> 글자 영역 정리 -> 지각 해시 -> 목표 용량 인코딩)
+// 원본 파일을 결과 파일로 교체하고 카탈로그에 등록한다
+// 호출한 스레드에서 바로 처리하며, 인코더와 분석 버퍼를 가지므로 한 인스턴스를 여러 스레드에서 동시에 쓰면 안 된다
+// 다 쓰면 release()로 인코더의 네이티브 메모리와 글자 검출 버퍼를 해제한다
+class PageProcessor(
+    private val catalog: ScanCatalog? = null,
+    private val encoder: PageEncoder = PageEncoder()
+) {
+    
+    data class Options(
+        val format: PageEncoder.Format = PageEncoder.Format.JPEG,
+        val grayscale: Boolean = false,
+        val maxSize: Int = 0, // 긴 변 최대 픽셀 (0이면 원본 크기), 일괄 처리 시 메모리 제한용
+        val deskew: Boolean = false, // 글자 페이지의 기울기 보정 (글자가 아니거나 컬러 페이지면 건너뜀)
+        val autoRotate: Boolean = false, // 뒤집혀 찍힌(180도) 글자 페이지를 바로 세움
+        val smartCrop: Boolean = false, // 글자 줄을 감싸는 영역 바깥의 여백, 배경을 잘라냄
+        val colorScan: Boolean = false // 종이 흰색 보정 (grayscale이면 무시)
+    )
+    
+    companion object {
+        private const val TAG = "PageProcessor"
+        private const val DESKEW_ANALYSIS_SIZE = 800 // 기울기 추정용 축소 크기 (0.1도 단위 추정에 충분)
+        private const val MIN_DESKEW_ANGLE = 0.2f // 이보다 작으면 회전하지 않음 (도)
+        private const val TEXT_ANALYSIS_SIZE = 1600 // 글자 영역 검출용 축소 크기 (약 2MP)
+        private const val MIN_CROP_LINES = 3 // 이보다 줄이 적으면 글자 페이지로 보지 않고 자르지 않음
+        private const val CROP_MARGIN_RATIO = 0.04f
+        private const val MIN_CROP_SAVING = 0.05f // 잘라낼 부분이 이보다 작으면 그대로 둠 (넓이 비율)
+        private const val SOURCE_EXTENSION = "jpg" // 카메라와 가져오기가 남기는 원본 형식
+        private const val TEMP_SUFFIX = ".page.tmp"
+        private const val STALE_FILE_MS = 60 * 60 * 1000L // 다른 처리기가 쓰는 중일 수 있으므로 이보다 오래된 파일만 정리
+        
+        // 이전 실행이 결과 이름으로 옮긴 뒤 원본을 지우기 전에 멈췄으면 원본을 지우고,
+        // 인코딩 도중 멈춰 남은 임시 파일은 삭제 (이 경우 원본은 그대로 남아 있음)
+        fun recoverInterrupted(dir: File) {
+            val staleBefore = System.currentTimeMillis() - STALE_FILE_MS
+            val files = dir.listFiles() ?: return
+            for (file in files) {
+                if (file.lastModified() > staleBefore) continue
+                if (file.name.endsWith(TEMP_SUFFIX)) {
+                    file.delete()
+                    continue
+                }
+                if (file.extension != SOURCE_EXTENSION) continue
+                
+                val output = File(dir, "${file.nameWithoutExtension}.${PageEncoder.Format.BINARY_PNG.extension}")
+                if (output.exists()) {
+                    file.delete()
+                    Log.d(TAG, "${file.name}: 이전 처리 마무리")
+                }
+            }
+        }
+    }
+    
+    private val thumbnailGray = GrayImage()
+    private val skewEstimator = SkewEstimator()
+    private val tileRotator = TileRotator()
+    private val textDetector = TextRegionDetector()
+    private val contentRegion = Region()
+    
+    fun process(photoFile: File, options: Options): File {
+        val decoded = decode(photoFile, options.maxSize)
+            ?: throw IllegalStateException("이미지를 읽을 수 없습니다: ${photoFile.name}")
+        
+        var bitmap = correctOrientation(photoFile, decoded)
+        // 회색조는 먼저 변환해 두면 기울기 보정 회전이 한 채널만 보간하면 됨
+        if (options.grayscale) {
+            val gray = DocumentProcessor.toGrayscale(bitmap)
+            bitmap.recycle()
+            bitmap = gray
+        }
+        if (options.deskew) {
+            bitmap = deskew(bitmap, rotate = options.grayscale)
+        }
+        if (options.autoRotate || options.smartCrop) {
+            bitmap = arrangeText(bitmap, options)
+        }
+        val hash = computeHash(bitmap)
+        if (!options.grayscale && options.colorScan) {
+            val whitened = DocumentProcessor.whitenPaper(bitmap)
+            if (whitened != bitmap) {
+                bitmap.recycle()
+            }
+            bitmap = whitened
+        }
+        
+        val output = File(photoFile.parentFile, "${photoFile.nameWithoutExtension}.${options.format.extension}")
+        val tempFile = File(photoFile.parentFile, "${output.name}$TEMP_SUFFIX")
+        try {
+            val quality = FileOutputStream(tempFile).use { out ->
+                encoder.encode(bitmap, options.format, out)
+            }
+            Log.d(TAG, "${output.name}: ${options.format} 품질 $quality, ${tempFile.length() / 1024}KB")
+        } finally {
+            bitmap.recycle()
+        }
+        
+        // 결과를 다 쓴 뒤 새 이름으로 옮기고 나서 원본 삭제 (이름 바꾸기에 실패하면 원본 유지)
+        if (!tempFile.renameTo(output)) {
+            tempFile.delete()
+            throw IllegalStateException("결과 파일을 저장할 수 없습니다: ${output.name}")
+        }
+        if (output != photoFile) {
+            photoFile.delete()
+        }
+        
+        catalog?.add(output.name, hash)?.duplicateOf?.let {
+            Log.d(TAG, "${output.name}: ${it}와 중복")
+        }
+        return output
+    }
+    
+    // maxSize가 있으면 2의 거듭제곱 배율로 축소 디코딩
+    // 이후 단계가 제자리에서 수정할 수 있도록 변경 가능한 비트맵으로 디코딩
+    private fun decode(file: File, maxSize: Int): Bitmap? {
+        var sampleSize = 1
+        if (maxSize > 0) {
+            val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+            BitmapFactory.decodeFile(file.absolutePath, bounds)
+            while (maxOf(bounds.outWidth, bounds.outHeight) / sampleSize > maxSize) {
+                sampleSize *= 2
+            }
+        }
+        
+        val options = BitmapFactory.Options().apply {
+            inSampleSize = sampleSize
+            inMutable = true
+        }
+        return BitmapFactory.decodeFile(file.absolutePath, options)
+    }
+    
+    // 이후에는 사용할 수 없음
+    fun release() {
+        encoder.release()
+        textDetector.release()
+    }
+    
+    // 축소본에서 기울기를 추정한 뒤 원본 해상도에서 타일 단위로 회전
+    // 추정 + 회전이 페이지당 150ms 안에 들도록 추정은 작은 축소본에서, 회색조는 한 채널만 회전
+    // 컬러 페이지는 세 채널 보간이 예산을 넘으므로(12MP 약 190ms) 추정만 하고 회전하지 않음
+    private fun deskew(bitmap: Bitmap, rotate: Boolean): Bitmap {
+        val small = DocumentProcessor.createThumbnail(bitmap, DESKEW_ANALYSIS_SIZE)
+        val angle = try {
+            skewEstimator.estimate(DocumentProcessor.toGrayImage(small, thumbnailGray))
+        } finally {
+            if (small != bitmap) {
+                small.recycle()
+            }
+        }
+        
+        if (angle.isNaN() || abs(angle) < MIN_DESKEW_ANGLE) return bitmap
+        if (!rotate) {
+            Log.d(TAG, "컬러 페이지 기울기 $angle°, 보정 생략")
+            return bitmap
+        }
+        Log.d(TAG, "기울기 보정: $angle°")
+        val rotated = DocumentProcessor.rotateTiled(bitmap, -angle, tileRotator, grayscale = true)
+        bitmap.recycle()
+        return rotated
+    }
+    
+    // 축소본에서 글자 줄을 찾아 뒤집힌 페이지는 180도 돌리고, 글자 영역 바깥을 잘라냄
+    // 기울기 보정 뒤에 실행해야 줄 상자가 가로로 반듯하게 잡힌다
+    private fun arrangeText(bitmap: Bitmap, options: Options): Bitmap {
+        val small = DocumentProcessor.createThumbnail(bitmap, TEXT_ANALYSIS_SIZE)
+        val scaleX = bitmap.width.toFloat() / small.width
+        val scaleY = bitmap.height.toFloat() / small.height
+        val smallWidth = small.width
+        val smallHeight = small.height
+        val lines = try {
+            textDetector.detect(DocumentProcessor.toGrayImage(small, thumbnailGray))
+        } finally {
+            if (small != bitmap) {
+                small.recycle()
+            }
+        }
+        if (lines == 0) return bitmap
+        
+        val upsideDown = options.autoRotate && textDetector.orientation == TextRegionDetector.ORIENTATION_UPSIDE_DOWN
+        val region = textDetector.contentBounds(contentRegion, CROP_MARGIN_RATIO)
+        // 180도 돌린 결과 기준 좌표로
+        if (upsideDown) {
+            region.set(smallWidth - region.right, smallHeight - region.bottom, smallWidth - region.left, smallHeight - region.top)
+        }
+        val crop = options.smartCrop && lines >= MIN_CROP_LINES &&
+            region.width * region.height < smallWidth * smallHeight * (1f - MIN_CROP_SAVING)
+        if (!upsideDown && !crop) return bitmap
+        
+        val matrix = Matrix()
+        if (upsideDown) {
+            matrix.postRotate(180f)
+            Log.d(TAG, "뒤집힌 페이지 회전 ($lines 줄)")
+        }
+        var x = 0
+        var y = 0
+        var width = bitmap.width
+        var height = bitmap.height
+        if (crop) {
+            x = (region.left * scaleX).toInt()
+            y = (region.top * scaleY).toInt()
+            width = minOf(bitmap.width - x, (region.width * scaleX).toInt())
+            height = minOf(bitmap.height - y, (region.height * scaleY).toInt())
+            Log.d(TAG, "글자 영역 자르기: ${width}x$height")
+        }
+        // 회전한 좌표계의 영역을 원본 좌표계로 되돌려 잘라낸 뒤 회전
+        if (upsideDown) {
+            x = bitmap.width - x - width
+            y = bitmap.height - y - height
+        }
+        val result = Bitmap.createBitmap(bitmap, x, y, width, height, matrix, true)
+        if (result != bitmap) {
+            bitmap.recycle()
+        }
+        return result
+    }
+    
+    // 축소한 썸네일에서 dHash 계산 (원본 해상도와 관계없이 비용이 거의 일정)
+    private fun computeHash(bitmap: Bitmap): Long {
+        val thumbnail = DocumentProcessor.createThumbnail(bitmap)
+        try {
+            return PerceptualHash.dHash(DocumentProcessor.toGrayImage(thumbnail, thumbnailGray))
+        } finally {
+            if (thumbnail != bitmap) {
+                thumbnail.recycle()
+            }
+        }
+    }
+    
+    // EXIF 방향대로 회전/반전 (다시 인코딩하므로 EXIF 방향 정보는 필요 없어짐)
+    private fun correctOrientation(photoFile: File, bitmap: Bitmap): Bitmap {
+        val orientation = try {
+            ExifInterface(photoFile.absolutePath).getAttributeInt(
+                ExifInterface.TAG_ORIENTATION,
+                ExifInterface.ORIENTATION_NORMAL
+            )
+        } catch (e: Exception) {
+            Log.e(TAG, "EXIF 읽기 실패", e)
+            ExifInterface.ORIENTATION_NORMAL
+        }
+        
+        val matrix = Matrix()
+        when (orientation) {
+            ExifInterface.ORIENTATION_ROTATE_90 -> matrix.postRotate(90f)
+            ExifInterface.ORIENTATION_ROTATE_180 -> matrix.postRotate(180f)
+            ExifInterface.ORIENTATION_ROTATE_270 -> matrix.postRotate(270f)
+            ExifInterface.ORIENTATION_FLIP_HORIZONTAL -> matrix.postScale(-1f, 1f, bitmap.width / 2f, bitmap.height / 2f)
+            ExifInterface.ORIENTATION_FLIP_VERTICAL -> matrix.postScale(1f, -1f, bitmap.width / 2f, bitmap.height / 2f)
+            else -> return bitmap
+        }
+        
+        val rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.width, bitmap.height, matrix, true)
+        if (rotated != bitmap) {
+            bitmap.recycle()
+        }
+        return rotated
+    }
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package com.example.myscanner.catalog
+
+import android.content.Context
+import android.util.Log
+import com.example.myscanner.core.BkTree
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+
+// 스캔 파일별 메타데이터 (지각 해시, 촬영 시각, 중복 원본) 저장소
+// filesDir/scan_catalog.tsv 에 한 줄씩 추가 기록하고, 해시는 BK-tree로 색인해 근접 중복을 찾는다
+// 중복 여부는 추가할 때 한 번만 계산해 두므로 갤러리는 조회만 한다
+// 파일 읽기/쓰기는 잠금 안에서 하므로 UI 스레드는 preload()로 미리 읽어 두고, 삭제는 removeInBackground()를 쓴다
+// 읽어 들인 뒤의 조회(get, isDuplicate)는 잠금 없이 하므로 가져오기/압축 작업이 기록 중이어도 기다리지 않는다
+class ScanCatalog private constructor(private val file: File) {
+    
+    class Entry(
+        val name: String,
+        val hash: Long,
+        val createdAt: Long,
+        val duplicateOf: String?
+    )
+    
+    companion object {
+        private const val TAG = "ScanCatalog"
+        private const val FILE_NAME = "scan_catalog.tsv"
+        private const val DUPLICATE_DISTANCE = 6 // 64비트 중 다른 비트 수가 이 이하면 같은 페이지로 판단
+        
+        @Volatile
+        private var instance: ScanCatalog? = null
+        
+        fun get(context: Context): ScanCatalog {
+            return instance ?: synchronized(this) {
+                instance ?: ScanCatalog(File(context.applicationContext.filesDir, FILE_NAME)).also { instance = it }
+            }
+        }
+    }
+    
+    // 변경은 잠금 안에서만, 조회는 잠금 없이
+    private val entries = ConcurrentHashMap<String, Entry>()
+    
+    // BK-tree 노드 번호 -> 항목 (삭제된 항목은 null, 많아지면 트리를 다시 만든다)
+    private val tree = BkTree()
+    private val nodes = ArrayList<Entry?>()
+    private val nodeIndex = HashMap<String, Int>() // 파일명 -> 노드 번호
+    private var removedNodes = 0
+    
+    @Volatile
+    private var loaded = false
+    
+    // UI에서 요청한 읽기/삭제를 처리하는 스레드 (앱이 살아 있는 동안 유지)
+    private val background = Executors.newSingleThreadExecutor()
+    
+    // 백그라운드에서 파일을 읽어 두고 끝나면 onLoaded 호출 (백그라운드 스레드에서)
+    fun preload(onLoaded: () -> Unit) {
+        background.execute {
+            ensureLoaded()
+            onLoaded()
+        }
+    }
+    
+    @Synchronized
+    fun add(name: String, hash: Long, createdAt: Long = System.currentTimeMillis()): Entry {
+        ensureLoaded()
+        entries[name]?.let { removeEntry(it) }
+        
+        val original = findSimilar(hash, DUPLICATE_DISTANCE).firstOrNull()
+        val entry = Entry(name, hash, createdAt, original?.name)
+        insert(entry)
+        
+        try {
+            file.appendText(format(entry) + "\n")
+        } catch (e: IOException) {
+            Log.e(TAG, "카탈로그 저장 실패", e)
+        }
+        return entry
+    }
+    
+    @Synchronized
+    fun remove(name: String) {
+        ensureLoaded()
+        val entry = entries[name] ?: return
+        removeEntry(entry)
+        rewrite()
+    }
+    
+    // 파일 전체를 다시 쓰므로 UI 스레드에서는 이쪽으로
+    fun removeInBackground(name: String) {
+        background.execute { remove(name) }
+    }
+    
+    // 형식 변환 등으로 파일 이름만 바뀐 경우 (해시와 촬영 시각, 중복 관계는 유지)
+    @Synchronized
+    fun rename(oldName: String, newName: String) {
+        ensureLoaded()
+        val entry = entries[oldName] ?: return
+        entries[newName]?.let { removeEntry(it) }
+        replace(entry, Entry(newName, entry.hash, entry.createdAt, entry.duplicateOf))
+        
+        // 이 파일을 중복 원본으로 가리키던 항목도 새 이름으로
+        for (other in entries.values.filter { it.duplicateOf == oldName }) {
+            replace(other, Entry(other.name, other.hash, other.createdAt, newName))
+        }
+        rewrite()
+    }
+    
+    fun get(name: String): Entry? {
+        ensureLoaded()
+        return entries[name]
+    }
+    
+    // 중복 원본이 아직 카탈로그에 남아 있을 때만 중복으로 표시
+    // 아직 읽어 들이지 않았으면 UI 스레드에서 파일을 읽지 않도록 false (preload가 끝나면 다시 그린다)
+    fun isDuplicate(name: String): Boolean {
+        if (!loaded) return false
+        val original = entries[name]?.duplicateOf ?: return false
+        return entries.containsKey(original)
+    }
+    
+    // 해시 거리가 가까운 순서로 반환
+    @Synchronized
+    fun findSimilar(hash: Long, maxDistance: Int): List<Entry> {
+        ensureLoaded()
+        val result = mutableListOf<Pair<Entry, Int>>()
+        tree.search(hash, maxDistance) { id, distance ->
+            nodes[id]?.let { result.add(it to distance) }
+        }
+        return result.sortedBy { it.second }.map { it.first }
+    }
+    
+    private fun insert(entry: Entry) {
+        entries[entry.name] = entry
+        nodeIndex[entry.name] = nodes.size
+        tree.add(entry.hash)
+        nodes.add(entry)
+    }
+    
+    // 해시가 같으므로 BK-tree 노드는 그대로 두고 항목만 바꿔 끼움
+    private fun replace(old: Entry, new: Entry) {
+        entries.remove(old.name)
+        entries[new.name] = new
+        val index = nodeIndex.remove(old.name) ?: return
+        nodes[index] = new
+        nodeIndex[new.name] = index
+    }
+    
+    private fun removeEntry(entry: Entry) {
+        entries.remove(entry.name)
+        val index = nodeIndex.remove(entry.name)
+        if (index != null) {
+            nodes[index] = null
+            removedNodes++
+        }
+        
+        // 삭제된 노드가 절반을 넘으면 살아 있는 항목으로 트리 재구성
+        if (removedNodes > nodes.size / 2) {
+            tree.clear()
+            nodes.clear()
+            nodeIndex.clear()
+            removedNodes = 0
+            for (e in entries.values) {
+                nodeIndex[e.name] = nodes.size
+                tree.add(e.hash)
+                nodes.add(e)
+            }
+        }
+    }
+    
+    // 처음 한 번만 잠금을 잡고 읽음 (읽는 동안 다른 스레드의 조회는 기다림)
+    private fun ensureLoaded() {
+        if (loaded) return
+        synchronized(this) {
+            if (loaded) return
+            load()
+            loaded = true
+        }
+    }
+    
+    private fun load() {
+        if (!file.exists()) return
+        
+        try {
+            file.forEachLine { line ->
+                parse(line)?.let {
+                    entries.remove(it.name)?.let { old -> removeEntry(old) }
+                    insert(it)
+                }
+            }
+        } catch (e: IOException) {
+            Log.e(TAG, "카탈로그 읽기 실패", e)
+        }
+    }
+    
+    // 삭제 반영을 위해 전체를 임시 파일에 쓴 뒤 교체
+    private fun rewrite() {
+        val tempFile = File(file.parentFile, "$FILE_NAME.tmp")
+        try {
+            tempFile.bufferedWriter().use { writer ->
+                for (entry in entries.values) {
+                    writer.write(format(entry))
+                    writer.newLine()
+                }
+            }
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete()
+            }
+        } catch (e: IOException) {
+            Log.e(TAG, "카탈로그 저장 실패", e)
+            tempFile.delete()
+        }
+    }
+    
+    // 파일명 \t 해시(16진수) \t 촬영 시각 \t 중복 원본 파일명
+    private fun format(entry: Entry): String {
+        return "${entry.name}\t${java.lang.Long.toHexString(entry.hash)}\t${entry.createdAt}\t${entry.duplicateOf ?: ""}"
+    }
+    
+    private fun parse(line: String): Entry? {
+        val fields = line.split('\t')
+        if (fields.size < 4) return null
+        val hash = try {
+            java.lang.Long.parseUnsignedLong(fields[1], 16)
+        } catch (e: NumberFormatException) {
+            return null
+        }
+        val createdAt = fields[2].toLongOrNull() ?: return null
+        return Entry(fields[0], hash, createdAt, fields[3].ifEmpty { null })
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.example.myscanner.core
+
+// 문서 꼭짓점이 일정 프레임 동안 허용 오차 안에 머물고 충분히 선명하면 촬영 신호를 보낸다
+class AutoCaptureTrigger(
+    private val tolerancePx: Float = 6f,
+    private val requiredFrames: Int = 10,
+    private val minSharpness: Double = 50.0
+) {
+    
+    private val anchor = Quad()
+    private var stableFrames = 0
+    
+    // 한 번 촬영한 뒤에는 문서가 움직이거나 사라져야 다시 촬영
+    private var armed = true
+    
+    // 프레임마다 호출, 촬영해야 하면 true 반환
+    // 선명도는 안정 조건을 만족했을 때만 계산한다
+    fun onFrame(quad: Quad?, sharpness: () -> Double): Boolean {
+        if (quad == null) {
+            reset()
+            return false
+        }
+        
+        if (stableFrames == 0 || anchor.maxDistance(quad) > tolerancePx) {
+            if (stableFrames > 0) armed = true
+            anchor.copyFrom(quad)
+            stableFrames = 1
+            return false
+        }
+        
+        stableFrames++
+        if (!armed || stableFrames < requiredFrames) return false
+        if (sharpness() < minSharpness) return false
+        
+        armed = false
+        return true
+    }
+    
+    fun reset() {
+        stableFrames = 0
+        armed = true
+    }
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.example.myscanner.core
+
+import java.io.DataOutputStream
+import java.io.OutputStream
+import java.util.zip.CRC32
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+
+// 이진화한 페이지를 1비트 흑백 PNG로 저장
+// 한 줄씩 밝기를 받아 임계값으로 나눈 뒤 바로 압축하므로 전체 이미지를 메모리에 올리지 않는다
+// 글자 위주 페이지는 8비트 회색조 대비 수 배 작아진다
+class BinaryPngEncoder {
+    
+    // y번째 줄의 밝기(0~255)를 dst[0 until width]에 채운다
+    fun interface RowSource {
+        fun readRow(y: Int, dst: ByteArray)
+    }
+    
+    companion object {
+        private val SIGNATURE = byteArrayOf(-119, 80, 78, 71, 13, 10, 26, 10)
+        private const val CHUNK_SIZE = 64 * 1024 // IDAT 청크 최대 크기
+    }
+    
+    private val crc = CRC32()
+    private val deflater = Deflater(Deflater.BEST_COMPRESSION)
+    private var luminance = ByteArray(0)
+    private var packed = ByteArray(0)
+    
+    // threshold보다 밝은 픽셀은 흰색(1), 나머지는 검은색(0)
+    fun encode(width: Int, height: Int, threshold: Int, source: RowSource, output: OutputStream) {
+        require(width > 0 && height > 0) { "잘못된 이미지 크기: ${width}x$height" }
+        
+        if (luminance.size < width) luminance = ByteArray(width)
+        val rowBytes = 1 + (width + 7) / 8 // 필터 바이트 + 8픽셀당 1바이트
+        if (packed.size < rowBytes) packed = ByteArray(rowBytes)
+        
+        output.write(SIGNATURE)
+        
+        val header = DataOutputStream(ChunkWriter(output, "IHDR", 13))
+        header.writeInt(width)
+        header.writeInt(height)
+        header.writeByte(1) // bit depth
+        header.writeByte(0) // grayscale
+        header.writeByte(0) // deflate
+        header.writeByte(0) // 필터 방식
+        header.writeByte(0) // 인터레이스 없음
+        header.flush()
+        
+        deflater.reset()
+        val idat = ChunkWriter(output, "IDAT", CHUNK_SIZE)
+        val compressed = DeflaterOutputStream(idat, deflater, CHUNK_SIZE)
+        for (y in 0 until height) {
+            source.readRow(y, luminance)
+            packRow(luminance, width, threshold, rowBytes)
+            compressed.write(packed, 0, rowBytes)
+        }
+        compressed.finish()
+        idat.flush()
+        
+        ChunkWriter(output, "IEND", 0).flush()
+        output.flush()
+    }
+    
+    // Deflater의 네이티브 zlib 메모리 해제 (GC를 기다리지 않음), 이후에는 사용할 수 없음
+    fun release() {
+        deflater.end()
+    }
+    
+    private fun packRow(row: ByteArray, width: Int, threshold: Int, rowBytes: Int) {
+        packed.fill(0, 0, rowBytes) // 필터 0 (None)
+        for (x in 0 until width) {
+            if ((row[x].toInt() and 0xFF) > threshold) {
+                val i = 1 + (x shr 3)
+                packed[i] = (packed[i].toInt() or (0x80 ushr (x and 7))).toByte()
+            }
+        }
+    }
+    
+    // 데이터를 모아 길이, 타입, 데이터, CRC 형식의 청크로 기록
+    // capacity를 넘으면 청크를 나눠서 쓴다 (IDAT만 해당)
+    private inner class ChunkWriter(
+        private val out: OutputStream,
+        type: String,
+        capacity: Int
+    ) : OutputStream() {
+        
+        private val type = type.toByteArray(Charsets.US_ASCII)
+        private val buffer = ByteArray(capacity)
+        private var count = 0
+        private var written = false
+        
+        override fun write(b: Int) {
+            if (count == buffer.size) writeChunk()
+            buffer[count++] = b.toByte()
+        }
+        
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            var offset = off
+            var remaining = len
+            while (remaining > 0) {
+                if (count == buffer.size) writeChunk()
+                val n = minOf(remaining, buffer.size - count)
+                System.arraycopy(b, offset, buffer, count, n)
+                count += n
+                offset += n
+                remaining -= n
+            }
+        }
+        
+        // 남은 데이터 기록 (빈 청크는 IEND처럼 한 번도 쓰지 않았을 때만 기록)
+        override fun flush() {
+            if (count > 0 || !written) writeChunk()
+        }
+        
+        private fun writeChunk() {
+            writeInt(count)
+            out.write(type)
+            out.write(buffer, 0, count)
+            crc.reset()
+            crc.update(type)
+            crc.update(buffer, 0, count)
+            writeInt(crc.value.toInt())
+            count = 0
+            written = true
+        }
+        
+        private fun writeInt(value: Int) {
+            out.write(value ushr 24)
+            out.write(value ushr 16)
+            out.write(value ushr 8)
+            out.write(value)
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.example.myscanner.core
+
+// 해밍 거리 기반 BK-tree (64비트 해시용)
+// 삼각 부등식으로 거리 범위를 벗어난 가지를 건너뛰므로 작은 반경 검색은 전체를 훑지 않는다
+// 노드는 추가된 순서대로 0부터 번호가 매겨지며 기본형 배열에만 저장한다
+class BkTree(initialCapacity: Int = 64) {
+    
+    // 검색 결과 (노드 번호, 거리)
+    fun interface Visitor {
+        fun visit(id: Int, distance: Int)
+    }
+    
+    private var hashes = LongArray(initialCapacity)
+    private var firstChild = IntArray(initialCapacity)
+    private var nextSibling = IntArray(initialCapacity)
+    private var edge = IntArray(initialCapacity) // 부모와의 거리
+    private var stack = IntArray(64)
+    
+    var size = 0
+        private set
+    
+    fun add(hash: Long): Int {
+        val id = size
+        ensureCapacity(id + 1)
+        hashes[id] = hash
+        firstChild[id] = -1
+        nextSibling[id] = -1
+        size++
+        if (id == 0) return id
+        
+        var node = 0
+        while (true) {
+            val distance = PerceptualHash.distance(hash, hashes[node])
+            var child = firstChild[node]
+            while (child != -1 && edge[child] != distance) {
+                child = nextSibling[child]
+            }
+            if (child == -1) {
+                edge[id] = distance
+                nextSibling[id] = firstChild[node]
+                firstChild[node] = id
+                return id
+            }
+            node = child
+        }
+    }
+    
+    fun hash(id: Int): Long = hashes[id]
+    
+    // hash와의 거리가 maxDistance 이하인 모든 노드 방문
+    fun search(hash: Long, maxDistance: Int, visitor: Visitor) {
+        if (size == 0) return
+        var top = 0
+        stack[top++] = 0
+        while (top > 0) {
+            val node = stack[--top]
+            val distance = PerceptualHash.distance(hash, hashes[node])
+            if (distance <= maxDistance) {
+                visitor.visit(node, distance)
+            }
+            
+            var child = firstChild[node]
+            while (child != -1) {
+                if (edge[child] >= distance - maxDistance && edge[child] <= distance + maxDistance) {
+                    if (top == stack.size) stack = stack.copyOf(stack.size * 2)
+                    stack[top++] = child
+                }
+                child = nextSibling[child]
+            }
+        }
+    }
+    
+    fun clear() {
+        size = 0
+    }
+    
+    private fun ensureCapacity(capacity: Int) {
+        if (capacity <= hashes.size) return
+        val newCapacity = maxOf(capacity, hashes.size * 2)
+        hashes = hashes.copyOf(newCapacity)
+        firstChild = firstChild.copyOf(newCapacity)
+        nextSibling = nextSibling.copyOf(newCapacity)
+        edge = edge.copyOf(newCapacity)
+    }
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.example.myscanner.core
+
+// 이진 이미지의 연결 요소 라벨링 (union-find, 두 번 훑기)
+// 1차: 위/왼쪽 이웃의 라벨을 이어 받으며 임시 라벨을 붙이고, 서로 다른 라벨이 만나면 합친다
+// 2차: 임시 라벨을 대표 라벨로 바꾸면서 요소별 경계 상자, 넓이, 무게중심을 모은다
+// 글자 블록, 도장, 서명 위치나 페이지 윤곽을 찾는 데 쓴다
+// 모든 버퍼는 기본형 배열이며 호출 간에 재사용한다 (한 스레드에서만 사용)
+class ComponentLabeler(
+    private val eightConnected: Boolean = true
+) {
+    
+    // 픽셀별 최종 라벨 (0은 배경, 요소는 1부터)
+    var labels = IntArray(0)
+        private set
+    var width = 0
+        private set
+    var height = 0
+        private set
+    
+    // 찾은 요소 수
+    var count = 0
+        private set
+    
+    private var parent = IntArray(1024)
+    private var compact = IntArray(1024) // 대표 임시 라벨 -> 최종 라벨
+    
+    // 요소별 통계 (인덱스 = 라벨)
+    private var minX = IntArray(1024)
+    private var minY = IntArray(1024)
+    private var maxX = IntArray(1024)
+    private var maxY = IntArray(1024)
+    private var areas = IntArray(1024)
+    private var sumX = LongArray(1024)
+    private var sumY = LongArray(1024)
+    
+    // 0이 아닌 픽셀을 전경으로 보고 라벨링, 요소 수 반환
+    fun label(binary: ByteArray, width: Int, height: Int): Int {
+        val size = width * height
+        require(binary.size >= size) { "버퍼가 작습니다: ${binary.size} < $size" }
+        if (labels.size < size) labels = IntArray(size)
+        this.width = width
+        this.height = height
+        
+        val provisional = firstPass(binary, width, height)
+        count = resolve(provisional)
+        secondPass(width, height)
+        return count
+    }
+    
+    fun labelAt(x: Int, y: Int): Int = labels[y * width + x]
+    
+    // 요소 정보 (label: 1..count)
+    fun left(label: Int) = minX[label]
+    fun top(label: Int) = minY[label]
+    fun right(label: Int) = maxX[label] // 포함
+    fun bottom(label: Int) = maxY[label] // 포함
+    fun area(label: Int) = areas[label]
+    fun centroidX(label: Int) = sumX[label].toFloat() / areas[label]
+    fun centroidY(label: Int) = sumY[label].toFloat() / areas[label]
+    fun boxWidth(label: Int) = maxX[label] - minX[label] + 1
+    fun boxHeight(label: Int) = maxY[label] - minY[label] + 1
+    
+    private fun firstPass(binary: ByteArray, width: Int, height: Int): Int {
+        var next = 1
+        parent[0] = 0
+        
+        for (y in 0 until height) {
+            val row = y * width
+            for (x in 0 until width) {
+                val i = row + x
+                if (binary[i].toInt() == 0) {
+                    labels[i] = 0
+                    continue
+                }
+                
+                // 이미 라벨이 붙은 이웃: 왼쪽, 위 (8방향이면 왼쪽 위, 오른쪽 위 포함)
+                var current = 0
+                if (x > 0) current = merge(current, labels[i - 1])
+                if (y > 0) {
+                    current = merge(current, labels[i - width])
+                    if (eightConnected) {
+                        if (x > 0) current = merge(current, labels[i - width - 1])
+                        if (x < width - 1) current = merge(current, labels[i - width + 1])
+                    }
+                }
+                
+                if (current == 0) {
+                    if (next == parent.size) parent = parent.copyOf(parent.size * 2)
+                    parent[next] = next
+                    current = next++
+                }
+                labels[i] = current
+            }
+        }
+        return next
+    }
+    
+    // 두 라벨을 같은 집합으로 합치고 대표(작은 쪽) 반환 (0은 없음)
+    private fun merge(a: Int, b: Int): Int {
+        if (b == 0) return a
+        if (a == 0) return find(b)
+        val rootA = find(a)
+        val rootB = find(b)
+        if (rootA == rootB) return rootA
+        return if (rootA < rootB) {
+            parent[rootB] = rootA
+            rootA
+        } else {
+            parent[rootA] = rootB
+            rootB
+        }
+    }
+    
+    // 경로 절반 압축
+    private fun find(label: Int): Int {
+        var x = label
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]]
+            x = parent[x]
+        }
+        return x
+    }
+    
+    // 대표 라벨에 1부터 연속 번호를 매기고 통계 배열 준비
+    private fun resolve(provisional: Int): Int {
+        if (compact.size < provisional) compact = IntArray(parent.size)
+        var components = 0
+        for (label in 1 until provisional) {
+            val root = find(label)
+            compact[label] = if (root == label) ++components else compact[root]
+        }
+        
+        ensureStatsCapacity(components + 1)
+        for (c in 1..components) {
+            minX[c] = Int.MAX_VALUE
+            minY[c] = Int.MAX_VALUE
+            maxX[c] = -1
+            maxY[c] = -1
+            areas[c] = 0
+            sumX[c] = 0
+            sumY[c] = 0
+        }
+        return components
+    }
+    
+    private fun secondPass(width: Int, height: Int) {
+        for (y in 0 until height) {
+            val row = y * width
+            for (x in 0 until width) {
+                val i = row + x
+                val provisional = labels[i]
+                if (provisional == 0) continue
+                
+                val c = compact[provisional]
+                labels[i] = c
+                if (x < minX[c]) minX[c] = x
+                if (x > maxX[c]) maxX[c] = x
+                if (y < minY[c]) minY[c] = y
+                maxY[c] = y // 위에서 아래로 훑으므로 항상 최대
+                areas[c]++
+                sumX[c] += x.toLong()
+                sumY[c] += y.toLong()
+            }
+        }
+    }
+    
+    private fun ensureStatsCapacity(capacity: Int) {
+        if (capacity <= areas.size) return
+        val newCapacity = maxOf(capacity, areas.size * 2)
+        minX = IntArray(newCapacity)
+        minY = IntArray(newCapacity)
+        maxX = IntArray(newCapacity)
+        maxY = IntArray(newCapacity)
+        areas = IntArray(newCapacity)
+        sumX = LongArray(newCapacity)
+        sumY = LongArray(newCapacity)
+    }
+}
\ No newline at end of file
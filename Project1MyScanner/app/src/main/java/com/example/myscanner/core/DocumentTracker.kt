@@ -0,0 +1,201 @@
+package com.example.myscanner.core
+
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.roundToInt
+
+// 프레임 간 문서 꼭짓점 추적
+// 처음에는 전체 이미지에서 검출(detect)하고, 이후에는 이전 꼭짓점 주변만 탐색(track)한다
+// 두 경우 모두 피라미드의 가장 거친 단계에서 찾은 뒤 고운 단계로 내려가며 꼭짓점을 정밀화한다
+class DocumentTracker {
+    
+    companion object {
+        private const val SEARCH_RADIUS = 8 // 추적 시 꼭짓점 탐색 반경 (가장 거친 단계 px)
+        private const val REFINE_RADIUS = 3 // 고운 단계 정밀화 반경 (px)
+        private const val THRESHOLD_REFRESH_INTERVAL = 15 // 임계값 재계산 주기 (프레임)
+        private const val MIN_AREA_RATIO = 0.15f
+        private const val MAX_AREA_RATIO = 0.97f
+        private const val ROI_MARGIN_RATIO = 0.1f // 관심 영역 여백 (문서 크기 대비)
+        private const val ROI_MARGIN_PX = 16f // 관심 영역 최소 여백 (프레임 px)
+        
+        // 꼭짓점별 탐색 방향 (좌상, 우상, 우하, 좌하)
+        private val DIR_X = intArrayOf(-1, 1, 1, -1)
+        private val DIR_Y = intArrayOf(-1, -1, 1, 1)
+    }
+    
+    // 검출된 사각형 (분석 프레임 좌표)
+    val quad = Quad()
+    
+    var isTracking = false
+        private set
+    
+    private val candidate = Quad()
+    private val histogram = IntArray(256)
+    private val bestScore = IntArray(4)
+    private val bestX = IntArray(4)
+    private val bestY = IntArray(4)
+    private var threshold = 128
+    private var framesSinceThreshold = 0
+    
+    // 전체 이미지 검출: 가장 거친 단계에서 종이 영역의 네 방향 극점을 찾는다
+    fun detect(pyramid: ImagePyramid): Boolean {
+        val coarse = pyramid.coarsest()
+        threshold = otsuThreshold(coarse)
+        framesSinceThreshold = 0
+        isTracking = findExtremes(coarse) && refine(pyramid) && accept(coarse)
+        return isTracking
+    }
+    
+    // 이전 임계값과 꼭짓점을 재사용해 추적, 실패하면 추적 해제
+    fun track(pyramid: ImagePyramid): Boolean {
+        if (!isTracking) return false
+        
+        if (++framesSinceThreshold < THRESHOLD_REFRESH_INTERVAL && trackCorners(pyramid)) {
+            return true
+        }
+        
+        // 조명이 바뀌었을 수 있으므로 임계값을 다시 계산해 한 번 더 시도
+        threshold = otsuThreshold(pyramid.coarsest())
+        framesSinceThreshold = 0
+        isTracking = trackCorners(pyramid)
+        return isTracking
+    }
+    
+    // 이전 사각형 주변의 관심 영역 (여백 포함, 프레임 안으로 제한)
+    fun regionOfInterest(frameWidth: Int, frameHeight: Int, out: Region): Region {
+        val size = max(quad.right() - quad.left(), quad.bottom() - quad.top())
+        val margin = size * ROI_MARGIN_RATIO + ROI_MARGIN_PX
+        out.set(
+            max(0, (quad.left() - margin).toInt()),
+            max(0, (quad.top() - margin).toInt()),
+            min(frameWidth, (quad.right() + margin).toInt() + 1),
+            min(frameHeight, (quad.bottom() + margin).toInt() + 1)
+        )
+        return out
+    }
+    
+    fun reset() {
+        isTracking = false
+        framesSinceThreshold = 0
+    }
+    
+    private fun findExtremes(gray: GrayImage): Boolean {
+        val width = gray.width
+        val height = gray.height
+        bestScore.fill(Int.MIN_VALUE)
+        
+        for (y in 0 until height - 1) {
+            for (x in 0 until width - 1) {
+                if (!isPaper(gray, x, y)) continue
+                for (c in 0 until 4) {
+                    val score = DIR_X[c] * x + DIR_Y[c] * y
+                    if (score > bestScore[c]) {
+                        bestScore[c] = score
+                        bestX[c] = x
+                        bestY[c] = y
+                    }
+                }
+            }
+        }
+        
+        if (bestScore[0] == Int.MIN_VALUE) return false
+        for (c in 0 until 4) {
+            candidate.set(c, gray.toFrameX(bestX[c].toFloat()), gray.toFrameY(bestY[c].toFloat()))
+        }
+        return true
+    }
+    
+    // 가장 거친 단계에서 이전 꼭짓점 주변 창만 탐색한 뒤 정밀화
+    private fun trackCorners(pyramid: ImagePyramid): Boolean {
+        val coarse = pyramid.coarsest()
+        for (c in 0 until 4) {
+            if (!searchCorner(coarse, c, quad.x(c), quad.y(c), SEARCH_RADIUS, strict = true)) return false
+        }
+        return refine(pyramid) && accept(coarse)
+    }
+    
+    // 거친 단계에서 찾은 꼭짓점을 고운 단계마다 작은 창에서 다시 찾는다
+    private fun refine(pyramid: ImagePyramid): Boolean {
+        for (level in pyramid.levelCount - 2 downTo 0) {
+            val gray = pyramid.level(level)
+            for (c in 0 until 4) {
+                if (!searchCorner(gray, c, candidate.x(c), candidate.y(c), REFINE_RADIUS, strict = false)) return false
+            }
+        }
+        return true
+    }
+    
+    // (centerX, centerY) 주변 창에서 꼭짓점 방향의 극점을 찾아 candidate에 기록
+    // strict이면 극점이 창 경계에 걸릴 때 꼭짓점이 창 밖으로 움직인 것으로 보고 실패 처리
+    private fun searchCorner(gray: GrayImage, c: Int, centerX: Float, centerY: Float, radius: Int, strict: Boolean): Boolean {
+        val width = gray.width
+        val height = gray.height
+        val cx = gray.toLocalX(centerX).roundToInt()
+        val cy = gray.toLocalY(centerY).roundToInt()
+        val x0 = max(0, cx - radius)
+        val y0 = max(0, cy - radius)
+        val x1 = min(width - 2, cx + radius)
+        val y1 = min(height - 2, cy + radius)
+        if (x0 > x1 || y0 > y1) return false
+        
+        var best = Int.MIN_VALUE
+        var bestX = 0
+        var bestY = 0
+        for (y in y0..y1) {
+            for (x in x0..x1) {
+                if (!isPaper(gray, x, y)) continue
+                val score = DIR_X[c] * x + DIR_Y[c] * y
+                if (score > best) {
+                    best = score
+                    bestX = x
+                    bestY = y
+                }
+            }
+        }
+        if (best == Int.MIN_VALUE) return false
+        
+        // 창 경계가 프레임 경계라면 더 찾을 곳이 없으므로 허용
+        if (strict) {
+            val edgeX = if (DIR_X[c] < 0) x0 else x1
+            val edgeY = if (DIR_Y[c] < 0) y0 else y1
+            val clampedX = if (DIR_X[c] < 0) x0 == 0 && gray.touchesFrameLeft() else x1 == width - 2 && gray.touchesFrameRight()
+            val clampedY = if (DIR_Y[c] < 0) y0 == 0 && gray.touchesFrameTop() else y1 == height - 2 && gray.touchesFrameBottom()
+            if ((bestX == edgeX && !clampedX) || (bestY == edgeY && !clampedY)) return false
+        }
+        
+        candidate.set(c, gray.toFrameX(bestX.toFloat()), gray.toFrameY(bestY.toFloat()))
+        return true
+    }
+    
+    // 크기와 볼록성 검사 후 결과 반영
+    private fun accept(gray: GrayImage): Boolean {
+        val frameArea = gray.frameWidth.toFloat() * gray.frameHeight
+        val ratio = candidate.area() / frameArea
+        if (ratio < MIN_AREA_RATIO || ratio > MAX_AREA_RATIO || !candidate.isConvex()) {
+            return false
+        }
+        quad.copyFrom(candidate)
+        return true
+    }
+    
+    // 2x2 블록이 모두 임계값보다 밝을 때만 종이로 판단 (잡음 제거)
+    private fun isPaper(gray: GrayImage, x: Int, y: Int): Boolean {
+        val data = gray.data
+        val i = y * gray.width + x
+        return (data[i].toInt() and 0xFF) > threshold &&
+            (data[i + 1].toInt() and 0xFF) > threshold &&
+            (data[i + gray.width].toInt() and 0xFF) > threshold &&
+            (data[i + gray.width + 1].toInt() and 0xFF) > threshold
+    }
+    
+    // 종이/배경 임계값 계산
+    private fun otsuThreshold(gray: GrayImage): Int {
+        histogram.fill(0)
+        val data = gray.data
+        val size = gray.width * gray.height
+        for (i in 0 until size) {
+            histogram[data[i].toInt() and 0xFF]++
+        }
+        return Otsu.threshold(histogram)
+    }
+}
\ No newline at end of file
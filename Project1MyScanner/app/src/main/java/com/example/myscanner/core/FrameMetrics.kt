@@ -0,0 +1,36 @@
+package com.example.myscanner.core
+
+import kotlin.math.max
+import kotlin.math.min
+
+object FrameMetrics {
+    
+    // 라플라시안 분산으로 선명도 측정 (값이 클수록 선명)
+    fun laplacianVariance(gray: GrayImage, quad: Quad): Double {
+        val x0 = max(1, gray.toLocalX(quad.left()).toInt())
+        val y0 = max(1, gray.toLocalY(quad.top()).toInt())
+        val x1 = min(gray.width - 2, gray.toLocalX(quad.right()).toInt())
+        val y1 = min(gray.height - 2, gray.toLocalY(quad.bottom()).toInt())
+        if (x0 >= x1 || y0 >= y1) return 0.0
+        
+        val data = gray.data
+        val width = gray.width
+        var sum = 0L
+        var sumSquares = 0L
+        var count = 0
+        for (y in y0..y1) {
+            var i = y * width + x0
+            for (x in x0..x1) {
+                val lap = (data[i - 1].toInt() and 0xFF) + (data[i + 1].toInt() and 0xFF) +
+                    (data[i - width].toInt() and 0xFF) + (data[i + width].toInt() and 0xFF) -
+                    4 * (data[i].toInt() and 0xFF)
+                sum += lap
+                sumSquares += lap * lap
+                count++
+                i++
+            }
+        }
+        val mean = sum.toDouble() / count
+        return sumSquares.toDouble() / count - mean * mean
+    }
+}
\ No newline at end of file
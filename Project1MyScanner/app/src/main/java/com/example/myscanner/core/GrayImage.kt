@@ -0,0 +1,52 @@
+package com.example.myscanner.core
+
+// 8비트 그레이스케일 버퍼 (프레임 간 재사용)
+// originX/originY/step 으로 분석 프레임 좌표와 매핑된다
+class GrayImage(width: Int = 0, height: Int = 0) {
+    
+    var width = width
+        private set
+    var height = height
+        private set
+    var data = ByteArray(width * height)
+        private set
+    
+    // 이 버퍼의 (0, 0) 픽셀이 분석 프레임에서 위치하는 좌표와 픽셀 간격
+    var originX = 0f
+    var originY = 0f
+    var step = 1f
+    
+    // 원본 분석 프레임 크기 (관심 영역만 담고 있을 때 경계 판단용)
+    var frameWidth = width
+    var frameHeight = height
+    
+    // 크기 변경 (용량이 충분하면 기존 배열 재사용)
+    fun reset(newWidth: Int, newHeight: Int) {
+        val size = newWidth * newHeight
+        if (data.size < size) {
+            data = ByteArray(size)
+        }
+        width = newWidth
+        height = newHeight
+    }
+    
+    // 버퍼 해제 (다음 reset에서 다시 할당)
+    fun release() {
+        data = ByteArray(0)
+        width = 0
+        height = 0
+    }
+    
+    operator fun get(x: Int, y: Int): Int = data[y * width + x].toInt() and 0xFF
+    
+    fun toFrameX(x: Float) = originX + x * step
+    fun toFrameY(y: Float) = originY + y * step
+    fun toLocalX(frameX: Float) = (frameX - originX) / step
+    fun toLocalY(frameY: Float) = (frameY - originY) / step
+    
+    // 버퍼 경계가 프레임 경계와 일치하는지 여부
+    fun touchesFrameLeft() = originX < step
+    fun touchesFrameTop() = originY < step
+    fun touchesFrameRight() = toFrameX(width.toFloat()) >= frameWidth - step
+    fun touchesFrameBottom() = toFrameY(height.toFloat()) >= frameHeight - step
+}
\ No newline at end of file
@@ -0,0 +1,269 @@
+package com.example.myscanner.core
+
+import kotlin.math.PI
+import kotlin.math.abs
+import kotlin.math.cos
+import kotlin.math.roundToInt
+import kotlin.math.sin
+
+// 허프 변환으로 페이지 네 변을 직선으로 찾고, 직선 교점으로 꼭짓점을 구하는 검출기
+// 꼭짓점이 손가락 등에 가려져도 변이 보이면 찾을 수 있으므로 밝기 극점 검출(DocumentTracker)의 보조 경로로 쓴다
+// sin/cos 표는 생성 시 한 번만 만들고, 누적 배열과 엣지 좌표 배열은 프레임 간 재사용한다
+class HoughLineDetector(
+    private val thetaSteps: Int = 180, // 1도 간격
+    private val edgeThreshold: Int = 120 // Sobel 기울기 크기 임계값
+) {
+    
+    companion object {
+        private const val FIXED_SHIFT = 10 // sin/cos 고정소수점 비트
+        private const val MAX_LINES = 16
+        private const val NMS_THETA = 6 // 비최대 억제 반경 (각도 칸)
+        private const val NMS_RHO = 8 // 비최대 억제 반경 (거리 칸, px)
+        private const val MIN_VOTE_RATIO = 0.25f // 짧은 변 길이 대비 최소 득표
+        private const val MAX_PARALLEL_DIFF = 20 // 마주 보는 두 변의 최대 각도 차 (도)
+        private const val MIN_SEPARATION_RATIO = 0.3f // 마주 보는 두 변의 최소 간격 (이미지 크기 대비)
+        private const val MIN_AREA_RATIO = 0.15f
+        private const val MAX_AREA_RATIO = 0.97f
+    }
+    
+    private val cosTable = IntArray(thetaSteps)
+    private val sinTable = IntArray(thetaSteps)
+    
+    private var accumulator = IntArray(0)
+    private var rhoOffset = 0
+    private var rhoBins = 0
+    private var edgeX = IntArray(0)
+    private var edgeY = IntArray(0)
+    private var edgeCount = 0
+    private var sobelRow = IntArray(0)
+    
+    // 찾은 직선 (x cosθ + y sinθ = rho, 득표순)
+    private val lineTheta = IntArray(MAX_LINES)
+    private val lineRho = IntArray(MAX_LINES)
+    private val lineVotes = IntArray(MAX_LINES)
+    var lineCount = 0
+        private set
+    
+    private val candidate = Quad()
+    
+    init {
+        for (t in 0 until thetaSteps) {
+            val radians = t * PI / thetaSteps
+            cosTable[t] = (cos(radians) * (1 shl FIXED_SHIFT)).roundToInt()
+            sinTable[t] = (sin(radians) * (1 shl FIXED_SHIFT)).roundToInt()
+        }
+    }
+    
+    // 엣지 추출 -> 투표 -> 피크 추출 -> 네 변 선택 -> 교점 계산, 성공하면 out에 프레임 좌표로 기록
+    fun findQuad(gray: GrayImage, out: Quad): Boolean {
+        detectLines(gray)
+        if (!pickQuad(gray)) return false
+        out.copyFrom(candidate)
+        return true
+    }
+    
+    fun detectLines(gray: GrayImage): Int {
+        collectEdges(gray)
+        vote(gray.width, gray.height)
+        findPeaks(gray)
+        return lineCount
+    }
+    
+    // 누적 배열과 엣지 좌표 배열 해제 (다음 검출에서 다시 할당)
+    fun release() {
+        accumulator = IntArray(0)
+        edgeX = IntArray(0)
+        edgeY = IntArray(0)
+        sobelRow = IntArray(0)
+        edgeCount = 0
+        lineCount = 0
+    }
+    
+    fun theta(line: Int) = lineTheta[line]
+    fun rho(line: Int) = lineRho[line] - rhoOffset
+    fun votes(line: Int) = lineVotes[line]
+    
+    // 엣지 미리보기와 같은 Sobel 커널로 한 줄씩 기울기를 구해 임계값 이상인 점만 모음
+    private fun collectEdges(gray: GrayImage) {
+        val width = gray.width
+        val height = gray.height
+        val threshold = edgeThreshold * edgeThreshold
+        if (sobelRow.size < width) sobelRow = IntArray(width)
+        val row = sobelRow
+        edgeCount = 0
+        
+        for (y in 1 until height - 1) {
+            Sobel.squaredMagnitudeRow(gray.data, width, y, Sobel.IDENTITY, row)
+            for (x in 1 until width - 1) {
+                if (row[x] < threshold) continue
+                
+                if (edgeCount == edgeX.size) {
+                    val capacity = maxOf(1024, edgeX.size * 2)
+                    edgeX = edgeX.copyOf(capacity)
+                    edgeY = edgeY.copyOf(capacity)
+                }
+                edgeX[edgeCount] = x
+                edgeY[edgeCount] = y
+                edgeCount++
+            }
+        }
+    }
+    
+    private fun vote(width: Int, height: Int) {
+        // rho 범위: -width .. width + height (θ가 0~180도이므로)
+        rhoOffset = width
+        rhoBins = 2 * width + height + 1
+        val size = thetaSteps * rhoBins
+        if (accumulator.size < size) accumulator = IntArray(size)
+        accumulator.fill(0, 0, size)
+        
+        val round = 1 shl (FIXED_SHIFT - 1)
+        for (i in 0 until edgeCount) {
+            val x = edgeX[i]
+            val y = edgeY[i]
+            var base = rhoOffset
+            for (t in 0 until thetaSteps) {
+                val rho = (x * cosTable[t] + y * sinTable[t] + round) shr FIXED_SHIFT
+                accumulator[base + rho]++
+                base += rhoBins
+            }
+        }
+    }
+    
+    // 주변(NMS 창)에서 최댓값인 칸만 직선으로 채택, 득표순으로 MAX_LINES개 유지
+    private fun findPeaks(gray: GrayImage) {
+        lineCount = 0
+        val minVotes = (minOf(gray.width, gray.height) * MIN_VOTE_RATIO).toInt()
+        
+        for (t in 0 until thetaSteps) {
+            val row = t * rhoBins
+            for (r in 0 until rhoBins) {
+                val votes = accumulator[row + r]
+                if (votes < minVotes) continue
+                if (lineCount == MAX_LINES && votes <= lineVotes[MAX_LINES - 1]) continue
+                if (!isLocalMaximum(t, r, votes)) continue
+                insertLine(t, r, votes)
+            }
+        }
+    }
+    
+    // θ는 0과 180도가 이어져 있으므로 경계를 넘으면 rho 부호를 뒤집어 비교
+    private fun isLocalMaximum(theta: Int, rho: Int, votes: Int): Boolean {
+        for (dt in -NMS_THETA..NMS_THETA) {
+            var t = theta + dt
+            var r = rho
+            if (t < 0 || t >= thetaSteps) {
+                t = (t + thetaSteps) % thetaSteps
+                r = 2 * rhoOffset - rho
+            }
+            for (dr in -NMS_RHO..NMS_RHO) {
+                val rr = r + dr
+                if (rr < 0 || rr >= rhoBins || (dt == 0 && dr == 0)) continue
+                val other = accumulator[t * rhoBins + rr]
+                // 같은 값이면 먼저 나온 칸을 채택 (중복 방지)
+                if (other > votes || (other == votes && (t * rhoBins + rr) < theta * rhoBins + rho)) return false
+            }
+        }
+        return true
+    }
+    
+    private fun insertLine(theta: Int, rho: Int, votes: Int) {
+        var i = minOf(lineCount, MAX_LINES - 1)
+        while (i > 0 && lineVotes[i - 1] < votes) {
+            lineTheta[i] = lineTheta[i - 1]
+            lineRho[i] = lineRho[i - 1]
+            lineVotes[i] = lineVotes[i - 1]
+            i--
+        }
+        lineTheta[i] = theta
+        lineRho[i] = rho
+        lineVotes[i] = votes
+        if (lineCount < MAX_LINES) lineCount++
+    }
+    
+    // 수평에 가까운 직선(θ≈90도) 두 개와 수직에 가까운 직선(θ≈0/180도) 두 개를 골라 교점 계산
+    private fun pickQuad(gray: GrayImage): Boolean {
+        val half = thetaSteps / 2
+        val quarter = thetaSteps / 4
+        
+        // 수평 쌍: 위쪽(rho 작음)과 아래쪽
+        var top = -1
+        var bottom = -1
+        // 수직 쌍: 왼쪽과 오른쪽 (θ > 90도는 θ-180, -rho로 바꿔 비교)
+        var left = -1
+        var right = -1
+        var bestHorizontal = 0
+        var bestVertical = 0
+        
+        for (a in 0 until lineCount) {
+            for (b in a + 1 until lineCount) {
+                val horizontalA = abs(lineTheta[a] - half) < quarter
+                val horizontalB = abs(lineTheta[b] - half) < quarter
+                if (horizontalA != horizontalB) continue
+                
+                val thetaA = normalizedTheta(a, horizontalA)
+                val thetaB = normalizedTheta(b, horizontalB)
+                if (abs(thetaA - thetaB) > MAX_PARALLEL_DIFF * thetaSteps / 180) continue
+                
+                val rhoA = normalizedRho(a, horizontalA)
+                val rhoB = normalizedRho(b, horizontalB)
+                val extent = if (horizontalA) gray.height else gray.width
+                if (abs(rhoA - rhoB) < extent * MIN_SEPARATION_RATIO) continue
+                
+                val score = lineVotes[a] + lineVotes[b]
+                if (horizontalA && score > bestHorizontal) {
+                    bestHorizontal = score
+                    top = if (rhoA < rhoB) a else b
+                    bottom = if (rhoA < rhoB) b else a
+                } else if (!horizontalA && score > bestVertical) {
+                    bestVertical = score
+                    left = if (rhoA < rhoB) a else b
+                    right = if (rhoA < rhoB) b else a
+                }
+            }
+        }
+        if (top < 0 || left < 0) return false
+        
+        if (!intersect(top, left, 0, gray) ||
+            !intersect(top, right, 1, gray) ||
+            !intersect(bottom, right, 2, gray) ||
+            !intersect(bottom, left, 3, gray)
+        ) {
+            return false
+        }
+        
+        val ratio = candidate.area() / (gray.frameWidth.toFloat() * gray.frameHeight)
+        return ratio in MIN_AREA_RATIO..MAX_AREA_RATIO && candidate.isConvex()
+    }
+    
+    private fun normalizedTheta(line: Int, horizontal: Boolean): Int {
+        val theta = lineTheta[line]
+        return if (!horizontal && theta > thetaSteps / 2) theta - thetaSteps else theta
+    }
+    
+    private fun normalizedRho(line: Int, horizontal: Boolean): Int {
+        val rho = lineRho[line] - rhoOffset
+        return if (!horizontal && lineTheta[line] > thetaSteps / 2) -rho else rho
+    }
+    
+    // 두 직선의 교점을 candidate의 corner에 프레임 좌표로 기록 (이미지에서 너무 멀면 실패)
+    private fun intersect(a: Int, b: Int, corner: Int, gray: GrayImage): Boolean {
+        val cosA = cosTable[lineTheta[a]].toFloat()
+        val sinA = sinTable[lineTheta[a]].toFloat()
+        val cosB = cosTable[lineTheta[b]].toFloat()
+        val sinB = sinTable[lineTheta[b]].toFloat()
+        val rhoA = (lineRho[a] - rhoOffset).toFloat() * (1 shl FIXED_SHIFT)
+        val rhoB = (lineRho[b] - rhoOffset).toFloat() * (1 shl FIXED_SHIFT)
+        
+        val det = cosA * sinB - sinA * cosB
+        if (abs(det) < 1e-3f * (1 shl FIXED_SHIFT) * (1 shl FIXED_SHIFT)) return false
+        val x = (rhoA * sinB - rhoB * sinA) / det
+        val y = (cosA * rhoB - cosB * rhoA) / det
+        
+        val margin = minOf(gray.width, gray.height) * 0.1f
+        if (x < -margin || y < -margin || x > gray.width + margin || y > gray.height + margin) return false
+        
+        candidate.set(corner, gray.toFrameX(x), gray.toFrameY(y))
+        return true
+    }
+}
\ No newline at end of file
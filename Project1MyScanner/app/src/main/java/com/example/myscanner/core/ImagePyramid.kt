@@ -0,0 +1,73 @@
+package com.example.myscanner.core
+
+// 2배 박스 필터 축소로 만든 다해상도 이미지 (0단계가 가장 고해상도)
+// 1단계 이후 버퍼는 미리 할당해 두고 프레임마다 재사용한다
+class ImagePyramid(private val maxLevels: Int) {
+    
+    companion object {
+        private const val MIN_LEVEL_SIZE = 32 // 이보다 작은 단계는 만들지 않음
+    }
+    
+    private val levels = arrayOfNulls<GrayImage>(maxLevels)
+    private val owned = Array(maxLevels - 1) { GrayImage() }
+    
+    // 실제로 만들어진 단계 수
+    var levelCount = 0
+        private set
+    
+    fun level(index: Int): GrayImage = levels[index]!!
+    
+    fun coarsest(): GrayImage = level(levelCount - 1)
+    
+    fun finest(): GrayImage = level(0)
+    
+    // 소유한 단계 버퍼 해제 (다음 build에서 다시 할당)
+    fun release() {
+        owned.forEach { it.release() }
+        levels.fill(null)
+        levelCount = 0
+    }
+    
+    // source를 0단계로 두고 (복사 없음) 아래 단계를 채운다
+    fun build(source: GrayImage): ImagePyramid {
+        levels[0] = source
+        levelCount = 1
+        while (levelCount < maxLevels) {
+            val previous = levels[levelCount - 1]!!
+            if (minOf(previous.width, previous.height) / 2 < MIN_LEVEL_SIZE) break
+            
+            val next = owned[levelCount - 1]
+            downsample(previous, next)
+            levels[levelCount] = next
+            levelCount++
+        }
+        return this
+    }
+    
+    // 2x2 평균으로 절반 크기 이미지 생성
+    private fun downsample(src: GrayImage, dst: GrayImage) {
+        val width = src.width / 2
+        val height = src.height / 2
+        dst.reset(width, height)
+        // 2x2 블록의 중심으로 원점 보정
+        dst.originX = src.originX + src.step * 0.5f
+        dst.originY = src.originY + src.step * 0.5f
+        dst.step = src.step * 2
+        dst.frameWidth = src.frameWidth
+        dst.frameHeight = src.frameHeight
+        
+        val s = src.data
+        val d = dst.data
+        val srcWidth = src.width
+        for (y in 0 until height) {
+            var i = (y * 2) * srcWidth
+            var o = y * width
+            for (x in 0 until width) {
+                val sum = (s[i].toInt() and 0xFF) + (s[i + 1].toInt() and 0xFF) +
+                    (s[i + srcWidth].toInt() and 0xFF) + (s[i + srcWidth + 1].toInt() and 0xFF)
+                d[o++] = ((sum + 2) shr 2).toByte()
+                i += 2
+            }
+        }
+    }
+}
\ No newline at end of file
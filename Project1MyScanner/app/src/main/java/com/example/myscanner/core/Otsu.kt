@@ -0,0 +1,36 @@
+package com.example.myscanner.core
+
+// Otsu 방법으로 밝기 히스토그램을 두 집단(종이/배경, 글자/바탕)으로 나누는 임계값 계산
+object Otsu {
+    
+    fun threshold(histogram: IntArray): Int {
+        var size = 0L
+        var sum = 0L
+        for (v in 0 until 256) {
+            size += histogram[v]
+            sum += v.toLong() * histogram[v]
+        }
+        
+        var sumBackground = 0L
+        var weightBackground = 0L
+        var bestVariance = -1.0
+        var result = 128
+        for (t in 0 until 256) {
+            weightBackground += histogram[t]
+            if (weightBackground == 0L) continue
+            val weightForeground = size - weightBackground
+            if (weightForeground == 0L) break
+            
+            sumBackground += t.toLong() * histogram[t]
+            val meanBackground = sumBackground.toDouble() / weightBackground
+            val meanForeground = (sum - sumBackground).toDouble() / weightForeground
+            val diff = meanBackground - meanForeground
+            val variance = weightBackground.toDouble() * weightForeground * diff * diff
+            if (variance > bestVariance) {
+                bestVariance = variance
+                result = t
+            }
+        }
+        return result
+    }
+}
\ No newline at end of file
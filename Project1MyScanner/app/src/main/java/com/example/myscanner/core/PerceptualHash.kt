@@ -0,0 +1,46 @@
+package com.example.myscanner.core
+
+// 같은 페이지를 다시 스캔했는지 판단하기 위한 64비트 지각 해시 (dHash)
+// 9x8 칸의 평균 밝기를 구한 뒤 가로로 이웃한 칸의 밝기 대소를 비트로 기록한다
+// 조명, 압축, 약간의 크기 차이에는 거의 변하지 않고 내용이 다르면 크게 달라진다
+object PerceptualHash {
+    
+    private const val COLUMNS = 9
+    private const val ROWS = 8
+    
+    // 작은 썸네일에서 계산하면 충분하다 (모든 픽셀을 한 번씩만 읽음)
+    fun dHash(gray: GrayImage): Long {
+        val width = gray.width
+        val height = gray.height
+        require(width >= COLUMNS && height >= ROWS) { "이미지가 너무 작습니다: ${width}x$height" }
+        
+        val sums = LongArray(COLUMNS * ROWS)
+        val counts = IntArray(COLUMNS * ROWS)
+        val data = gray.data
+        for (y in 0 until height) {
+            val row = y * ROWS / height * COLUMNS
+            val offset = y * width
+            for (x in 0 until width) {
+                val cell = row + x * COLUMNS / width
+                sums[cell] += (data[offset + x].toInt() and 0xFF).toLong()
+                counts[cell]++
+            }
+        }
+        
+        var hash = 0L
+        var bit = 0
+        for (r in 0 until ROWS) {
+            for (c in 0 until COLUMNS - 1) {
+                val i = r * COLUMNS + c
+                // 평균 비교를 곱셈으로 (나눗셈 오차 없이)
+                if (sums[i] * counts[i + 1] > sums[i + 1] * counts[i]) {
+                    hash = hash or (1L shl bit)
+                }
+                bit++
+            }
+        }
+        return hash
+    }
+    
+    fun distance(a: Long, b: Long): Int = java.lang.Long.bitCount(a xor b)
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.example.myscanner.core
+
+import java.nio.ByteBuffer
+
+// YUV 평면 하나를 rowStride / pixelStride에 맞게 읽는다
+// 행 단위로 한 번에 읽고 임시 배열은 프레임 간 재사용한다
+class PlaneReader {
+    
+    private var buffer: ByteBuffer = ByteBuffer.allocate(0)
+    private var scratch = ByteArray(0)
+    private var rowBuffer = ByteArray(0)
+    
+    var width = 0
+        private set
+    var height = 0
+        private set
+    var rowStride = 0
+        private set
+    var pixelStride = 1
+        private set
+    
+    // 임시 배열 해제 (프레임 버퍼 참조도 끊음)
+    fun release() {
+        buffer = ByteBuffer.allocate(0)
+        scratch = ByteArray(0)
+        rowBuffer = ByteArray(0)
+    }
+    
+    // 버퍼 위치를 바꾸지 않도록 복제본을 사용
+    fun wrap(buffer: ByteBuffer, width: Int, height: Int, rowStride: Int, pixelStride: Int): PlaneReader {
+        this.buffer = buffer.duplicate()
+        this.width = width
+        this.height = height
+        this.rowStride = rowStride
+        this.pixelStride = pixelStride
+        return this
+    }
+    
+    // 패딩 없이 연속된 평면이면 복사 없이 읽기 전용 뷰를 반환
+    fun packedView(): ByteBuffer? {
+        if (pixelStride != 1 || rowStride != width) return null
+        val view = buffer.asReadOnlyBuffer()
+        view.position(0)
+        view.limit(width * height)
+        return view
+    }
+    
+    // y행의 x0부터 step 간격으로 count개 픽셀을 dst에 연속으로 복사
+    fun readRow(y: Int, dst: ByteArray, dstOffset: Int = 0, x0: Int = 0, count: Int = width, step: Int = 1) {
+        val start = y * rowStride + x0 * pixelStride
+        val stride = step * pixelStride
+        if (stride == 1) {
+            buffer.position(start)
+            buffer.get(dst, dstOffset, count)
+            return
+        }
+        
+        // 필요한 구간만 한 번에 읽은 뒤 간격에 맞춰 추림
+        val span = (count - 1) * stride + 1
+        if (scratch.size < span) {
+            scratch = ByteArray(span)
+        }
+        buffer.position(start)
+        buffer.get(scratch, 0, span)
+        var s = 0
+        for (i in dstOffset until dstOffset + count) {
+            dst[i] = scratch[s]
+            s += stride
+        }
+    }
+    
+    // 평면(또는 region 영역)을 maxSize 이하로 샘플링해 out에 채운다
+    fun sample(out: GrayImage, maxSize: Int, region: Region? = null): GrayImage {
+        val left = region?.left ?: 0
+        val top = region?.top ?: 0
+        val regionWidth = region?.width ?: width
+        val regionHeight = region?.height ?: height
+        
+        val step = (maxOf(regionWidth, regionHeight) + maxSize - 1) / maxSize
+        val outWidth = regionWidth / step
+        val outHeight = regionHeight / step
+        out.reset(outWidth, outHeight)
+        out.originX = left.toFloat()
+        out.originY = top.toFloat()
+        out.step = step.toFloat()
+        out.frameWidth = width
+        out.frameHeight = height
+        
+        // 전체 평면이 연속이면 한 번에 복사
+        val packed = if (step == 1 && regionWidth == width) packedView() else null
+        if (packed != null) {
+            packed.position(top * width)
+            packed.get(out.data, 0, outWidth * outHeight)
+            return out
+        }
+        
+        for (y in 0 until outHeight) {
+            readRow(top + y * step, out.data, y * outWidth, left, outWidth, step)
+        }
+        return out
+    }
+    
+    // luma와 같은 격자로 색차(U/V) 평면을 샘플링 (색차 평면은 가로세로 subsampling배 작음)
+    fun sampleAligned(out: GrayImage, luma: GrayImage, subsampling: Int = 2): GrayImage {
+        val outWidth = luma.width
+        val outHeight = luma.height
+        out.reset(outWidth, outHeight)
+        out.originX = luma.originX
+        out.originY = luma.originY
+        out.step = luma.step
+        out.frameWidth = luma.frameWidth
+        out.frameHeight = luma.frameHeight
+        
+        val step = luma.step.toInt()
+        val originX = luma.originX.toInt()
+        val originY = luma.originY.toInt()
+        val left = originX / subsampling
+        
+        for (y in 0 until outHeight) {
+            val row = (originY + y * step) / subsampling
+            if (step % subsampling == 0) {
+                readRow(row, out.data, y * outWidth, left, outWidth, step / subsampling)
+                continue
+            }
+            
+            // 간격이 색차 해상도와 맞지 않으면 필요한 구간을 읽은 뒤 가까운 값을 골라 채움
+            val span = (originX + (outWidth - 1) * step) / subsampling - left + 1
+            if (rowBuffer.size < span) {
+                rowBuffer = ByteArray(span)
+            }
+            readRow(row, rowBuffer, 0, left, span)
+            val offset = y * outWidth
+            for (x in 0 until outWidth) {
+                out.data[offset + x] = rowBuffer[(originX + x * step) / subsampling - left]
+            }
+        }
+        return out
+    }
+}
\ No newline at end of file
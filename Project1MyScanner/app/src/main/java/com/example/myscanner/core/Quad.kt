@@ -0,0 +1,90 @@
+package com.example.myscanner.core
+
+import kotlin.math.abs
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.sqrt
+
+// 문서 사각형의 네 꼭짓점 (좌상, 우상, 우하, 좌하 순서)
+class Quad {
+    
+    val points = FloatArray(8)
+    
+    fun x(corner: Int) = points[corner * 2]
+    fun y(corner: Int) = points[corner * 2 + 1]
+    
+    fun set(corner: Int, x: Float, y: Float) {
+        points[corner * 2] = x
+        points[corner * 2 + 1] = y
+    }
+    
+    fun copyFrom(other: Quad) {
+        other.points.copyInto(points)
+    }
+    
+    // 대응하는 꼭짓점 사이의 최대 이동 거리
+    fun maxDistance(other: Quad): Float {
+        var result = 0f
+        for (i in 0 until 4) {
+            val dx = x(i) - other.x(i)
+            val dy = y(i) - other.y(i)
+            result = max(result, sqrt(dx * dx + dy * dy))
+        }
+        return result
+    }
+    
+    // 신발끈 공식으로 넓이 계산
+    fun area(): Float {
+        var sum = 0f
+        for (i in 0 until 4) {
+            val j = (i + 1) % 4
+            sum += x(i) * y(j) - x(j) * y(i)
+        }
+        return abs(sum) / 2f
+    }
+    
+    // 네 모서리의 회전 방향이 모두 같으면 볼록 사각형
+    fun isConvex(): Boolean {
+        var sign = 0
+        for (i in 0 until 4) {
+            val j = (i + 1) % 4
+            val k = (i + 2) % 4
+            val cross = (x(j) - x(i)) * (y(k) - y(j)) - (y(j) - y(i)) * (x(k) - x(j))
+            val s = if (cross > 0f) 1 else if (cross < 0f) -1 else 0
+            if (s == 0) return false
+            if (sign == 0) sign = s else if (s != sign) return false
+        }
+        return true
+    }
+    
+    // 시계 방향으로 회전한 화면 기준 좌표를 dst에 기록
+    fun writeRotated(dst: FloatArray, frameWidth: Int, frameHeight: Int, rotationDegrees: Int) {
+        for (i in 0 until 4) {
+            val x = x(i)
+            val y = y(i)
+            when (rotationDegrees) {
+                90 -> {
+                    dst[i * 2] = frameHeight - y
+                    dst[i * 2 + 1] = x
+                }
+                180 -> {
+                    dst[i * 2] = frameWidth - x
+                    dst[i * 2 + 1] = frameHeight - y
+                }
+                270 -> {
+                    dst[i * 2] = y
+                    dst[i * 2 + 1] = frameWidth - x
+                }
+                else -> {
+                    dst[i * 2] = x
+                    dst[i * 2 + 1] = y
+                }
+            }
+        }
+    }
+    
+    fun left() = min(min(x(0), x(1)), min(x(2), x(3)))
+    fun top() = min(min(y(0), y(1)), min(y(2), y(3)))
+    fun right() = max(max(x(0), x(1)), max(x(2), x(3)))
+    fun bottom() = max(max(y(0), y(1)), max(y(2), y(3)))
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.myscanner.core
+
+import java.util.concurrent.atomic.AtomicInteger
+
+// 분석 스레드에서 UI 스레드로 사각형 좌표를 넘기는 단일 슬롯 (락 없는 삼중 버퍼)
+// 생산자는 항상 최신 값으로 덮어쓰고, 소비자는 가장 최근 값만 가져간다
+class QuadHandoff {
+    
+    companion object {
+        // 꼭짓점 8개 + 원본 너비, 높이 + 검출 여부
+        const val SIZE = 11
+        const val INDEX_WIDTH = 8
+        const val INDEX_HEIGHT = 9
+        const val INDEX_FOUND = 10
+        
+        private const val INDEX_MASK = 3
+        private const val FRESH = 4
+    }
+    
+    private val buffers = Array(3) { FloatArray(SIZE) }
+    
+    // 공유 슬롯에 있는 버퍼 번호 (+ 새 값 표시)
+    private val slot = AtomicInteger(1)
+    
+    // 생산자 / 소비자가 각자 소유한 버퍼 번호
+    private var writeIndex = 0
+    private var readIndex = 2
+    
+    // 생산자 스레드 전용: points가 null이면 문서 없음
+    fun publish(points: FloatArray?, sourceWidth: Int, sourceHeight: Int) {
+        val buffer = buffers[writeIndex]
+        if (points != null) {
+            points.copyInto(buffer, 0, 0, 8)
+        }
+        buffer[INDEX_WIDTH] = sourceWidth.toFloat()
+        buffer[INDEX_HEIGHT] = sourceHeight.toFloat()
+        buffer[INDEX_FOUND] = if (points != null) 1f else 0f
+        writeIndex = slot.getAndSet(writeIndex or FRESH) and INDEX_MASK
+    }
+    
+    // 소비자 스레드 전용: 새 값이 있으면 out에 복사하고 true 반환
+    fun take(out: FloatArray): Boolean {
+        if (slot.get() and FRESH == 0) return false
+        readIndex = slot.getAndSet(readIndex) and INDEX_MASK
+        buffers[readIndex].copyInto(out)
+        return true
+    }
+}
\ No newline at end of file
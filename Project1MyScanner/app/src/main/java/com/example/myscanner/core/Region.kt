@@ -0,0 +1,20 @@
+package com.example.myscanner.core
+
+// 분석 프레임 안의 사각 영역 (right, bottom 미포함)
+class Region {
+    
+    var left = 0
+    var top = 0
+    var right = 0
+    var bottom = 0
+    
+    val width get() = right - left
+    val height get() = bottom - top
+    
+    fun set(left: Int, top: Int, right: Int, bottom: Int) {
+        this.left = left
+        this.top = top
+        this.right = right
+        this.bottom = bottom
+    }
+}
\ No newline at end of file
@@ -0,0 +1,207 @@
+package com.example.myscanner.core
+
+// 스캔 처리 단계 그래프
+// 단계마다 입력/출력 버퍼 형식을 선언하고, 만들 때 형식이 이어지는지 검사한 뒤 실행 단위로 묶는다
+// - 점 단위 단계(대비)는 변환표 하나로 합쳐 다음 단계가 입력을 읽을 때 적용 (중간 버퍼 없음)
+// - 변환표 -> 변환(ARGB)은 renderScan, 변환표 -> 엣지 -> 변환은 renderEdges 한 번의 순회로
+// 휘도 버퍼 두 장을 번갈아 쓰고 출력 픽셀 배열도 재사용한다 (한 스레드에서만 사용)
+// 실시간 분석의 스캔/엣지 미리보기가 Y 평면 휘도 이미지를 넣어 사용한다
+// 촬영 후 처리(PageProcessor)는 12MP 비트맵을 줄 단위로 인코더에 넘기므로 이 그래프를 거치지 않는다
+class ScanGraph(vararg stages: Stage) {
+    
+    enum class BufferFormat { GRAY, ARGB }
+    
+    sealed class Stage(val name: String, val input: BufferFormat, val output: BufferFormat) {
+        class Contrast(factor: Float) : Stage("contrast", BufferFormat.GRAY, BufferFormat.GRAY) {
+            val lut = ToneLut.contrast(factor)
+        }
+        
+        // Sobel 크기 (엣지를 검은색으로 반전)
+        class Edges : Stage("edges", BufferFormat.GRAY, BufferFormat.GRAY)
+        
+        // 화면 방향으로 회전하며 표시용 ARGB 픽셀로 변환
+        class Convert : Stage("convert", BufferFormat.GRAY, BufferFormat.ARGB)
+    }
+    
+    companion object {
+        private const val OP_LUT = 0
+        private const val OP_EDGES = 1
+        private const val OP_CONVERT = 2
+        private const val OP_EDGES_CONVERT = 3
+        
+        // 스캔 미리보기와 엣지 미리보기 그래프
+        fun scan(contrast: Float = 1.8f) = ScanGraph(Stage.Contrast(contrast), Stage.Convert())
+        
+        fun edges(contrast: Float = 2.2f) = ScanGraph(Stage.Contrast(contrast), Stage.Edges(), Stage.Convert())
+    }
+    
+    // 합쳐진 실행 단위, pointStages는 입력을 읽을 때 변환표로 적용할 점 단위 단계
+    private class Op(val kind: Int, val name: String, val pointStages: List<Stage>, val stage: Stage?) {
+        val lut = IntArray(256) { it }
+    }
+    
+    private val ops = ArrayList<Op>()
+    
+    val outputFormat: BufferFormat
+    
+    // 실행 단위별 소요 시간 (이름, 나노초), 합쳐진 단위는 "contrast+convert"처럼 이름을 이어 붙임
+    var onStageTimed: ((String, Long) -> Unit)? = null
+    
+    // 마지막 run의 결과: GRAY 출력이면 gray, ARGB 출력이면 pixels (width x height)
+    var gray = GrayImage()
+        private set
+    var pixels = IntArray(0)
+        private set
+    var width = 0
+        private set
+    var height = 0
+        private set
+    
+    private val buffers = arrayOf(GrayImage(), GrayImage())
+    private var sobelRow = IntArray(0)
+    
+    init {
+        require(stages.isNotEmpty()) { "단계가 없습니다" }
+        var format = BufferFormat.GRAY
+        for (stage in stages) {
+            require(stage.input == format) { "${stage.name}: ${stage.input} 입력이 필요하지만 이전 출력은 $format" }
+            format = stage.output
+        }
+        outputFormat = format
+        plan(stages)
+    }
+    
+    // 실행 단위 이름 목록 (합쳐진 결과 확인용)
+    fun opNames(): List<String> = ops.map { it.name }
+    
+    // 버퍼 해제 (다음 run에서 다시 할당)
+    fun release() {
+        buffers.forEach { it.release() }
+        pixels = IntArray(0)
+        sobelRow = IntArray(0)
+    }
+    
+    // input은 수정하지 않는다, rotationDegrees는 변환 단계에서만 사용
+    fun run(input: GrayImage, rotationDegrees: Int = 0): ScanGraph {
+        var current = input
+        for (index in ops.indices) {
+            val op = ops[index]
+            val start = System.nanoTime()
+            if (op.pointStages.isNotEmpty()) {
+                buildLut(op)
+            }
+            when (op.kind) {
+                OP_LUT -> current = applyLut(current, op.lut, nextBuffer(current))
+                OP_EDGES -> current = edges(current, op.lut, nextBuffer(current))
+                OP_CONVERT -> {
+                    preparePixels(current, rotationDegrees)
+                    ScanRenderer.renderScan(current, op.lut, pixels, rotationDegrees)
+                }
+                OP_EDGES_CONVERT -> {
+                    preparePixels(current, rotationDegrees)
+                    ScanRenderer.renderEdges(current, op.lut, pixels, sobelRow(current.width), rotationDegrees)
+                }
+            }
+            onStageTimed?.invoke(op.name, System.nanoTime() - start)
+        }
+        gray = current
+        return this
+    }
+    
+    private fun plan(stages: Array<out Stage>) {
+        val pending = ArrayList<Stage>()
+        var i = 0
+        while (i < stages.size) {
+            val stage = stages[i]
+            when (stage) {
+                is Stage.Contrast -> pending.add(stage)
+                is Stage.Edges -> {
+                    val next = stages.getOrNull(i + 1)
+                    if (next is Stage.Convert) {
+                        ops.add(Op(OP_EDGES_CONVERT, joinNames(pending, stage, next), ArrayList(pending), stage))
+                        i++
+                    } else {
+                        ops.add(Op(OP_EDGES, joinNames(pending, stage), ArrayList(pending), stage))
+                    }
+                    pending.clear()
+                }
+                is Stage.Convert -> {
+                    ops.add(Op(OP_CONVERT, joinNames(pending, stage), ArrayList(pending), stage))
+                    pending.clear()
+                }
+            }
+            i++
+        }
+        if (pending.isNotEmpty()) {
+            ops.add(Op(OP_LUT, joinNames(pending), ArrayList(pending), null))
+        }
+    }
+    
+    private fun joinNames(pending: List<Stage>, vararg stages: Stage): String {
+        return (pending + stages).joinToString("+") { it.name }
+    }
+    
+    // 점 단위 단계를 차례로 합성
+    private fun buildLut(op: Op) {
+        val lut = op.lut
+        for (v in 0 until 256) lut[v] = v
+        for (index in op.pointStages.indices) {
+            val stage = op.pointStages[index] as Stage.Contrast
+            for (v in 0 until 256) lut[v] = stage.lut[lut[v]]
+        }
+    }
+    
+    private fun sobelRow(width: Int): IntArray {
+        if (sobelRow.size < width) sobelRow = IntArray(width)
+        return sobelRow
+    }
+    
+    // 입력과 겹치지 않는 버퍼 (입력이 외부 이미지면 첫 번째)
+    private fun nextBuffer(current: GrayImage) = if (current === buffers[0]) buffers[1] else buffers[0]
+    
+    private fun preparePixels(current: GrayImage, rotationDegrees: Int) {
+        width = ScanRenderer.outputWidth(current, rotationDegrees)
+        height = ScanRenderer.outputHeight(current, rotationDegrees)
+        if (pixels.size < width * height) {
+            pixels = IntArray(width * height)
+        }
+    }
+    
+    private fun copyGeometry(src: GrayImage, dst: GrayImage) {
+        dst.originX = src.originX
+        dst.originY = src.originY
+        dst.step = src.step
+        dst.frameWidth = src.frameWidth
+        dst.frameHeight = src.frameHeight
+    }
+    
+    private fun applyLut(src: GrayImage, lut: IntArray, dst: GrayImage): GrayImage {
+        dst.reset(src.width, src.height)
+        copyGeometry(src, dst)
+        val s = src.data
+        val d = dst.data
+        for (i in 0 until src.width * src.height) {
+            d[i] = lut[s[i].toInt() and 0xFF].toByte()
+        }
+        return dst
+    }
+    
+    // renderEdges와 같은 계산을 휘도 버퍼로 (가장자리는 흰색)
+    private fun edges(src: GrayImage, lut: IntArray, dst: GrayImage): GrayImage {
+        val width = src.width
+        val height = src.height
+        dst.reset(width, height)
+        copyGeometry(src, dst)
+        val d = dst.data
+        val row = sobelRow(width)
+        d.fill(0xFF.toByte(), 0, width * height)
+        for (y in 1 until height - 1) {
+            Sobel.squaredMagnitudeRow(src.data, width, y, lut, row)
+            var i = y * width + 1
+            for (x in 1 until width - 1) {
+                d[i++] = Sobel.edgeValue(row[x]).toByte()
+            }
+        }
+        return dst
+    }
+}
\ No newline at end of file
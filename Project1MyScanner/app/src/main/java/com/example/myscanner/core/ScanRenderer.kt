@@ -0,0 +1,167 @@
+package com.example.myscanner.core
+
+// 휘도 버퍼를 화면 표시용 ARGB 픽셀로 변환하는 커널
+// 그레이스케일, 대비, 엣지 단계와 회전을 한 번의 순회로 처리한다
+object ScanRenderer {
+    
+    private const val OPAQUE = 0xFF shl 24
+    
+    // 시계 방향 회전 후 출력 크기
+    fun outputWidth(gray: GrayImage, rotationDegrees: Int) =
+        if (rotationDegrees == 90 || rotationDegrees == 270) gray.height else gray.width
+    
+    fun outputHeight(gray: GrayImage, rotationDegrees: Int) =
+        if (rotationDegrees == 90 || rotationDegrees == 270) gray.width else gray.height
+    
+    // 대비 조정된 그레이스케일
+    fun renderScan(gray: GrayImage, lut: IntArray, out: IntArray, rotationDegrees: Int = 0) {
+        val data = gray.data
+        val width = gray.width
+        val height = gray.height
+        val base = rotatedBase(width, height, rotationDegrees)
+        val dx = rotatedStepX(width, height, rotationDegrees)
+        val dy = rotatedStepY(width, height, rotationDegrees)
+        
+        var i = 0
+        for (y in 0 until height) {
+            var o = base + y * dy
+            for (x in 0 until width) {
+                val l = lut[data[i++].toInt() and 0xFF]
+                out[o] = OPAQUE or (l shl 16) or (l shl 8) or l
+                o += dx
+            }
+        }
+    }
+    
+    // 컬러 스캔: YUV -> RGB 변환과 채널별 흰색 보정을 한 번에 (u, v는 luma와 같은 크기로 샘플링된 것)
+    fun renderColorScan(
+        luma: GrayImage,
+        u: GrayImage,
+        v: GrayImage,
+        lutR: IntArray,
+        lutG: IntArray,
+        lutB: IntArray,
+        out: IntArray,
+        rotationDegrees: Int = 0
+    ) {
+        val width = luma.width
+        val height = luma.height
+        val base = rotatedBase(width, height, rotationDegrees)
+        val dx = rotatedStepX(width, height, rotationDegrees)
+        val dy = rotatedStepY(width, height, rotationDegrees)
+        
+        var i = 0
+        for (y in 0 until height) {
+            var o = base + y * dy
+            for (x in 0 until width) {
+                val rgb = yuvToRgb(luma.data[i], u.data[i], v.data[i])
+                val r = lutR[(rgb shr 16) and 0xFF]
+                val g = lutG[(rgb shr 8) and 0xFF]
+                val b = lutB[rgb and 0xFF]
+                out[o] = OPAQUE or (r shl 16) or (g shl 8) or b
+                i++
+                o += dx
+            }
+        }
+    }
+    
+    // 채널별 히스토그램 (sampleStep 간격으로 일부만 세어 흰색 추정 비용을 줄임)
+    fun colorHistograms(
+        luma: GrayImage,
+        u: GrayImage,
+        v: GrayImage,
+        histR: IntArray,
+        histG: IntArray,
+        histB: IntArray,
+        sampleStep: Int = 4
+    ) {
+        histR.fill(0)
+        histG.fill(0)
+        histB.fill(0)
+        for (y in 0 until luma.height step sampleStep) {
+            var i = y * luma.width
+            for (x in 0 until luma.width step sampleStep) {
+                val rgb = yuvToRgb(luma.data[i], u.data[i], v.data[i])
+                histR[(rgb shr 16) and 0xFF]++
+                histG[(rgb shr 8) and 0xFF]++
+                histB[rgb and 0xFF]++
+                i += sampleStep
+            }
+        }
+    }
+    
+    // ARGB 픽셀의 채널별 히스토그램 누적 (촬영 후 Bitmap 처리용, 행 단위로 호출)
+    fun accumulateHistograms(pixels: IntArray, count: Int, histR: IntArray, histG: IntArray, histB: IntArray, sampleStep: Int = 1) {
+        for (i in 0 until count step sampleStep) {
+            val p = pixels[i]
+            histR[(p shr 16) and 0xFF]++
+            histG[(p shr 8) and 0xFF]++
+            histB[p and 0xFF]++
+        }
+    }
+    
+    // ARGB 픽셀에 채널별 LUT 적용 (제자리)
+    fun applyChannelLuts(pixels: IntArray, count: Int, lutR: IntArray, lutG: IntArray, lutB: IntArray) {
+        for (i in 0 until count) {
+            val p = pixels[i]
+            val r = lutR[(p shr 16) and 0xFF]
+            val g = lutG[(p shr 8) and 0xFF]
+            val b = lutB[p and 0xFF]
+            pixels[i] = (p and (0xFF shl 24)) or (r shl 16) or (g shl 8) or b
+        }
+    }
+    
+    // BT.601 전범위 YUV -> RGB (10비트 고정소수점)
+    private fun yuvToRgb(yByte: Byte, uByte: Byte, vByte: Byte): Int {
+        val y = (yByte.toInt() and 0xFF) shl 10
+        val u = (uByte.toInt() and 0xFF) - 128
+        val v = (vByte.toInt() and 0xFF) - 128
+        val r = ((y + 1436 * v) shr 10).coerceIn(0, 255)
+        val g = ((y - 352 * u - 731 * v) shr 10).coerceIn(0, 255)
+        val b = ((y + 1815 * u) shr 10).coerceIn(0, 255)
+        return (r shl 16) or (g shl 8) or b
+    }
+    
+    // 대비 조정 후 Sobel 엣지 (엣지를 검은색으로 반전), row는 너비 이상인 줄 버퍼
+    fun renderEdges(gray: GrayImage, lut: IntArray, out: IntArray, row: IntArray, rotationDegrees: Int = 0) {
+        val data = gray.data
+        val width = gray.width
+        val height = gray.height
+        val base = rotatedBase(width, height, rotationDegrees)
+        val dx = rotatedStepX(width, height, rotationDegrees)
+        val dy = rotatedStepY(width, height, rotationDegrees)
+        out.fill(OPAQUE or 0xFFFFFF, 0, width * height)
+        
+        for (y in 1 until height - 1) {
+            Sobel.squaredMagnitudeRow(data, width, y, lut, row)
+            var o = base + y * dy + dx
+            for (x in 1 until width - 1) {
+                val edgeValue = Sobel.edgeValue(row[x])
+                out[o] = OPAQUE or (edgeValue shl 16) or (edgeValue shl 8) or edgeValue
+                o += dx
+            }
+        }
+    }
+    
+    // 원본 (x, y)를 회전된 출력 인덱스 base + x * dx + y * dy 로 기록하기 위한 계수
+    private fun rotatedBase(width: Int, height: Int, rotationDegrees: Int) = when (rotationDegrees) {
+        90 -> height - 1
+        180 -> width * height - 1
+        270 -> (width - 1) * height
+        else -> 0
+    }
+    
+    private fun rotatedStepX(width: Int, height: Int, rotationDegrees: Int) = when (rotationDegrees) {
+        90 -> height
+        180 -> -1
+        270 -> -height
+        else -> 1
+    }
+    
+    private fun rotatedStepY(width: Int, height: Int, rotationDegrees: Int) = when (rotationDegrees) {
+        90 -> -1
+        180 -> -width
+        270 -> 1
+        else -> width
+    }
+}
\ No newline at end of file
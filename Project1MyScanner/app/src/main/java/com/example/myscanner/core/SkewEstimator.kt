@@ -0,0 +1,128 @@
+package com.example.myscanner.core
+
+import kotlin.math.PI
+import kotlin.math.cos
+import kotlin.math.roundToInt
+import kotlin.math.sin
+
+// 글자 줄의 수평 투영 프로파일로 페이지 기울기 추정
+// 글자 픽셀을 각도별로 회전 투영했을 때 줄과 줄 사이가 가장 뚜렷하게 갈라지는 각도를 찾는다
+// 먼저 넓은 범위를 거칠게, 그 주변을 곱게 탐색한다
+// 글자 비율이 맞지 않거나 프로파일에 뚜렷한 줄 구조가 없으면 텍스트 페이지가 아니라고 보고 NaN 반환
+class SkewEstimator(
+    private val maxAngle: Float = 10f
+) {
+    
+    companion object {
+        private const val COARSE_STEP = 1f // 도
+        private const val FINE_STEP = 0.1f
+        private const val MIN_INK_RATIO = 0.005f
+        private const val MAX_INK_RATIO = 0.3f
+        private const val MIN_PEAK_RATIO = 3.0 // 최고 점수 / 평균 점수 (줄 구조가 뚜렷한지)
+    }
+    
+    private val histogram = IntArray(256)
+    private var inkX = IntArray(0)
+    private var inkY = IntArray(0)
+    private var profile = IntArray(0)
+    private var inkCount = 0
+    
+    // 기울기(도, 시계 방향이 양수) 또는 텍스트가 아니면 NaN
+    fun estimate(gray: GrayImage): Float {
+        if (!collectInk(gray)) return Float.NaN
+        
+        val diagonal = gray.width + gray.height
+        if (profile.size < diagonal * 2) profile = IntArray(diagonal * 2)
+        
+        // 거친 탐색
+        var best = 0f
+        var bestScore = -1.0
+        var sum = 0.0
+        var count = 0
+        var angle = -maxAngle
+        while (angle <= maxAngle + 1e-3f) {
+            val score = score(angle, diagonal)
+            sum += score
+            count++
+            if (score > bestScore) {
+                bestScore = score
+                best = angle
+            }
+            angle += COARSE_STEP
+        }
+        if (bestScore < sum / count * MIN_PEAK_RATIO) return Float.NaN
+        
+        // 고운 탐색
+        val center = best
+        angle = center - COARSE_STEP
+        while (angle <= center + COARSE_STEP + 1e-3f) {
+            val score = score(angle, diagonal)
+            if (score > bestScore) {
+                bestScore = score
+                best = angle
+            }
+            angle += FINE_STEP
+        }
+        return (best * 10f).roundToInt() / 10f
+    }
+    
+    // Otsu 임계값보다 어두운 픽셀(글자) 좌표 수집
+    private fun collectInk(gray: GrayImage): Boolean {
+        val width = gray.width
+        val height = gray.height
+        val size = width * height
+        if (size == 0) return false
+        val data = gray.data
+        
+        histogram.fill(0)
+        for (i in 0 until size) {
+            histogram[data[i].toInt() and 0xFF]++
+        }
+        val threshold = Otsu.threshold(histogram)
+        
+        var dark = 0
+        for (v in 0..threshold) dark += histogram[v]
+        val ratio = dark.toFloat() / size
+        if (ratio < MIN_INK_RATIO || ratio > MAX_INK_RATIO) return false
+        
+        if (inkX.size < dark) {
+            inkX = IntArray(dark)
+            inkY = IntArray(dark)
+        }
+        inkCount = 0
+        for (y in 0 until height) {
+            val offset = y * width
+            for (x in 0 until width) {
+                if ((data[offset + x].toInt() and 0xFF) <= threshold) {
+                    inkX[inkCount] = x
+                    inkY[inkCount] = y
+                    inkCount++
+                }
+            }
+        }
+        return true
+    }
+    
+    // 각도만큼 회전한 좌표계에서 행별 글자 픽셀 수를 세고, 이웃한 행 차이의 제곱합을 점수로 사용
+    // 줄이 수평에 맞을수록 글자 행과 빈 행이 또렷하게 나뉘어 점수가 커진다
+    private fun score(angleDegrees: Float, diagonal: Int): Double {
+        val radians = angleDegrees * PI / 180.0
+        // 고정소수점 (16비트)
+        val sinFixed = (sin(radians) * 65536).roundToInt()
+        val cosFixed = (cos(radians) * 65536).roundToInt()
+        val bins = diagonal * 2
+        profile.fill(0, 0, bins)
+        
+        for (i in 0 until inkCount) {
+            val row = ((inkY[i] * cosFixed - inkX[i] * sinFixed) shr 16) + diagonal
+            profile[row]++
+        }
+        
+        var score = 0.0
+        for (r in 1 until bins) {
+            val diff = (profile[r] - profile[r - 1]).toDouble()
+            score += diff * diff
+        }
+        return score
+    }
+}
\ No newline at end of file
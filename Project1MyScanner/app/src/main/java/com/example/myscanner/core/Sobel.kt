@@ -0,0 +1,37 @@
+package com.example.myscanner.core
+
+import kotlin.math.sqrt
+
+// 3x3 Sobel 기울기 커널 (엣지 미리보기, ScanGraph 엣지 단계, 허프 직선 검출의 엣지 추출이 모두 이 커널을 씀)
+// 한 줄씩 계산해 호출하는 쪽이 결과를 표시용 밝기나 엣지 점 목록 등 원하는 형태로 바로 옮긴다
+object Sobel {
+    
+    // 점 단위 변환 없이 읽을 때
+    val IDENTITY = IntArray(256) { it }
+    
+    // y번째 줄(1 ..< height - 1)의 기울기 크기 제곱 gx² + gy²를 out[1 ..< width - 1]에 기록
+    // lut는 픽셀을 읽을 때 적용하는 점 단위 변환표 (대비 등)
+    fun squaredMagnitudeRow(src: ByteArray, width: Int, y: Int, lut: IntArray, out: IntArray) {
+        var i = y * width + 1
+        for (x in 1 until width - 1) {
+            val tl = lut[src[i - width - 1].toInt() and 0xFF]
+            val tm = lut[src[i - width].toInt() and 0xFF]
+            val tr = lut[src[i - width + 1].toInt() and 0xFF]
+            val ml = lut[src[i - 1].toInt() and 0xFF]
+            val mr = lut[src[i + 1].toInt() and 0xFF]
+            val bl = lut[src[i + width - 1].toInt() and 0xFF]
+            val bm = lut[src[i + width].toInt() and 0xFF]
+            val br = lut[src[i + width + 1].toInt() and 0xFF]
+            
+            val gx = (tr + 2 * mr + br) - (tl + 2 * ml + bl)
+            val gy = (bl + 2 * bm + br) - (tl + 2 * tm + tr)
+            out[x] = gx * gx + gy * gy
+            i++
+        }
+    }
+    
+    // 크기 제곱을 반전한 엣지 밝기로 (엣지가 검은색, 255에서 포화)
+    fun edgeValue(squaredMagnitude: Int): Int {
+        return 255 - sqrt(squaredMagnitude.toFloat()).toInt().coerceAtMost(255)
+    }
+}
\ No newline at end of file
@@ -0,0 +1,397 @@
+package com.example.myscanner.core
+
+import kotlin.math.abs
+import kotlin.math.max
+import kotlin.math.min
+
+// 외부 OCR 없이 글자 줄 영역을 찾는 검출기
+// 적응형 이진화(적분 영상으로 구한 주변 평균과 비교) -> 연결 요소 라벨링 -> 글자 크기 요소만 남김 -> 가로로 이어지는 요소를 줄로 묶기
+// 찾은 줄 상자로 내용 영역(스마트 자르기)과 페이지가 뒤집혔는지(180도)를 판단한다
+// 모든 버퍼는 기본형 배열이며 호출 간에 재사용한다 (한 스레드에서만 사용)
+class TextRegionDetector(
+    private val labeler: ComponentLabeler = ComponentLabeler()
+) {
+    
+    companion object {
+        const val ORIENTATION_UNKNOWN = 0
+        const val ORIENTATION_UPRIGHT = 1
+        const val ORIENTATION_UPSIDE_DOWN = 2
+        
+        private const val WINDOW_DIVISOR = 24 // 적응형 이진화 창 크기 = 짧은 변 / 24
+        private const val MIN_WINDOW = 15
+        private const val INK_PERCENT = 80 // 주변 평균의 80%보다 어두우면 글자
+        private const val MIN_CONTRAST = 12 // 주변 평균과 이만큼은 차이 나야 글자 (종이 결, 잡음 무시)
+        
+        private const val MIN_CHAR_HEIGHT = 4
+        private const val MAX_CHAR_HEIGHT_RATIO = 0.08f // 이미지 높이 대비
+        private const val MAX_CHAR_ASPECT = 8 // 획이 이어진 단어까지 허용하는 가로/세로 비
+        private const val MIN_FILL_PERCENT = 8 // 경계 상자 대비 잉크 비율 (너무 비면 테두리, 선)
+        
+        private const val MIN_OVERLAP_RATIO = 0.5f // 같은 줄로 볼 세로 겹침 (작은 쪽 높이 대비)
+        private const val MAX_GAP_RATIO = 2.0f // 같은 줄로 볼 가로 간격 (글자 높이 대비)
+        private const val MIN_LINE_CHARS = 3
+        
+        private const val MIN_ORIENTATION_LINES = 4
+        private const val MIN_ORIENTATION_SCORE = 0.2f // 어센더 단서 최소 크기
+        private const val MIN_ALIGN_CONFLICT = 0.1f // 정렬이 이만큼 반대를 가리키면 판단 보류
+        private const val ASCENDER_RATIO = 0.3f // 줄 가운데 띠(x-높이)에서 이만큼 벗어나야 어센더/디센더
+    }
+    
+    // 찾은 줄 수
+    var lineCount = 0
+        private set
+    
+    // 줄 정보 (index: 0 until lineCount, 위에서 아래 순서가 아니라 찾은 순서)
+    fun lineLeft(index: Int) = lineLefts[index]
+    fun lineTop(index: Int) = lineTops[index]
+    fun lineRight(index: Int) = lineRights[index] // 포함
+    fun lineBottom(index: Int) = lineBottoms[index] // 포함
+    fun lineChars(index: Int) = lineCharCounts[index]
+    
+    // 마지막 detect의 방향 판단 결과
+    var orientation = ORIENTATION_UNKNOWN
+        private set
+    
+    private var width = 0
+    private var height = 0
+    
+    private var integral = IntArray(0)
+    private var binary = ByteArray(0)
+    
+    // 글자 후보 (요소) 정보
+    private var charCount = 0
+    private var charLefts = IntArray(256)
+    private var charTops = IntArray(256)
+    private var charRights = IntArray(256)
+    private var charBottoms = IntArray(256)
+    private var charLines = IntArray(256)
+    private var order = LongArray(256) // (left shl 32) or 후보 인덱스, 왼쪽부터 훑기 위한 정렬용
+    
+    // 줄 정보 (묶는 동안에는 마지막 글자의 세로 범위로 다음 글자를 이어 붙인다)
+    private var lineLefts = IntArray(64)
+    private var lineTops = IntArray(64)
+    private var lineRights = IntArray(64)
+    private var lineBottoms = IntArray(64)
+    private var lineCharCounts = IntArray(64)
+    private var lastTops = IntArray(64)
+    private var lastBottoms = IntArray(64)
+    private var remap = IntArray(64)
+    private var scratch = IntArray(64)
+    
+    // 줄 수 반환, 결과는 lineLeft..lineChars, orientation, contentBounds로 읽는다
+    fun detect(gray: GrayImage): Int {
+        width = gray.width
+        height = gray.height
+        lineCount = 0
+        charCount = 0
+        orientation = ORIENTATION_UNKNOWN
+        if (width < MIN_WINDOW || height < MIN_WINDOW) return 0
+        
+        threshold(gray)
+        labeler.label(binary, width, height)
+        collectChars()
+        groupLines()
+        orientation = estimateOrientation()
+        return lineCount
+    }
+    
+    // 모든 줄을 감싸는 상자에 짧은 변 대비 marginRatio만큼 여백을 더해 out에 (right, bottom 미포함)
+    // 줄을 못 찾았으면 이미지 전체
+    fun contentBounds(out: Region, marginRatio: Float = 0.03f): Region {
+        if (lineCount == 0) {
+            out.set(0, 0, width, height)
+            return out
+        }
+        var left = Int.MAX_VALUE
+        var top = Int.MAX_VALUE
+        var right = Int.MIN_VALUE
+        var bottom = Int.MIN_VALUE
+        for (i in 0 until lineCount) {
+            left = min(left, lineLefts[i])
+            top = min(top, lineTops[i])
+            right = max(right, lineRights[i])
+            bottom = max(bottom, lineBottoms[i])
+        }
+        val margin = (min(width, height) * marginRatio).toInt()
+        out.set(
+            max(0, left - margin),
+            max(0, top - margin),
+            min(width, right + 1 + margin),
+            min(height, bottom + 1 + margin)
+        )
+        return out
+    }
+    
+    fun release() {
+        integral = IntArray(0)
+        binary = ByteArray(0)
+    }
+    
+    // 창 안의 평균 밝기를 적분 영상으로 구해 그보다 충분히 어두운 픽셀을 글자로 (조명이 고르지 않아도 동작)
+    private fun threshold(gray: GrayImage) {
+        val stride = width + 1
+        val size = width * height
+        if (integral.size < stride * (height + 1)) integral = IntArray(stride * (height + 1))
+        if (binary.size < size) binary = ByteArray(size)
+        
+        // 2MP * 255 < Int.MAX_VALUE 이므로 Int로 충분
+        val data = gray.data
+        for (x in 0 until stride) integral[x] = 0
+        for (y in 0 until height) {
+            var rowSum = 0
+            val row = y * width
+            val above = y * stride
+            val current = above + stride
+            integral[current] = 0
+            for (x in 0 until width) {
+                rowSum += data[row + x].toInt() and 0xFF
+                integral[current + x + 1] = integral[above + x + 1] + rowSum
+            }
+        }
+        
+        val radius = max(MIN_WINDOW, min(width, height) / WINDOW_DIVISOR) / 2
+        for (y in 0 until height) {
+            val y0 = max(0, y - radius)
+            val y1 = min(height, y + radius + 1)
+            val top = y0 * stride
+            val bottom = y1 * stride
+            val row = y * width
+            for (x in 0 until width) {
+                val x0 = max(0, x - radius)
+                val x1 = min(width, x + radius + 1)
+                val sum = integral[bottom + x1] - integral[bottom + x0] - integral[top + x1] + integral[top + x0]
+                val area = (x1 - x0) * (y1 - y0)
+                val value = (data[row + x].toInt() and 0xFF) * area
+                // value < mean * INK_PERCENT / 100 이고 value < mean - MIN_CONTRAST (나눗셈 없이 비교)
+                val ink = value * 100 < sum * INK_PERCENT && value < sum - MIN_CONTRAST * area
+                binary[row + x] = if (ink) 1 else 0
+            }
+        }
+    }
+    
+    // 글자 크기와 모양인 요소만 후보로 (가장자리에 닿은 요소는 배경이나 페이지 테두리로 보고 제외)
+    private fun collectChars() {
+        val maxHeight = max(MIN_CHAR_HEIGHT, (height * MAX_CHAR_HEIGHT_RATIO).toInt())
+        val count = labeler.count
+        ensureCharCapacity(count)
+        for (label in 1..count) {
+            val boxWidth = labeler.boxWidth(label)
+            val boxHeight = labeler.boxHeight(label)
+            if (boxHeight < MIN_CHAR_HEIGHT || boxHeight > maxHeight) continue
+            if (boxWidth > boxHeight * MAX_CHAR_ASPECT) continue
+            if (labeler.area(label) * 100 < boxWidth * boxHeight * MIN_FILL_PERCENT) continue
+            val left = labeler.left(label)
+            val top = labeler.top(label)
+            val right = labeler.right(label)
+            val bottom = labeler.bottom(label)
+            if (left == 0 || top == 0 || right == width - 1 || bottom == height - 1) continue
+            
+            charLefts[charCount] = left
+            charTops[charCount] = top
+            charRights[charCount] = right
+            charBottoms[charCount] = bottom
+            order[charCount] = (left.toLong() shl 32) or charCount.toLong()
+            charCount++
+        }
+    }
+    
+    // 왼쪽부터 훑으면서 세로로 충분히 겹치고 가로로 가까운 줄 끝에 이어 붙이고, 없으면 새 줄 시작
+    private fun groupLines() {
+        heapSort(order, charCount)
+        var lines = 0
+        for (k in 0 until charCount) {
+            val c = (order[k] and 0xFFFFFFFFL).toInt()
+            val top = charTops[c]
+            val bottom = charBottoms[c]
+            val charHeight = bottom - top + 1
+            
+            var best = -1
+            var bestOverlap = 0
+            for (l in 0 until lines) {
+                val lastHeight = lastBottoms[l] - lastTops[l] + 1
+                val gap = charLefts[c] - lineRights[l]
+                if (gap > max(charHeight, lastHeight) * MAX_GAP_RATIO) continue
+                val overlap = min(bottom, lastBottoms[l]) - max(top, lastTops[l]) + 1
+                if (overlap < min(charHeight, lastHeight) * MIN_OVERLAP_RATIO) continue
+                if (overlap > bestOverlap) {
+                    bestOverlap = overlap
+                    best = l
+                }
+            }
+            
+            if (best < 0) {
+                ensureLineCapacity(lines + 1)
+                best = lines++
+                lineLefts[best] = charLefts[c]
+                lineTops[best] = top
+                lineRights[best] = charRights[c]
+                lineBottoms[best] = bottom
+                lineCharCounts[best] = 0
+            } else {
+                lineTops[best] = min(lineTops[best], top)
+                lineRights[best] = max(lineRights[best], charRights[c])
+                lineBottoms[best] = max(lineBottoms[best], bottom)
+            }
+            lineCharCounts[best]++
+            lastTops[best] = top
+            lastBottoms[best] = bottom
+            charLines[c] = best
+        }
+        
+        // 글자가 너무 적은 줄(잡음, 점, 도형 조각)은 버리고 앞으로 당겨 담기
+        for (l in 0 until lines) {
+            if (lineCharCounts[l] < MIN_LINE_CHARS) {
+                remap[l] = -1
+                continue
+            }
+            val target = lineCount++
+            remap[l] = target
+            lineLefts[target] = lineLefts[l]
+            lineTops[target] = lineTops[l]
+            lineRights[target] = lineRights[l]
+            lineBottoms[target] = lineBottoms[l]
+            lineCharCounts[target] = lineCharCounts[l]
+        }
+        for (c in 0 until charCount) {
+            charLines[c] = remap[charLines[c]]
+        }
+    }
+    
+    // 두 단서로 판단 (양수면 뒤집힘)
+    // 1. 어센더/디센더: 라틴 문자는 위로 솟는 글자(b, d, h, 대문자)가 아래로 내려가는 글자(g, p, y)보다 많다
+    // 2. 줄 정렬: 보통 글은 왼쪽 끝이 가지런하고 오른쪽 끝(문단 마지막 줄)이 들쭉날쭉하다, 뒤집히면 반대
+    // 정렬은 오른쪽 정렬한 주소, 서명 블록만 있어도 뒤집히므로 단독으로는 쓰지 않고,
+    // 어센더 단서가 충분하고 정렬이 반대 방향을 가리키지 않을 때만 결정한다 (잘못 뒤집기보다 그대로 두는 편이 낫다)
+    // 한글처럼 어센더 단서가 약하거나 두 단서가 엇갈리면 UNKNOWN
+    private fun estimateOrientation(): Int {
+        if (lineCount < MIN_ORIENTATION_LINES) return ORIENTATION_UNKNOWN
+        
+        if (scratch.size < max(lineCount, charCount)) scratch = IntArray(max(lineCount, charCount))
+        for (l in 0 until lineCount) scratch[l] = lineBottoms[l] - lineTops[l] + 1
+        val lineHeight = median(scratch, lineCount).toFloat()
+        
+        for (l in 0 until lineCount) scratch[l] = lineLefts[l]
+        val leftSpread = spread(lineCount, median(scratch, lineCount)) { lineLefts[it] }
+        for (l in 0 until lineCount) scratch[l] = lineRights[l]
+        val rightSpread = spread(lineCount, median(scratch, lineCount)) { lineRights[it] }
+        val alignScore = (leftSpread - rightSpread) / (leftSpread + rightSpread + lineHeight)
+        
+        val ascenderScore = ascenderScore()
+        if (abs(ascenderScore) < MIN_ORIENTATION_SCORE) return ORIENTATION_UNKNOWN
+        if (ascenderScore * alignScore < 0f && abs(alignScore) >= MIN_ALIGN_CONFLICT) return ORIENTATION_UNKNOWN
+        return if (ascenderScore > 0) ORIENTATION_UPSIDE_DOWN else ORIENTATION_UPRIGHT
+    }
+    
+    // 줄마다 글자 위/아래 끝의 중앙값으로 x-높이 띠를 잡고, 띠 위로 솟은 글자와 아래로 내려간 글자 수 비교
+    // (디센더 - 어센더) / 전체, 양수면 뒤집힘 쪽
+    private fun ascenderScore(): Float {
+        var ascenders = 0
+        var descenders = 0
+        for (l in 0 until lineCount) {
+            var n = 0
+            for (c in 0 until charCount) {
+                if (charLines[c] == l) scratch[n++] = charTops[c]
+            }
+            val medianTop = median(scratch, n)
+            n = 0
+            for (c in 0 until charCount) {
+                if (charLines[c] == l) scratch[n++] = charBottoms[c]
+            }
+            val medianBottom = median(scratch, n)
+            val band = max(1, medianBottom - medianTop + 1) * ASCENDER_RATIO
+            for (c in 0 until charCount) {
+                if (charLines[c] != l) continue
+                if (medianTop - charTops[c] > band) ascenders++
+                if (charBottoms[c] - medianBottom > band) descenders++
+            }
+        }
+        return (descenders - ascenders).toFloat() / (ascenders + descenders + lineCount)
+    }
+    
+    private inline fun spread(count: Int, center: Int, value: (Int) -> Int): Float {
+        var sum = 0L
+        for (i in 0 until count) sum += abs(value(i) - center)
+        return sum.toFloat() / count
+    }
+    
+    // values의 앞 count개에서 중앙값 (제자리 quickselect, 순서는 바뀜)
+    // Arrays.sort는 이미 정렬된 구간이 많은 입력(같은 줄의 글자 위치)에서 병합 버퍼를 새로 할당한다
+    private fun median(values: IntArray, count: Int): Int {
+        val k = count / 2
+        var low = 0
+        var high = count - 1
+        while (low < high) {
+            val pivot = values[(low + high) ushr 1]
+            var i = low
+            var j = high
+            while (i <= j) {
+                while (values[i] < pivot) i++
+                while (values[j] > pivot) j--
+                if (i <= j) {
+                    val t = values[i]
+                    values[i] = values[j]
+                    values[j] = t
+                    i++
+                    j--
+                }
+            }
+            if (k <= j) {
+                high = j
+            } else if (k >= i) {
+                low = i
+            } else {
+                break
+            }
+        }
+        return values[k]
+    }
+    
+    // values의 앞 count개를 제자리 정렬 (median과 같은 이유로 Arrays.sort 대신)
+    private fun heapSort(values: LongArray, count: Int) {
+        for (i in count / 2 - 1 downTo 0) siftDown(values, i, count)
+        for (end in count - 1 downTo 1) {
+            val t = values[0]
+            values[0] = values[end]
+            values[end] = t
+            siftDown(values, 0, end)
+        }
+    }
+    
+    private fun siftDown(values: LongArray, start: Int, count: Int) {
+        var parent = start
+        val value = values[parent]
+        while (true) {
+            var child = parent * 2 + 1
+            if (child >= count) break
+            if (child + 1 < count && values[child + 1] > values[child]) child++
+            if (values[child] <= value) break
+            values[parent] = values[child]
+            parent = child
+        }
+        values[parent] = value
+    }
+    
+    private fun ensureCharCapacity(capacity: Int) {
+        if (charLefts.size >= capacity) return
+        val size = max(capacity, charLefts.size * 2)
+        charLefts = charLefts.copyOf(size)
+        charTops = charTops.copyOf(size)
+        charRights = charRights.copyOf(size)
+        charBottoms = charBottoms.copyOf(size)
+        charLines = charLines.copyOf(size)
+        order = order.copyOf(size)
+    }
+    
+    private fun ensureLineCapacity(capacity: Int) {
+        if (lineLefts.size >= capacity) return
+        val size = max(capacity, lineLefts.size * 2)
+        lineLefts = lineLefts.copyOf(size)
+        lineTops = lineTops.copyOf(size)
+        lineRights = lineRights.copyOf(size)
+        lineBottoms = lineBottoms.copyOf(size)
+        lineCharCounts = lineCharCounts.copyOf(size)
+        lastTops = lastTops.copyOf(size)
+        lastBottoms = lastBottoms.copyOf(size)
+        remap = remap.copyOf(size)
+    }
+}
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.example.myscanner.core
+
+import kotlin.math.PI
+import kotlin.math.ceil
+import kotlin.math.cos
+import kotlin.math.floor
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.sin
+
+// 큰 이미지를 타일 단위로 회전 (중심 기준, 출력 크기는 입력과 같음)
+// 타일마다 필요한 원본 영역만 읽어 오므로 전체 픽셀 배열을 한 번에 만들지 않는다
+// 원본 밖은 background 색으로 채운다 (ARGB, 양선형 보간)
+// 회색조 이미지(R=G=B)는 grayscale로 한 채널만 보간해 비용을 줄인다
+class TileRotator(
+    private val tileSize: Int = 256
+) {
+    
+    // 원본 영역 읽기 / 결과 타일 쓰기 (Bitmap.getPixels / setPixels와 같은 형식)
+    interface PixelSource {
+        fun read(x: Int, y: Int, width: Int, height: Int, dst: IntArray)
+    }
+    
+    interface PixelSink {
+        fun write(x: Int, y: Int, width: Int, height: Int, src: IntArray)
+    }
+    
+    companion object {
+        private const val FIXED_SHIFT = 16
+        private const val FIXED_ONE = 1 shl FIXED_SHIFT
+        private const val OPAQUE = -0x1000000 // 0xFF000000
+    }
+    
+    private val tile = IntArray(tileSize * tileSize)
+    private var window = IntArray(0)
+    
+    fun rotate(
+        width: Int,
+        height: Int,
+        degrees: Float,
+        background: Int,
+        source: PixelSource,
+        sink: PixelSink,
+        grayscale: Boolean = false
+    ) {
+        val radians = degrees * PI / 180.0
+        val cos = cos(radians).toFloat()
+        val sin = sin(radians).toFloat()
+        val cx = width / 2f
+        val cy = height / 2f
+        
+        // step 범위는 줄마다 IntProgression을 만들므로 while로 순회
+        var tileY = 0
+        while (tileY < height) {
+            var tileX = 0
+            while (tileX < width) {
+                val tileW = min(tileSize, width - tileX)
+                val tileH = min(tileSize, height - tileY)
+                
+                // 타일 네 모서리를 역회전해 필요한 원본 영역 계산 (보간용 1px 여유)
+                var minX = Float.MAX_VALUE
+                var minY = Float.MAX_VALUE
+                var maxX = -Float.MAX_VALUE
+                var maxY = -Float.MAX_VALUE
+                for (corner in 0 until 4) {
+                    val dx = (if (corner and 1 == 0) tileX else tileX + tileW) - cx
+                    val dy = (if (corner and 2 == 0) tileY else tileY + tileH) - cy
+                    val sx = cos * dx + sin * dy + cx
+                    val sy = -sin * dx + cos * dy + cy
+                    minX = min(minX, sx)
+                    minY = min(minY, sy)
+                    maxX = max(maxX, sx)
+                    maxY = max(maxY, sy)
+                }
+                val srcX0 = max(0, floor(minX).toInt() - 1)
+                val srcY0 = max(0, floor(minY).toInt() - 1)
+                val srcX1 = min(width, ceil(maxX).toInt() + 2)
+                val srcY1 = min(height, ceil(maxY).toInt() + 2)
+                
+                if (srcX0 >= srcX1 || srcY0 >= srcY1) {
+                    tile.fill(background, 0, tileW * tileH)
+                } else {
+                    val srcW = srcX1 - srcX0
+                    val srcH = srcY1 - srcY0
+                    if (window.size < srcW * srcH) window = IntArray(srcW * srcH)
+                    source.read(srcX0, srcY0, srcW, srcH, window)
+                    // 타일 전체가 원본 안쪽이면 (대부분의 타일) 픽셀마다 경계 검사를 하지 않음
+                    val inside = minX >= 0f && minY >= 0f && maxX <= width - 2 && maxY <= height - 2
+                    if (inside) {
+                        fillInside(tileX, tileY, tileW, tileH, srcX0, srcY0, srcW, cx, cy, cos, sin, grayscale)
+                    } else {
+                        fillTile(tileX, tileY, tileW, tileH, srcX0, srcY0, srcW, srcH, cx, cy, cos, sin, width, height, background, grayscale)
+                    }
+                }
+                sink.write(tileX, tileY, tileW, tileH, tile)
+                tileX += tileSize
+            }
+            tileY += tileSize
+        }
+    }
+    
+    // 원본 좌표를 16.16 고정소수점으로 한 픽셀씩 더해 가며 계산 (픽셀마다 곱셈, 실수 변환 없음)
+    private fun fillTile(
+        tileX: Int, tileY: Int, tileW: Int, tileH: Int,
+        srcX0: Int, srcY0: Int, srcW: Int, srcH: Int,
+        cx: Float, cy: Float, cos: Float, sin: Float,
+        width: Int, height: Int, background: Int, grayscale: Boolean
+    ) {
+        val stepX = (cos * FIXED_ONE).toInt()
+        val stepY = (-sin * FIXED_ONE).toInt()
+        val maxX = (width - 1) shl FIXED_SHIFT
+        val maxY = (height - 1) shl FIXED_SHIFT
+        val lastX = srcW - 1
+        val lastY = srcH - 1
+        
+        var out = 0
+        for (y in 0 until tileH) {
+            val dy = tileY + y + 0.5f - cy
+            val dx = tileX + 0.5f - cx
+            var sx = ((cos * dx + sin * dy + cx - 0.5f) * FIXED_ONE).toInt()
+            var sy = ((-sin * dx + cos * dy + cy - 0.5f) * FIXED_ONE).toInt()
+            
+            for (x in 0 until tileW) {
+                if (sx < 0 || sy < 0 || sx > maxX || sy > maxY) {
+                    tile[out] = background
+                } else {
+                    // 창(window) 안에서 양선형 보간
+                    val x0 = min((sx shr FIXED_SHIFT) - srcX0, lastX)
+                    val y0 = min((sy shr FIXED_SHIFT) - srcY0, lastY)
+                    val x1 = if (x0 < lastX) 1 else 0
+                    val row1 = if (y0 < lastY) srcW else 0
+                    val fx = (sx shr 8) and 0xFF
+                    val fy = (sy shr 8) and 0xFF
+                    
+                    val i = y0 * srcW + x0
+                    tile[out] = if (grayscale) {
+                        blendGray(window[i], window[i + x1], window[i + row1], window[i + row1 + x1], fx, fy)
+                    } else {
+                        blend(window[i], window[i + x1], window[i + row1], window[i + row1 + x1], fx, fy)
+                    }
+                }
+                out++
+                sx += stepX
+                sy += stepY
+            }
+        }
+    }
+    
+    // 보간에 쓰는 오른쪽, 아래 픽셀까지 창 안에 있음이 보장된 경우
+    private fun fillInside(
+        tileX: Int, tileY: Int, tileW: Int, tileH: Int,
+        srcX0: Int, srcY0: Int, srcW: Int,
+        cx: Float, cy: Float, cos: Float, sin: Float, grayscale: Boolean
+    ) {
+        val stepX = (cos * FIXED_ONE).toInt()
+        val stepY = (-sin * FIXED_ONE).toInt()
+        val window = window
+        
+        var out = 0
+        for (y in 0 until tileH) {
+            val dy = tileY + y + 0.5f - cy
+            val dx = tileX + 0.5f - cx
+            var sx = ((cos * dx + sin * dy + cx - 0.5f) * FIXED_ONE).toInt() - (srcX0 shl FIXED_SHIFT)
+            var sy = ((-sin * dx + cos * dy + cy - 0.5f) * FIXED_ONE).toInt() - (srcY0 shl FIXED_SHIFT)
+            
+            // 픽셀마다 분기하지 않도록 반복문을 나눔
+            if (grayscale) {
+                for (x in 0 until tileW) {
+                    val i = (sy shr FIXED_SHIFT) * srcW + (sx shr FIXED_SHIFT)
+                    tile[out++] = blendGray(window[i], window[i + 1], window[i + srcW], window[i + srcW + 1], (sx shr 8) and 0xFF, (sy shr 8) and 0xFF)
+                    sx += stepX
+                    sy += stepY
+                }
+            } else {
+                for (x in 0 until tileW) {
+                    val i = (sy shr FIXED_SHIFT) * srcW + (sx shr FIXED_SHIFT)
+                    tile[out++] = blend(window[i], window[i + 1], window[i + srcW], window[i + srcW + 1], (sx shr 8) and 0xFF, (sy shr 8) and 0xFF)
+                    sx += stepX
+                    sy += stepY
+                }
+            }
+        }
+    }
+    
+    // 네 픽셀의 가중 평균 (가중치 합 256)
+    // R/B와 A/G 채널을 둘씩 묶어 한 번의 곱셈으로 두 채널을 함께 계산
+    private fun blend(p00: Int, p10: Int, p01: Int, p11: Int, fx: Int, fy: Int): Int {
+        val w11 = (fx * fy) shr 8
+        val w10 = fx - w11
+        val w01 = fy - w11
+        val w00 = 256 - w10 - w01 - w11
+        
+        val rb = ((p00 and 0xFF00FF) * w00 + (p10 and 0xFF00FF) * w10 +
+            (p01 and 0xFF00FF) * w01 + (p11 and 0xFF00FF) * w11) ushr 8
+        val ag = ((p00 ushr 8) and 0xFF00FF) * w00 + ((p10 ushr 8) and 0xFF00FF) * w10 +
+            ((p01 ushr 8) and 0xFF00FF) * w01 + ((p11 ushr 8) and 0xFF00FF) * w11
+        return (rb and 0xFF00FF) or (ag and 0xFF00FF00.toInt())
+    }
+    
+    // 회색조: 파란 채널 하나만 보간해 불투명 회색으로
+    private fun blendGray(p00: Int, p10: Int, p01: Int, p11: Int, fx: Int, fy: Int): Int {
+        val w11 = (fx * fy) shr 8
+        val w10 = fx - w11
+        val w01 = fy - w11
+        val w00 = 256 - w10 - w01 - w11
+        
+        val gray = ((p00 and 0xFF) * w00 + (p10 and 0xFF) * w10 + (p01 and 0xFF) * w01 + (p11 and 0xFF) * w11) ushr 8
+        return OPAQUE or (gray * 0x010101)
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.myscanner.core
+
+import kotlin.math.roundToInt
+
+// 256단계 밝기 변환표 (픽셀당 곱셈 대신 표 조회 한 번)
+object ToneLut {
+    
+    // 너무 어두운 사진을 흰색으로 과하게 펴지 않도록 하는 하한
+    private const val MIN_WHITE_POINT = 96
+    
+    // 중간 회색(128)을 기준으로 factor배 펴는 선형 대비 곡선
+    fun contrast(factor: Float, out: IntArray = IntArray(256)): IntArray {
+        val offset = (-0.5f * factor + 0.5f) * 255
+        for (v in 0 until 256) {
+            out[v] = (v * factor + offset).roundToInt().coerceIn(0, 255)
+        }
+        return out
+    }
+    
+    // 밝은 쪽에서 percentile 비율의 픽셀이 시작되는 값 (종이 흰색 추정)
+    fun whitePoint(histogram: IntArray, percentile: Float = 0.02f): Int {
+        var total = 0L
+        for (v in 0 until 256) total += histogram[v]
+        val target = (total * percentile).toLong()
+        
+        var count = 0L
+        for (v in 255 downTo 0) {
+            count += histogram[v]
+            if (count > target) return v
+        }
+        return 255
+    }
+    
+    // 종이 흰색을 255로 펴는 채널별 보정 (어두운 잉크 색은 비율만 유지)
+    fun whiteBalance(whitePoint: Int, out: IntArray = IntArray(256)): IntArray {
+        val white = whitePoint.coerceIn(MIN_WHITE_POINT, 255)
+        for (v in 0 until 256) {
+            out[v] = (v * 255 / white).coerceAtMost(255)
+        }
+        return out
+    }
+}
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.example.myscanner.export
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import java.io.BufferedOutputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.EOFException
+import java.io.File
+import java.io.FileOutputStream
+import java.io.FilterOutputStream
+import java.io.IOException
+import java.io.OutputStream
+
+// 스캔 페이지들을 하나의 PDF로 스트리밍 내보내기
+// JPEG 페이지는 디코딩 없이 파일 내용을 그대로 이미지 객체로 복사하고(DCTDecode),
+// 그 밖의 형식은 한 페이지씩 디코딩해 JPEG로 다시 압축한다
+// 페이지 하나 분량의 버퍼만 사용하므로 페이지 수가 많아도 메모리 사용량이 일정하다
+// (PdfDocument는 writeTo 전까지 모든 페이지의 비트맵을 들고 있어 쓰지 않음)
+// 시간이 걸리므로 메인 스레드가 아닌 곳에서 호출해야 한다
+class PdfExporter(
+    private val maxPagePixels: Int = DEFAULT_MAX_PAGE_PIXELS
+) {
+    
+    companion object {
+        private const val DEFAULT_MAX_PAGE_PIXELS = 2000 // 다시 압축하는 페이지의 긴 변 최대 픽셀
+        private const val PAGE_WIDTH_POINTS = 595 // A4 너비 (1/72 inch)
+        private const val REENCODE_QUALITY = 90
+        private const val COPY_BUFFER_SIZE = 64 * 1024
+    }
+    
+    private val copyBuffer = ByteArray(COPY_BUFFER_SIZE)
+    private val encodeBuffer = ByteArrayOutputStream()
+    
+    // 객체 번호별 파일 내 위치 (xref 테이블용)
+    private val offsets = mutableListOf<Long>()
+    
+    @Throws(IOException::class)
+    fun export(pages: List<File>, output: File, onProgress: (Int, Int) -> Unit = { _, _ -> }): File {
+        val tempFile = File(output.parentFile, "${output.name}.tmp")
+        offsets.clear()
+        
+        try {
+            CountingOutputStream(BufferedOutputStream(FileOutputStream(tempFile), COPY_BUFFER_SIZE)).use { out ->
+                out.writeAscii("%PDF-1.4\n%âãÏÓ\n")
+                
+                // 1: 카탈로그, 2: 페이지 트리, 이후 페이지마다 (페이지, 내용, 이미지) 세 개
+                beginObject(out, 1)
+                out.writeAscii("<< /Type /Catalog /Pages 2 0 R >>\nendobj\n")
+                
+                pages.forEachIndexed { index, page ->
+                    writePage(out, page, 3 + index * 3)
+                    onProgress(index + 1, pages.size)
+                }
+                
+                beginObject(out, 2)
+                val kids = pages.indices.joinToString(" ") { "${3 + it * 3} 0 R" }
+                out.writeAscii("<< /Type /Pages /Kids [$kids] /Count ${pages.size} >>\nendobj\n")
+                
+                writeTrailer(out)
+            }
+            
+            if (!tempFile.renameTo(output)) {
+                throw IOException("PDF 파일을 저장할 수 없습니다")
+            }
+            return output
+        } finally {
+            tempFile.delete()
+            encodeBuffer.reset()
+        }
+    }
+    
+    private fun writePage(out: CountingOutputStream, page: File, pageObject: Int) {
+        val contentsObject = pageObject + 1
+        val imageObject = pageObject + 2
+        
+        // JPEG이면 헤더만 읽고, 아니면 디코딩 후 JPEG로 다시 압축
+        val jpeg = readJpegInfo(page)
+        val info = jpeg ?: reencode(page)
+        
+        val pageHeight = PAGE_WIDTH_POINTS.toFloat() * info.height / info.width
+        val height = "%.2f".format(java.util.Locale.US, pageHeight)
+        
+        beginObject(out, pageObject)
+        out.writeAscii(
+            "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 $PAGE_WIDTH_POINTS $height] " +
+                "/Resources << /XObject << /Im0 $imageObject 0 R >> >> /Contents $contentsObject 0 R >>\nendobj\n"
+        )
+        
+        val contents = "q $PAGE_WIDTH_POINTS 0 0 $height 0 0 cm /Im0 Do Q"
+        beginObject(out, contentsObject)
+        out.writeAscii("<< /Length ${contents.length} >>\nstream\n$contents\nendstream\nendobj\n")
+        
+        val colorSpace = if (info.components == 1) "/DeviceGray" else "/DeviceRGB"
+        val length = if (jpeg != null) page.length() else encodeBuffer.size().toLong()
+        beginObject(out, imageObject)
+        out.writeAscii(
+            "<< /Type /XObject /Subtype /Image /Width ${info.width} /Height ${info.height} " +
+                "/ColorSpace $colorSpace /BitsPerComponent 8 /Filter /DCTDecode /Length $length >>\nstream\n"
+        )
+        if (jpeg != null) {
+            page.inputStream().use { input ->
+                while (true) {
+                    val read = input.read(copyBuffer)
+                    if (read < 0) break
+                    out.write(copyBuffer, 0, read)
+                }
+            }
+        } else {
+            encodeBuffer.writeTo(out)
+            encodeBuffer.reset()
+        }
+        out.writeAscii("\nendstream\nendobj\n")
+    }
+    
+    // 긴 변이 maxPagePixels 이하가 되도록 축소 디코딩한 뒤 encodeBuffer에 JPEG로 압축
+    private fun reencode(file: File): ImageInfo {
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        BitmapFactory.decodeFile(file.absolutePath, bounds)
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw IOException("페이지를 읽을 수 없습니다: ${file.name}")
+        }
+        
+        var sampleSize = 1
+        while (maxOf(bounds.outWidth, bounds.outHeight) / (sampleSize * 2) >= maxPagePixels) {
+            sampleSize *= 2
+        }
+        val options = BitmapFactory.Options().apply { inSampleSize = sampleSize }
+        val bitmap = BitmapFactory.decodeFile(file.absolutePath, options)
+            ?: throw IOException("페이지를 읽을 수 없습니다: ${file.name}")
+        
+        try {
+            encodeBuffer.reset()
+            bitmap.compress(Bitmap.CompressFormat.JPEG, REENCODE_QUALITY, encodeBuffer)
+            return ImageInfo(bitmap.width, bitmap.height, 3)
+        } finally {
+            bitmap.recycle()
+        }
+    }
+    
+    // JPEG SOF 마커에서 크기와 색 성분 수 읽기 (JPEG가 아니거나 지원하지 않으면 null)
+    private fun readJpegInfo(file: File): ImageInfo? {
+        try {
+            DataInputStream(file.inputStream().buffered()).use { input ->
+                if (input.readUnsignedShort() != 0xFFD8) return null
+                while (true) {
+                    var marker = input.readUnsignedByte()
+                    if (marker != 0xFF) return null
+                    while (marker == 0xFF) {
+                        marker = input.readUnsignedByte()
+                    }
+                    val length = input.readUnsignedShort()
+                    val isStartOfFrame = marker in 0xC0..0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC
+                    if (isStartOfFrame) {
+                        input.readUnsignedByte() // precision
+                        val height = input.readUnsignedShort()
+                        val width = input.readUnsignedShort()
+                        val components = input.readUnsignedByte()
+                        if (components != 1 && components != 3) return null
+                        return ImageInfo(width, height, components)
+                    }
+                    input.skipBytes(length - 2)
+                }
+            }
+        } catch (e: EOFException) {
+            return null
+        }
+    }
+    
+    private fun beginObject(out: CountingOutputStream, number: Int) {
+        while (offsets.size < number) {
+            offsets.add(0L)
+        }
+        offsets[number - 1] = out.count
+        out.writeAscii("$number 0 obj\n")
+    }
+    
+    private fun writeTrailer(out: CountingOutputStream) {
+        val xrefOffset = out.count
+        val xref = StringBuilder()
+        xref.append("xref\n0 ${offsets.size + 1}\n0000000000 65535 f \n")
+        for (offset in offsets) {
+            xref.append("%010d 00000 n \n".format(offset))
+        }
+        xref.append("trailer\n<< /Size ${offsets.size + 1} /Root 1 0 R >>\nstartxref\n$xrefOffset\n%%EOF\n")
+        out.writeAscii(xref.toString())
+    }
+    
+    private class ImageInfo(val width: Int, val height: Int, val components: Int)
+    
+    // 객체 위치 계산을 위해 쓴 바이트 수를 센다
+    private class CountingOutputStream(out: OutputStream) : FilterOutputStream(out) {
+        var count = 0L
+            private set
+        
+        override fun write(b: Int) {
+            out.write(b)
+            count++
+        }
+        
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            out.write(b, off, len)
+            count += len
+        }
+        
+        fun writeAscii(text: String) {
+            write(text.toByteArray(Charsets.ISO_8859_1))
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.example.myscanner.export
+
+import java.io.BufferedOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+// 여러 스캔을 하나의 zip으로 스트리밍 내보내기
+// JPEG/WebP/PNG는 이미 압축된 형식이라 다시 압축해도 줄지 않으므로 STORED(무압축) 항목으로 그대로 담는다
+// STORED 항목은 헤더에 크기와 CRC가 먼저 들어가야 하므로 파일을 한 번 읽어 CRC를 구한 뒤 다시 읽으며 복사한다
+// 파일 내용을 통째로 메모리에 올리지 않고 복사 버퍼 하나만 재사용한다
+// 시간이 걸리므로 메인 스레드가 아닌 곳에서 호출해야 한다
+class ZipExporter {
+    
+    companion object {
+        private const val COPY_BUFFER_SIZE = 64 * 1024
+        private val STORED_EXTENSIONS = setOf("jpg", "jpeg", "webp", "png", "pdf")
+    }
+    
+    private val copyBuffer = ByteArray(COPY_BUFFER_SIZE)
+    private val crc = CRC32()
+    
+    // 다른 스레드에서 취소 요청 (복사 버퍼 단위로 확인)
+    @Volatile
+    private var cancelled = false
+    
+    fun cancel() {
+        cancelled = true
+    }
+    
+    @Throws(IOException::class)
+    fun export(files: List<File>, output: File, onProgress: (Int, Int) -> Unit = { _, _ -> }): File {
+        val tempFile = File(output.parentFile, "${output.name}.tmp")
+        val names = HashSet<String>()
+        
+        try {
+            ZipOutputStream(BufferedOutputStream(FileOutputStream(tempFile), COPY_BUFFER_SIZE)).use { zip ->
+                files.forEachIndexed { index, file ->
+                    writeEntry(zip, file, uniqueName(file, names))
+                    onProgress(index + 1, files.size)
+                }
+            }
+            
+            if (!tempFile.renameTo(output)) {
+                throw IOException("zip 파일을 저장할 수 없습니다")
+            }
+            return output
+        } finally {
+            tempFile.delete()
+        }
+    }
+    
+    private fun writeEntry(zip: ZipOutputStream, file: File, name: String) {
+        val entry = ZipEntry(name)
+        entry.time = file.lastModified()
+        if (file.extension.lowercase() in STORED_EXTENSIONS) {
+            entry.method = ZipEntry.STORED
+            entry.size = file.length()
+            entry.compressedSize = entry.size
+            entry.crc = checksum(file)
+        } else {
+            entry.method = ZipEntry.DEFLATED
+        }
+        
+        zip.putNextEntry(entry)
+        FileInputStream(file).use { input ->
+            while (true) {
+                val read = input.read(copyBuffer)
+                if (read < 0) break
+                checkCancelled()
+                zip.write(copyBuffer, 0, read)
+            }
+        }
+        zip.closeEntry()
+    }
+    
+    private fun checksum(file: File): Long {
+        crc.reset()
+        FileInputStream(file).use { input ->
+            while (true) {
+                val read = input.read(copyBuffer)
+                if (read < 0) break
+                checkCancelled()
+                crc.update(copyBuffer, 0, read)
+            }
+        }
+        return crc.value
+    }
+    
+    // 다른 폴더의 같은 이름 파일이 섞여도 항목 이름이 겹치지 않도록 번호를 붙임
+    private fun uniqueName(file: File, names: MutableSet<String>): String {
+        var name = file.name
+        var suffix = 1
+        while (!names.add(name)) {
+            name = "${file.nameWithoutExtension}_${suffix++}.${file.extension}"
+        }
+        return name
+    }
+    
+    private fun checkCancelled() {
+        if (cancelled) throw InterruptedIOException("내보내기를 취소했습니다")
+    }
+}
\ No newline at end of file
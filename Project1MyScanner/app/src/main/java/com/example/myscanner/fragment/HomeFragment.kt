@@ -1,26 +1,76 @@
 package com.example.myscanner.fragment
 
 import android.content.Intent
+import android.net.Uri
 import android.os.Bundle
+import android.os.Handler
+import android.os.Looper
+import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
+import android.widget.Toast
+import androidx.activity.OnBackPressedCallback
+import androidx.activity.result.contract.ActivityResultContracts
+import androidx.appcompat.app.AlertDialog
 import androidx.core.content.FileProvider
 import androidx.core.view.isVisible
 import androidx.fragment.app.Fragment
 import androidx.recyclerview.widget.GridLayoutManager
 import com.example.myscanner.R
 import com.example.myscanner.adapter.PhotoAdapter
+import com.example.myscanner.capture.BatchImporter
+import com.example.myscanner.capture.PageEncoder
+import com.example.myscanner.catalog.ScanCatalog
 import com.example.myscanner.databinding.FragmentHomeBinding
+import com.example.myscanner.export.ZipExporter
 import com.google.android.material.dialog.MaterialAlertDialogBuilder
+import com.google.android.material.progressindicator.LinearProgressIndicator
 import java.io.File
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.text.SimpleDateFormat
+import java.util.Locale
+import java.util.concurrent.Executors
 
 class HomeFragment : Fragment() {
     
+    companion object {
+        private const val TAG = "HomeFragment"
+        private const val FILENAME_FORMAT = "yyyy-MM-dd-HHmmss"
+        private const val EXPORT_RETENTION_MS = 24 * 60 * 60 * 1000L // 공유한 zip 보관 기간
+    }
+    
     private var _binding: FragmentHomeBinding? = null
     private val binding get() = _binding!!
     
     private lateinit var photoAdapter: PhotoAdapter
+    private lateinit var batchImporter: BatchImporter
+    
+    // zip 내보내기 (한 번에 하나씩 백그라운드에서)
+    private val exportExecutor = Executors.newSingleThreadExecutor()
+    private val mainHandler = Handler(Looper.getMainLooper())
+    private var zipExporter: ZipExporter? = null
+    private var exportDialog: AlertDialog? = null
+    
+    // 선택 모드에서는 뒤로 가기로 선택 해제
+    private val selectionBackCallback = object : OnBackPressedCallback(false) {
+        override fun handleOnBackPressed() {
+            photoAdapter.clearSelection()
+        }
+    }
+    
+    // 여러 이미지 선택 (앱이 종료된 뒤 이어서 가져올 수 있도록 영구 권한 요청)
+    private val pickImagesLauncher = registerForActivityResult(
+        ActivityResultContracts.OpenMultipleDocuments()
+    ) { uris ->
+        if (uris.isNotEmpty()) {
+            startImport(uris.map { uri ->
+                takeReadPermission(uri)
+                uri.toString()
+            })
+        }
+    }
     
     override fun onCreateView(
         inflater: LayoutInflater,
@@ -35,30 +85,161 @@ class HomeFragment : Fragment() {
         super.onViewCreated(view, savedInstanceState)
         
         setupRecyclerView()
+        setupImport()
+        setupSelection()
         loadPhotos()
     }
     
-    private fun setupRecyclerView() {
-        photoAdapter = PhotoAdapter { photo ->
-            showPhotoOptions(photo)
+    private fun setupSelection() {
+        requireActivity().onBackPressedDispatcher.addCallback(viewLifecycleOwner, selectionBackCallback)
+        binding.btnShareZip.setOnClickListener {
+            exportSelectedAsZip()
+        }
+    }
+    
+    private fun setupImport() {
+        batchImporter = BatchImporter(requireContext())
+        
+        binding.btnImport.setOnClickListener {
+            if (photoAdapter.isSelectionMode) {
+                photoAdapter.clearSelection()
+            } else if (batchImporter.isRunning) {
+                batchImporter.cancel()
+            } else {
+                showImportOptions()
+            }
+        }
+        
+        // 이전 화면에서 시작한 가져오기가 아직 마무리 중이면 진행 상황을 이어받음
+        if (batchImporter.isRunning) {
+            batchImporter.attach(importListener)
+            setImportRunning(true)
+            return
         }
         
+        // 끝나지 않은 가져오기가 있으면 이어서 할지 확인
+        if (BatchImporter.hasPendingJob(requireContext())) {
+            MaterialAlertDialogBuilder(requireContext())
+                .setTitle("가져오기")
+                .setMessage("완료되지 않은 가져오기가 있습니다. 이어서 진행하시겠습니까?")
+                .setPositiveButton("이어서 진행") { _, _ ->
+                    setImportRunning(batchImporter.resume(importListener))
+                }
+                .setNegativeButton("취소") { _, _ ->
+                    batchImporter.discardPendingJob()
+                }
+                .show()
+        }
+    }
+    
+    private fun showImportOptions() {
+        val options = arrayOf("사진 선택해서 가져오기", "기존 사진 다시 처리")
+        
+        MaterialAlertDialogBuilder(requireContext())
+            .setTitle("가져오기")
+            .setItems(options) { _, which ->
+                when (which) {
+                    0 -> pickImagesLauncher.launch(arrayOf("image/*"))
+                    1 -> {
+                        val legacyPhotos = BatchImporter.findLegacyPhotos(requireContext())
+                        if (legacyPhotos.isEmpty()) {
+                            Toast.makeText(requireContext(), "다시 처리할 사진이 없습니다.", Toast.LENGTH_SHORT).show()
+                        } else {
+                            startImport(legacyPhotos)
+                        }
+                    }
+                }
+            }
+            .show()
+    }
+    
+    private fun startImport(sources: List<String>) {
+        if (batchImporter.start(sources, importListener)) {
+            setImportRunning(true)
+        } else {
+            Toast.makeText(requireContext(), "이전 가져오기를 마무리하는 중입니다.", Toast.LENGTH_SHORT).show()
+        }
+    }
+    
+    private fun takeReadPermission(uri: Uri) {
+        try {
+            requireContext().contentResolver.takePersistableUriPermission(uri, Intent.FLAG_GRANT_READ_URI_PERMISSION)
+        } catch (e: SecurityException) {
+            // 영구 권한을 주지 않는 제공자는 이번 실행 중에만 읽을 수 있음
+        }
+    }
+    
+    private val importListener = object : BatchImporter.Listener {
+        override fun onProgress(done: Int, total: Int) {
+            val binding = _binding ?: return
+            binding.importProgress.max = total
+            binding.importProgress.setProgressCompat(done, true)
+            binding.tvPhotoCount.text = getString(R.string.import_progress, done, total)
+        }
+        
+        override fun onFinished(done: Int, total: Int, cancelled: Boolean) {
+            if (_binding == null) return
+            setImportRunning(false)
+            loadPhotos()
+            
+            val message = if (cancelled) "가져오기를 중단했습니다 ($done/$total)" else "${total}개의 사진을 가져왔습니다."
+            Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show()
+        }
+    }
+    
+    private fun setImportRunning(running: Boolean) {
+        binding.importProgress.visibility = if (running) View.VISIBLE else View.GONE
+        updateHeader()
+    }
+    
+    // 선택 모드이면 선택 개수와 공유 버튼, 아니면 전체 개수와 가져오기 버튼 표시
+    private fun updateHeader() {
+        val selecting = photoAdapter.isSelectionMode
+        selectionBackCallback.isEnabled = selecting
+        binding.btnShareZip.isVisible = selecting
+        
+        if (selecting) {
+            val count = photoAdapter.selectedPhotos().size
+            binding.btnShareZip.isEnabled = count > 0
+            binding.tvPhotoCount.text = getString(R.string.selection_count, count)
+            binding.btnImport.setText(R.string.selection_cancel)
+        } else {
+            binding.tvPhotoCount.text = getString(R.string.scan_count, photoAdapter.itemCount)
+            binding.btnImport.setText(if (batchImporter.isRunning) R.string.import_cancel else R.string.import_photos)
+        }
+    }
+    
+    private fun setupRecyclerView() {
+        val catalog = ScanCatalog.get(requireContext())
+        photoAdapter = PhotoAdapter(
+            onItemClick = { photo -> showPhotoOptions(photo) },
+            isDuplicate = { photo -> catalog.isDuplicate(photo.name) },
+            onSelectionChanged = { if (_binding != null) updateHeader() }
+        )
+        
         binding.recyclerView.apply {
             layoutManager = GridLayoutManager(requireContext(), 3)
             adapter = photoAdapter
         }
+        
+        // 카탈로그 파일은 백그라운드에서 읽고, 읽은 뒤 중복 배지만 다시 그림
+        catalog.preload {
+            mainHandler.post {
+                if (_binding != null) photoAdapter.refreshDuplicates()
+            }
+        }
     }
     
     private fun loadPhotos() {
         val photosDir = File(requireContext().filesDir, "photos")
         if (photosDir.exists() && photosDir.isDirectory) {
             val photos = photosDir.listFiles()
-                ?.filter { it.extension == "jpg" }
+                ?.filter { file -> PageEncoder.Format.values().any { it.extension == file.extension } }
                 ?.sortedByDescending { it.lastModified() }
             
             if (!photos.isNullOrEmpty()) {
                 photoAdapter.setPhotos(photos)
-                binding.tvPhotoCount.text = getString(R.string.scan_count, photos.size)
+                updateHeader()
                 binding.recyclerView.isVisible = true
                 binding.tvEmptyState.isVisible = false
             } else {
@@ -70,6 +251,8 @@ class HomeFragment : Fragment() {
     }
     
     private fun showEmptyState() {
+        photoAdapter.setPhotos(emptyList())
+        photoAdapter.clearSelection()
         binding.recyclerView.isVisible = false
         binding.tvEmptyState.isVisible = true
         binding.tvPhotoCount.text = getString(R.string.scan_count, 0)
@@ -98,7 +281,7 @@ class HomeFragment : Fragment() {
         )
         
         val intent = Intent(Intent.ACTION_VIEW).apply {
-            setDataAndType(uri, "image/jpeg")
+            setDataAndType(uri, mimeType(photo))
             addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
         }
         
@@ -115,7 +298,98 @@ class HomeFragment : Fragment() {
         )
         
         val intent = Intent(Intent.ACTION_SEND).apply {
-            type = "image/jpeg"
+            type = mimeType(photo)
+            putExtra(Intent.EXTRA_STREAM, uri)
+            addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
+        }
+        
+        startActivity(Intent.createChooser(intent, "공유하기"))
+    }
+    
+    // 선택한 스캔을 zip 하나로 묶어 공유 (JPEG는 다시 압축하지 않고 그대로 담음)
+    private fun exportSelectedAsZip() {
+        val photos = photoAdapter.selectedPhotos()
+        if (photos.isEmpty() || zipExporter != null) return
+        
+        val context = requireContext()
+        val exporter = ZipExporter()
+        zipExporter = exporter
+        
+        val progressIndicator = LinearProgressIndicator(context).apply {
+            max = photos.size
+            setPadding(48, 32, 48, 0)
+        }
+        val progressDialog = MaterialAlertDialogBuilder(context)
+            .setTitle("zip 만드는 중")
+            .setView(progressIndicator)
+            .setCancelable(false)
+            .setNegativeButton("취소") { _, _ ->
+                exporter.cancel()
+            }
+            .show()
+        exportDialog = progressDialog
+        
+        val exportDir = File(context.cacheDir, "exports")
+        val name = SimpleDateFormat(FILENAME_FORMAT, Locale.KOREA)
+            .format(System.currentTimeMillis())
+        val zipFile = File(exportDir, "scans_$name.zip")
+        
+        exportExecutor.execute {
+            var cancelled = false
+            val result = try {
+                prepareExportDir(exportDir)
+                exporter.export(photos, zipFile) { done, total ->
+                    mainHandler.post {
+                        progressIndicator.setProgressCompat(done, true)
+                        progressDialog.setTitle("zip 만드는 중 ($done/$total)")
+                    }
+                }
+            } catch (e: InterruptedIOException) {
+                cancelled = true
+                null
+            } catch (e: IOException) {
+                Log.e(TAG, "zip 내보내기 실패", e)
+                null
+            }
+            
+            mainHandler.post {
+                zipExporter = null
+                exportDialog = null
+                if (_binding == null) return@post
+                progressDialog.dismiss()
+                
+                if (result == null) {
+                    if (!cancelled) {
+                        Toast.makeText(requireContext(), "zip 파일을 만들지 못했습니다.", Toast.LENGTH_SHORT).show()
+                    }
+                    return@post
+                }
+                photoAdapter.clearSelection()
+                shareZip(result)
+            }
+        }
+    }
+    
+    // 공유 대상 앱이 읽어 갈 시간을 두고 오래된 zip만 정리
+    private fun prepareExportDir(exportDir: File) {
+        if (!exportDir.exists()) {
+            exportDir.mkdirs()
+        }
+        val expired = System.currentTimeMillis() - EXPORT_RETENTION_MS
+        exportDir.listFiles()
+            ?.filter { it.lastModified() < expired }
+            ?.forEach { it.delete() }
+    }
+    
+    private fun shareZip(zipFile: File) {
+        val uri = FileProvider.getUriForFile(
+            requireContext(),
+            "${requireContext().packageName}.fileprovider",
+            zipFile
+        )
+        
+        val intent = Intent(Intent.ACTION_SEND).apply {
+            type = "application/zip"
             putExtra(Intent.EXTRA_STREAM, uri)
             addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
         }
@@ -123,6 +397,11 @@ class HomeFragment : Fragment() {
         startActivity(Intent.createChooser(intent, "공유하기"))
     }
     
+    // 촬영 형식 설정이나 보관 압축에 따라 JPEG 외의 형식도 있음
+    private fun mimeType(photo: File): String {
+        return PageEncoder.Format.values().firstOrNull { it.extension == photo.extension }?.mimeType ?: "image/jpeg"
+    }
+    
     private fun confirmDelete(photo: File) {
         MaterialAlertDialogBuilder(requireContext())
             .setTitle("삭제 확인")
@@ -136,6 +415,7 @@ class HomeFragment : Fragment() {
     
     private fun deletePhoto(photo: File) {
         if (photo.delete()) {
+            ScanCatalog.get(requireContext()).removeInBackground(photo.name)
             loadPhotos() // 목록 새로고침
         }
     }
@@ -147,6 +427,18 @@ class HomeFragment : Fragment() {
     
     override fun onDestroyView() {
         super.onDestroyView()
+        // 가져오기는 계속 진행하고, 다시 만들어진 화면이 attach로 진행 상황을 이어받음
+        // (멈추는 것은 사용자가 가져오기 버튼으로 취소할 때뿐)
+        batchImporter.detach(importListener)
+        // 화면이 사라지면 만들던 zip도 중단
+        zipExporter?.cancel()
+        exportDialog?.dismiss()
+        exportDialog = null
         _binding = null
     }
+    
+    override fun onDestroy() {
+        super.onDestroy()
+        exportExecutor.shutdown()
+    }
 }
\ No newline at end of file
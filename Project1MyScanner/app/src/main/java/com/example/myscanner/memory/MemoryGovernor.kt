@@ -0,0 +1,90 @@
+package com.example.myscanner.memory
+
+import android.app.ActivityManager
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.util.Log
+import java.util.concurrent.CopyOnWriteArrayList
+
+// 메모리 풀(썸네일 캐시, 프레임 버퍼, 피라미드 단계 등)을 한곳에서 관리
+// onTrimMemory / onLowMemory 수준에 따라 우선순위가 낮은 풀부터 비우고,
+// 풀 크기는 ActivityManager.memoryClass에 맞춰 정하도록 기준 값을 제공한다
+object MemoryGovernor {
+    
+    // 비우는 순서 (낮을수록 먼저)
+    const val PRIORITY_CACHE = 0 // 언제든 다시 만들 수 있는 캐시 (썸네일)
+    const val PRIORITY_PREVIEW = 1 // 화면 표시용 버퍼
+    const val PRIORITY_PROCESSING = 2 // 처리 중 재사용하는 버퍼 (프레임, 피라미드)
+    
+    private const val TAG = "MemoryGovernor"
+    private const val BASELINE_MEMORY_CLASS = 256 // 이 등급에서 기본 크기 그대로 사용 (MB)
+    private const val CONSTRAINED_MEMORY_CLASS = 192
+    
+    interface Pool {
+        val name: String
+        val priority: Int
+        
+        // aggressive이면 가능한 한 전부 해제 (다시 필요할 때 새로 할당)
+        fun trim(aggressive: Boolean)
+    }
+    
+    private val pools = CopyOnWriteArrayList<Pool>()
+    
+    // 앱 힙 등급 (MB)
+    var memoryClass = BASELINE_MEMORY_CLASS
+        private set
+    
+    // 메모리가 적은 기기 (풀을 작게 잡고 캐시를 덜 씀)
+    var isConstrained = false
+        private set
+    
+    fun init(context: Context) {
+        val activityManager = context.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+        memoryClass = activityManager.memoryClass
+        isConstrained = activityManager.isLowRamDevice || memoryClass <= CONSTRAINED_MEMORY_CLASS
+        Log.d(TAG, "memoryClass=${memoryClass}MB, constrained=$isConstrained")
+    }
+    
+    fun register(pool: Pool) {
+        pools.addIfAbsent(pool)
+    }
+    
+    fun unregister(pool: Pool) {
+        pools.remove(pool)
+    }
+    
+    // 기본 크기를 힙 등급 비율로 조정 (절반 ~ 기본 크기)
+    fun scaledSize(baseSize: Int): Int {
+        val scale = (memoryClass.toFloat() / BASELINE_MEMORY_CLASS).coerceIn(0.5f, 1f)
+        return (baseSize * scale).toInt().coerceAtLeast(1)
+    }
+    
+    @Suppress("DEPRECATION")
+    fun onTrimMemory(level: Int) {
+        when {
+            // 거의 종료 직전이거나 실행 중인데 매우 부족
+            level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> shed(PRIORITY_PROCESSING, aggressive = true)
+            // 실행 중 부족하거나 백그라운드 목록 중간
+            level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> shed(PRIORITY_PREVIEW, aggressive = false)
+            // 화면이 가려졌거나 약간 부족
+            else -> shed(PRIORITY_CACHE, aggressive = false)
+        }
+    }
+    
+    fun onLowMemory() {
+        shed(PRIORITY_PROCESSING, aggressive = true)
+    }
+    
+    // maxPriority 이하의 풀을 우선순위 순서대로 비움
+    private fun shed(maxPriority: Int, aggressive: Boolean) {
+        for (priority in PRIORITY_CACHE..maxPriority) {
+            for (pool in pools) {
+                if (pool.priority != priority) continue
+                Log.d(TAG, "trim ${pool.name} (aggressive=$aggressive)")
+                pool.trim(aggressive)
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.example.myscanner.session
+
+import android.app.Application
+import android.content.ContentValues
+import android.os.Build
+import android.os.Handler
+import android.os.Looper
+import android.provider.MediaStore
+import android.util.Log
+import androidx.lifecycle.AndroidViewModel
+import com.example.myscanner.capture.CapturePipeline
+import com.example.myscanner.capture.PageProcessor
+import com.example.myscanner.catalog.ScanCatalog
+import java.io.File
+
+// 화면 회전 등으로 카메라 액티비티가 다시 만들어져도 스캔 세션과 촬영 후 처리를 유지
+// 처리 중이던 페이지는 액티비티가 없는 사이에 끝나도 여기서 세션에 추가된다
+class CaptureViewModel(application: Application) : AndroidViewModel(application) {
+    
+    interface Listener {
+        // 메인 스레드에서 호출 (실패 시 null)
+        fun onPageProcessed(file: File?)
+    }
+    
+    companion object {
+        private const val TAG = "CaptureViewModel"
+    }
+    
+    var session = ScanSession()
+        private set
+    private var restored = false
+    
+    // 메인 스레드에서만 바꾸고 읽음 (액티비티가 없으면 null)
+    var listener: Listener? = null
+    
+    private val mainHandler = Handler(Looper.getMainLooper())
+    
+    // 촬영하지 않고 닫으면 만들지 않도록 처음 촬영할 때 생성
+    private val pipelineDelegate = lazy { CapturePipeline(ScanCatalog.get(application)) }
+    private val capturePipeline by pipelineDelegate
+    
+    // 프로세스가 종료됐다 다시 시작된 경우에만 저장해 둔 경로로 세션 복원
+    fun restore(paths: List<String>?) {
+        if (restored) return
+        restored = true
+        if (session.pageCount == 0) {
+            session = ScanSession.fromPaths(paths)
+        }
+    }
+    
+    // 회전 보정과 인코딩은 백그라운드에서 처리하므로 바로 다음 촬영 가능
+    fun submit(photoFile: File, options: PageProcessor.Options) {
+        capturePipeline.submit(photoFile, options) { savedFile ->
+            // MediaStore에도 저장 (갤러리에 표시되도록)
+            savedFile?.let { saveToMediaStore(it, options.format.mimeType) }
+            
+            mainHandler.post {
+                savedFile?.let { session.addPage(it) }
+                listener?.onPageProcessed(savedFile)
+            }
+        }
+    }
+    
+    private fun saveToMediaStore(photoFile: File, mimeType: String) {
+        try {
+            val contentValues = ContentValues().apply {
+                put(MediaStore.MediaColumns.DISPLAY_NAME, photoFile.name)
+                put(MediaStore.MediaColumns.MIME_TYPE, mimeType)
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                    put(MediaStore.MediaColumns.RELATIVE_PATH, "Pictures/MyScanner")
+                }
+            }
+            
+            val resolver = getApplication<Application>().contentResolver
+            val uri = resolver.insert(
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                contentValues
+            )
+            
+            uri?.let {
+                resolver.openOutputStream(it)?.use { outputStream ->
+                    photoFile.inputStream().use { inputStream ->
+                        inputStream.copyTo(outputStream)
+                    }
+                }
+            }
+        } catch (e: Exception) {
+            Log.e(TAG, "MediaStore 저장 실패", e)
+        }
+    }
+    
+    // 대기 중인 페이지는 마저 처리한 뒤 종료 (만든 적이 없으면 건너뜀)
+    override fun onCleared() {
+        listener = null
+        if (pipelineDelegate.isInitialized()) {
+            capturePipeline.shutdown()
+        }
+    }
+}
\ No newline at end of file
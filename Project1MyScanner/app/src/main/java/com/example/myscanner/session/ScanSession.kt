@@ -0,0 +1,48 @@
+package com.example.myscanner.session
+
+import java.io.File
+
+// 여러 페이지를 하나의 문서로 묶는 스캔 세션 (촬영 순서 = 페이지 순서)
+class ScanSession {
+    
+    private val pages = mutableListOf<File>()
+    
+    val pageCount get() = pages.size
+    
+    // 내보내기 등 다른 스레드에서 쓸 수 있도록 복사본 반환
+    fun pages(): List<File> = pages.toList()
+    
+    fun addPage(file: File) {
+        pages.add(file)
+    }
+    
+    // from 위치의 페이지를 to 위치로 이동
+    fun movePage(from: Int, to: Int) {
+        if (from !in pages.indices || to !in pages.indices || from == to) return
+        val page = pages.removeAt(from)
+        pages.add(to, page)
+    }
+    
+    // 세션에서 빼고 파일도 삭제
+    fun removePage(index: Int): Boolean {
+        if (index !in pages.indices) return false
+        return pages.removeAt(index).delete()
+    }
+    
+    fun clear() {
+        pages.clear()
+    }
+    
+    // 화면 회전 등으로 액티비티가 다시 만들어질 때 보존용
+    fun toPaths(): ArrayList<String> = ArrayList(pages.map { it.absolutePath })
+    
+    companion object {
+        fun fromPaths(paths: List<String>?): ScanSession {
+            val session = ScanSession()
+            paths?.map { File(it) }
+                ?.filter { it.exists() }
+                ?.forEach { session.addPage(it) }
+            return session
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.example.myscanner.view
+
+import android.content.Context
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.Path
+import android.os.SystemClock
+import android.util.AttributeSet
+import android.view.View
+import androidx.core.content.ContextCompat
+import com.example.myscanner.R
+import com.example.myscanner.core.QuadHandoff
+import kotlin.math.abs
+import kotlin.math.exp
+import kotlin.math.max
+
+// 미리보기 위에 검출된 문서 윤곽과 꼭짓점 핸들을 그리는 뷰
+// 좌표는 분석 스레드에서 submit()으로 받고, 다음 검출까지 화면 주사율로 부드럽게 이동한다
+// 그리기 중에는 객체를 새로 만들지 않는다
+class QuadOverlayView @JvmOverloads constructor(
+    context: Context,
+    attrs: AttributeSet? = null,
+    defStyleAttr: Int = 0
+) : View(context, attrs, defStyleAttr) {
+    
+    companion object {
+        private const val ANIMATION_TIME_MS = 80f // 목표 위치로 수렴하는 시간 상수
+        private const val FILL_ALPHA = 48
+    }
+    
+    private val handoff = QuadHandoff()
+    private val latest = FloatArray(QuadHandoff.SIZE)
+    private val target = FloatArray(8)
+    private val current = FloatArray(8)
+    private var outlineAlpha = 0f
+    private var targetAlpha = 0f
+    private var lastFrameTime = 0L
+    
+    private val path = Path()
+    private val density = resources.displayMetrics.density
+    private val handleRadius = 8 * density
+    
+    private val strokePaint = Paint(Paint.ANTI_ALIAS_FLAG).apply {
+        style = Paint.Style.STROKE
+        strokeWidth = 3 * density
+        strokeJoin = Paint.Join.ROUND
+        color = ContextCompat.getColor(context, R.color.primary)
+    }
+    
+    private val fillPaint = Paint(Paint.ANTI_ALIAS_FLAG).apply {
+        style = Paint.Style.FILL
+        color = ContextCompat.getColor(context, R.color.primary)
+    }
+    
+    private val handlePaint = Paint(Paint.ANTI_ALIAS_FLAG).apply {
+        style = Paint.Style.FILL
+        color = ContextCompat.getColor(context, R.color.white)
+    }
+    
+    // 분석 스레드에서 호출: 회전이 적용된 원본 좌표 (null이면 문서 없음)
+    fun submit(points: FloatArray?, sourceWidth: Int, sourceHeight: Int) {
+        handoff.publish(points, sourceWidth, sourceHeight)
+        postInvalidateOnAnimation()
+    }
+    
+    override fun onDraw(canvas: Canvas) {
+        super.onDraw(canvas)
+        
+        if (handoff.take(latest)) {
+            applyLatest()
+        }
+        
+        // 경과 시간에 맞춰 목표 위치와 투명도로 수렴
+        val now = SystemClock.uptimeMillis()
+        val elapsed = if (lastFrameTime == 0L) 16L else now - lastFrameTime
+        lastFrameTime = now
+        val t = 1f - exp(-elapsed / ANIMATION_TIME_MS)
+        
+        var animating = false
+        for (i in 0 until 8) {
+            val diff = target[i] - current[i]
+            if (abs(diff) > 0.5f) {
+                current[i] += diff * t
+                animating = true
+            } else {
+                current[i] = target[i]
+            }
+        }
+        val alphaDiff = targetAlpha - outlineAlpha
+        if (abs(alphaDiff) > 0.01f) {
+            outlineAlpha += alphaDiff * t
+            animating = true
+        } else {
+            outlineAlpha = targetAlpha
+        }
+        
+        if (outlineAlpha > 0f) {
+            drawQuad(canvas)
+        }
+        
+        if (animating) {
+            postInvalidateOnAnimation()
+        } else {
+            lastFrameTime = 0L
+        }
+    }
+    
+    // 원본 좌표를 PreviewView의 FILL_CENTER 배치에 맞춰 뷰 좌표로 변환
+    private fun applyLatest() {
+        if (latest[QuadHandoff.INDEX_FOUND] == 0f) {
+            targetAlpha = 0f
+            return
+        }
+        
+        val sourceWidth = latest[QuadHandoff.INDEX_WIDTH]
+        val sourceHeight = latest[QuadHandoff.INDEX_HEIGHT]
+        val scale = max(width / sourceWidth, height / sourceHeight)
+        val offsetX = (width - sourceWidth * scale) / 2f
+        val offsetY = (height - sourceHeight * scale) / 2f
+        for (i in 0 until 4) {
+            target[i * 2] = latest[i * 2] * scale + offsetX
+            target[i * 2 + 1] = latest[i * 2 + 1] * scale + offsetY
+        }
+        
+        // 보이지 않던 상태에서는 날아오지 않고 바로 그 자리에 나타나도록
+        if (outlineAlpha == 0f) {
+            target.copyInto(current)
+        }
+        targetAlpha = 1f
+    }
+    
+    private fun drawQuad(canvas: Canvas) {
+        path.reset()
+        path.moveTo(current[0], current[1])
+        for (i in 1 until 4) {
+            path.lineTo(current[i * 2], current[i * 2 + 1])
+        }
+        path.close()
+        
+        fillPaint.alpha = (FILL_ALPHA * outlineAlpha).toInt()
+        strokePaint.alpha = (255 * outlineAlpha).toInt()
+        handlePaint.alpha = (255 * outlineAlpha).toInt()
+        
+        canvas.drawPath(path, fillPaint)
+        canvas.drawPath(path, strokePaint)
+        for (i in 0 until 4) {
+            canvas.drawCircle(current[i * 2], current[i * 2 + 1], handleRadius, handlePaint)
+            canvas.drawCircle(current[i * 2], current[i * 2 + 1], handleRadius, strokePaint)
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.example.myscanner.core
+
+import java.awt.image.BufferedImage
+import java.io.File
+import java.util.Properties
+import javax.imageio.ImageIO
+import kotlin.math.abs
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+
+// 단계별 골든 출력 비교
+// -Pgolden.record=true 로 실행하면 현재 출력을 골든으로 기록하고 통과시킨다
+// 기록 모드가 아닌데 골든 파일이 없으면 실패 (골든을 빠뜨린 채 커밋해도 조용히 통과하지 않도록)
+// (처리 결과를 의도적으로 바꾼 경우 기록 모드로 다시 만든 뒤 diff를 검토해서 커밋)
+object GoldenFiles {
+    
+    private val directory = File(System.getProperty("golden.dir") ?: "src/test/resources/golden")
+    private val recordAll = System.getProperty("golden.record") == "true"
+    
+    // 이미지 비교 허용 오차
+    private const val MAX_MEAN_DIFF = 1.0 // 평균 절대 차이
+    private const val PIXEL_TOLERANCE = 8 // 이보다 크게 다른 픽셀을 불일치로 셈
+    private const val MAX_MISMATCH_RATIO = 0.002 // 불일치 픽셀 비율
+    
+    // 8비트 그레이스케일 PNG 골든과 비교
+    fun checkImage(name: String, width: Int, height: Int, pixels: ByteArray) {
+        val file = File(directory, "$name.png")
+        if (recordAll) {
+            file.parentFile.mkdirs()
+            val image = BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY)
+            image.raster.setDataElements(0, 0, width, height, pixels.copyOf(width * height))
+            ImageIO.write(image, "png", file)
+            println("골든 기록: ${file.path}")
+            return
+        }
+        requireGolden(file)
+        
+        val golden = ImageIO.read(file)
+        assertEquals("$name 너비", golden.width, width)
+        assertEquals("$name 높이", golden.height, height)
+        val expected = ByteArray(width * height)
+        golden.raster.getDataElements(0, 0, width, height, expected)
+        
+        var diffSum = 0L
+        var mismatches = 0
+        for (i in 0 until width * height) {
+            val diff = abs((expected[i].toInt() and 0xFF) - (pixels[i].toInt() and 0xFF))
+            diffSum += diff
+            if (diff > PIXEL_TOLERANCE) mismatches++
+        }
+        val meanDiff = diffSum.toDouble() / (width * height)
+        val mismatchRatio = mismatches.toDouble() / (width * height)
+        assertTrue("$name 평균 차이 $meanDiff", meanDiff <= MAX_MEAN_DIFF)
+        assertTrue("$name 불일치 비율 $mismatchRatio", mismatchRatio <= MAX_MISMATCH_RATIO)
+    }
+    
+    // ARGB 회색 픽셀은 한 채널만 비교
+    fun checkImage(name: String, width: Int, height: Int, argb: IntArray) {
+        val gray = ByteArray(width * height) { argb[it].toByte() }
+        checkImage(name, width, height, gray)
+    }
+    
+    // 숫자 결과 비교 (key=value 텍스트, NaN은 "검출 안 됨")
+    fun checkValues(name: String, values: FloatArray, tolerance: Float) {
+        val file = File(directory, "$name.txt")
+        if (recordAll) {
+            file.parentFile.mkdirs()
+            // 기록할 때마다 diff가 생기지 않도록 날짜 주석 없이 직접 기록
+            file.writeText(values.indices.joinToString("\n", postfix = "\n") { "v$it=${values[it]}" })
+            println("골든 기록: ${file.path}")
+            return
+        }
+        requireGolden(file)
+        
+        val properties = Properties()
+        file.bufferedReader().use { properties.load(it) }
+        assertEquals("$name 값 개수", properties.size, values.size)
+        for (i in values.indices) {
+            val expected = properties.getProperty("v$i")?.toFloat() ?: throw AssertionError("$name v$i 없음")
+            val actual = values[i]
+            if (expected.isNaN() || actual.isNaN()) {
+                assertEquals("$name v$i 검출 여부", expected.isNaN(), actual.isNaN())
+            } else {
+                assertEquals("$name v$i", expected, actual, tolerance)
+            }
+        }
+    }
+    
+    private fun requireGolden(file: File) {
+        if (!file.exists()) {
+            throw AssertionError("골든 없음: ${file.path} (-Pgolden.record=true 로 기록한 뒤 검토해서 커밋)")
+        }
+    }
+}
\ No newline at end of file
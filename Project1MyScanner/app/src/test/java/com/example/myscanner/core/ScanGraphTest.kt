@@ -0,0 +1,98 @@
+package com.example.myscanner.core
+
+import kotlin.math.sqrt
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+// 단계 그래프의 형식 검사, 단계 합치기, 합친 결과가 단계별로 따로 처리한 것과 같은지 확인
+class ScanGraphTest {
+    
+    private val page = SyntheticFrames.page(SyntheticFrames.Case.SHADOW)
+    
+    @Test
+    fun fusesPointStages() {
+        assertEquals("scan", listOf("contrast+convert"), ScanGraph.scan().opNames())
+        assertEquals("edges", listOf("contrast+edges+convert"), ScanGraph.edges().opNames())
+        
+        val graph = ScanGraph(
+            ScanGraph.Stage.Contrast(1.5f),
+            ScanGraph.Stage.Contrast(1.2f),
+            ScanGraph.Stage.Edges(),
+            ScanGraph.Stage.Contrast(1.8f)
+        )
+        assertEquals("chain", listOf("contrast+contrast+edges", "contrast"), graph.opNames())
+    }
+    
+    @Test
+    fun rejectsMismatchedFormats() {
+        val rejected = try {
+            ScanGraph(ScanGraph.Stage.Convert(), ScanGraph.Stage.Contrast(1.5f))
+            false
+        } catch (e: IllegalArgumentException) {
+            true
+        }
+        assertTrue("ARGB 출력 뒤에 휘도 단계를 허용함", rejected)
+    }
+    
+    // 대비 두 번 -> 엣지를 합친 결과와 픽셀마다 직접 계산한 결과 비교
+    @Test
+    fun fusedMatchesSeparateStages() {
+        val graph = ScanGraph(
+            ScanGraph.Stage.Contrast(1.5f),
+            ScanGraph.Stage.Contrast(1.2f),
+            ScanGraph.Stage.Edges()
+        )
+        val output = graph.run(page).gray
+        
+        val first = ToneLut.contrast(1.5f)
+        val second = ToneLut.contrast(1.2f)
+        val width = page.width
+        val toned = IntArray(width * page.height) { second[first[page.data[it].toInt() and 0xFF]] }
+        assertEquals("width", width.toLong(), output.width.toLong())
+        assertEquals("height", page.height.toLong(), output.height.toLong())
+        for (y in 1 until page.height - 1) {
+            for (x in 1 until width - 1) {
+                val i = y * width + x
+                val gx = (toned[i - width + 1] + 2 * toned[i + 1] + toned[i + width + 1]) -
+                    (toned[i - width - 1] + 2 * toned[i - 1] + toned[i + width - 1])
+                val gy = (toned[i + width - 1] + 2 * toned[i + width] + toned[i + width + 1]) -
+                    (toned[i - width - 1] + 2 * toned[i - width] + toned[i - width + 1])
+                val expected = 255 - sqrt((gx * gx + gy * gy).toFloat()).toInt().coerceAtMost(255)
+                assertEquals("($x, $y)", expected.toLong(), output[x, y].toLong())
+            }
+        }
+    }
+    
+    @Test
+    fun reportsStageTimes() {
+        val names = ArrayList<String>()
+        val graph = ScanGraph(
+            ScanGraph.Stage.Contrast(1.5f),
+            ScanGraph.Stage.Edges(),
+            ScanGraph.Stage.Contrast(1.2f),
+            ScanGraph.Stage.Convert()
+        )
+        graph.onStageTimed = { name, nanos ->
+            assertTrue("음수 시간", nanos >= 0)
+            names.add(name)
+        }
+        graph.run(page, 90)
+        assertEquals("timed", listOf("contrast+edges", "contrast+convert"), names)
+        assertEquals("width", page.height.toLong(), graph.width.toLong())
+    }
+    
+    // 워밍업 후에는 버퍼를 재사용해 프레임마다 할당하지 않아야 함
+    @Test
+    fun reusesBuffers() {
+        val graph = ScanGraph(
+            ScanGraph.Stage.Contrast(1.8f),
+            ScanGraph.Stage.Edges(),
+            ScanGraph.Stage.Contrast(1.2f),
+            ScanGraph.Stage.Convert()
+        )
+        StageBudget("scanGraph", maxMillis = 8.0, maxBytes = 512L).check {
+            graph.run(page, 90)
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,316 @@
+package com.example.myscanner.core
+
+import java.nio.ByteBuffer
+import kotlin.math.abs
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+// 스캐너 핵심 처리 단계의 골든 회귀 테스트
+// 대표 상황(깨끗한 페이지, 반사광, 그림자, 기울어짐, 어두운 환경)마다 단계 출력을 골든과 비교하고,
+// 분석기 프레임 예산 안에서 돌고 프레임마다 새로 할당하지 않는지 함께 검사한다
+// 단계 구성과 크기는 DocumentAnalyzer / PageProcessor와 같게 맞춘다
+class ScannerGoldenTest {
+    
+    companion object {
+        private const val SEARCH_SIZE = 480
+        private const val HOUGH_LEVEL = 1 // 직선 검출은 검색 피라미드의 한 단계 아래 (240px)
+        private const val PYRAMID_LEVELS = 3
+        private const val SCAN_CONTRAST = 1.8f
+        private const val EDGE_CONTRAST = 2.2f
+        
+        private const val QUAD_TOLERANCE = 1.5f // 골든 대비 꼭짓점 허용 오차 (px)
+        private const val TRUTH_TOLERANCE = 6f // 실제 페이지 꼭짓점 대비 허용 오차 (px)
+        private const val SKEW_TOLERANCE = 0.15f // 도
+        private const val BOUNDS_TOLERANCE = 2 // 글자 영역 경계 허용 오차 (px)
+        private const val MIN_TEXT_LINES = 12
+        
+        // 촬영 사진 크기 (12MP)와 PageProcessor의 기울기 추정용 축소 크기
+        private const val PHOTO_WIDTH = 4000
+        private const val PHOTO_HEIGHT = 3000
+        private const val DESKEW_ANALYSIS_SIZE = 800
+        
+        // 재사용 버퍼가 있는 단계는 워밍업 후 할당이 없어야 함 (ByteBuffer 복제 등 약간의 여유)
+        private const val STEADY_BYTES = 512L
+        
+        // 상황별 프레임은 만드는 데 시간이 걸리므로 한 번만 생성
+        private val frames = HashMap<SyntheticFrames.Case, GrayImage>()
+        private val pages = HashMap<SyntheticFrames.Case, GrayImage>()
+        
+        private fun frame(case: SyntheticFrames.Case) = frames.getOrPut(case) { SyntheticFrames.frame(case) }
+        
+        private fun page(case: SyntheticFrames.Case) = pages.getOrPut(case) { SyntheticFrames.page(case) }
+    }
+    
+    private val cases = SyntheticFrames.Case.values()
+    private val reader = PlaneReader()
+    
+    // 카메라 Y 평면처럼 PlaneReader로 감싸서 분석기와 같은 경로로 샘플링
+    private fun sample(source: GrayImage, maxSize: Int, out: GrayImage): GrayImage {
+        reader.wrap(ByteBuffer.wrap(source.data), source.width, source.height, source.width, 1)
+        return reader.sample(out, maxSize)
+    }
+    
+    private fun quadValues(quad: Quad?): FloatArray =
+        quad?.points?.copyOf() ?: FloatArray(8) { Float.NaN }
+    
+    @Test
+    fun pyramid() {
+        val luminance = GrayImage()
+        val pyramid = ImagePyramid(PYRAMID_LEVELS)
+        for (case in cases) {
+            sample(frame(case), SEARCH_SIZE, luminance)
+            pyramid.build(luminance)
+            val coarse = pyramid.coarsest()
+            GoldenFiles.checkImage("${case.name.lowercase()}_pyramid", coarse.width, coarse.height, coarse.data)
+        }
+        
+        StageBudget("pyramid", maxMillis = 2.0, maxBytes = STEADY_BYTES).check {
+            pyramid.build(sample(frame(SyntheticFrames.Case.CLEAN), SEARCH_SIZE, luminance))
+        }
+    }
+    
+    @Test
+    fun detectAndTrack() {
+        val luminance = GrayImage()
+        val pyramid = ImagePyramid(PYRAMID_LEVELS)
+        val truth = Quad()
+        for (case in cases) {
+            val tracker = DocumentTracker()
+            sample(frame(case), SEARCH_SIZE, luminance)
+            val found = tracker.detect(pyramid.build(luminance))
+            GoldenFiles.checkValues("${case.name.lowercase()}_detect", quadValues(if (found) tracker.quad else null), QUAD_TOLERANCE)
+            
+            // 검출했다면 실제 페이지 위치여야 하고, 같은 프레임에서 추적도 유지되어야 함
+            if (found) {
+                SyntheticFrames.pageCorners(case, truth)
+                val error = tracker.quad.maxDistance(truth)
+                assertTrue("$case 꼭짓점 오차 ${error}px", error <= TRUTH_TOLERANCE)
+                assertTrue("$case 추적 실패", tracker.track(pyramid))
+            }
+        }
+        
+        val tracker = DocumentTracker()
+        sample(frame(SyntheticFrames.Case.CLEAN), SEARCH_SIZE, luminance)
+        pyramid.build(luminance)
+        StageBudget("detect", maxMillis = 4.0, maxBytes = STEADY_BYTES).check {
+            tracker.detect(pyramid)
+        }
+        StageBudget("track", maxMillis = 1.0, maxBytes = STEADY_BYTES).check {
+            tracker.track(pyramid)
+        }
+    }
+    
+    @Test
+    fun houghQuad() {
+        val luminance = GrayImage()
+        val pyramid = ImagePyramid(PYRAMID_LEVELS)
+        val detector = HoughLineDetector()
+        val quad = Quad()
+        val truth = Quad()
+        for (case in cases) {
+            pyramid.build(sample(frame(case), SEARCH_SIZE, luminance))
+            val found = detector.findQuad(pyramid.level(HOUGH_LEVEL), quad)
+            GoldenFiles.checkValues("${case.name.lowercase()}_hough", quadValues(if (found) quad else null), QUAD_TOLERANCE)
+            
+            if (found) {
+                SyntheticFrames.pageCorners(case, truth)
+                val error = quad.maxDistance(truth)
+                assertTrue("$case 직선 교점 오차 ${error}px", error <= TRUTH_TOLERANCE)
+            }
+        }
+        
+        pyramid.build(sample(frame(SyntheticFrames.Case.CLEAN), SEARCH_SIZE, luminance))
+        StageBudget("hough", maxMillis = 12.0, maxBytes = STEADY_BYTES).check {
+            detector.findQuad(pyramid.level(HOUGH_LEVEL), quad)
+        }
+    }
+    
+    // 미리보기와 같은 ScanGraph 경로 (대비 + 변환이 한 번의 순회로 합쳐짐)
+    @Test
+    fun renderScan() {
+        val luminance = GrayImage()
+        val graph = ScanGraph.scan(SCAN_CONTRAST)
+        for (case in cases) {
+            sample(frame(case), SEARCH_SIZE, luminance)
+            // 세로 화면에서 보는 것처럼 90도 회전 출력
+            graph.run(luminance, 90)
+            GoldenFiles.checkImage("${case.name.lowercase()}_scan", graph.width, graph.height, graph.pixels)
+        }
+        
+        StageBudget("renderScan", maxMillis = 3.0, maxBytes = STEADY_BYTES).check {
+            graph.run(luminance, 90)
+        }
+    }
+    
+    @Test
+    fun renderEdges() {
+        val luminance = GrayImage()
+        val graph = ScanGraph.edges(EDGE_CONTRAST)
+        for (case in cases) {
+            sample(frame(case), SEARCH_SIZE, luminance)
+            graph.run(luminance)
+            GoldenFiles.checkImage("${case.name.lowercase()}_edges", graph.width, graph.height, graph.pixels)
+        }
+        
+        StageBudget("renderEdges", maxMillis = 20.0, maxBytes = STEADY_BYTES).check {
+            graph.run(luminance)
+        }
+    }
+    
+    @Test
+    fun skew() {
+        val estimator = SkewEstimator()
+        for (case in cases) {
+            val angle = estimator.estimate(page(case))
+            GoldenFiles.checkValues("${case.name.lowercase()}_skew", floatArrayOf(angle), SKEW_TOLERANCE)
+        }
+        
+        // 글자가 없는 프레임(책상 위 빈 종이처럼 보이는 경우)에서는 보정하지 않아야 함
+        val blank = GrayImage(SyntheticFrames.WIDTH, SyntheticFrames.HEIGHT)
+        blank.data.fill(200.toByte())
+        assertTrue(estimator.estimate(blank).isNaN())
+    }
+    
+    // 촬영 후 기울기 보정 단계 전체 (축소본 추정 + 원본 해상도 회색조 회전)
+    @Test
+    fun deskew() {
+        val source = page(SyntheticFrames.Case.SKEW)
+        val photo = IntArray(PHOTO_WIDTH * PHOTO_HEIGHT)
+        for (y in 0 until PHOTO_HEIGHT) {
+            val row = y * source.height / PHOTO_HEIGHT * source.width
+            for (x in 0 until PHOTO_WIDTH) {
+                val gray = source.data[row + x * source.width / PHOTO_WIDTH].toInt() and 0xFF
+                photo[y * PHOTO_WIDTH + x] = -0x1000000 or (gray * 0x010101)
+            }
+        }
+        val rotated = IntArray(PHOTO_WIDTH * PHOTO_HEIGHT)
+        val pixelSource = object : TileRotator.PixelSource {
+            override fun read(x: Int, y: Int, width: Int, height: Int, dst: IntArray) {
+                for (row in 0 until height) {
+                    System.arraycopy(photo, (y + row) * PHOTO_WIDTH + x, dst, row * width, width)
+                }
+            }
+        }
+        val pixelSink = object : TileRotator.PixelSink {
+            override fun write(x: Int, y: Int, width: Int, height: Int, src: IntArray) {
+                for (row in 0 until height) {
+                    System.arraycopy(src, row * width, rotated, (y + row) * PHOTO_WIDTH + x, width)
+                }
+            }
+        }
+        val estimator = SkewEstimator()
+        val rotator = TileRotator()
+        val small = GrayImage(0, 0)
+        var angle = 0f
+        
+        StageBudget("deskew", maxMillis = 150.0, maxBytes = STEADY_BYTES).check {
+            angle = estimator.estimate(shrink(photo, small))
+            rotator.rotate(PHOTO_WIDTH, PHOTO_HEIGHT, -angle, -1, pixelSource, pixelSink, grayscale = true)
+        }
+        
+        // 원래 페이지와 같은 기울기를 찾고, 회전한 결과는 반듯해야 함
+        assertTrue("추정 $angle°", abs(angle - estimator.estimate(source)) <= SKEW_TOLERANCE)
+        val residual = estimator.estimate(shrink(rotated, small))
+        assertTrue("보정 후 $residual°", residual.isNaN() || abs(residual) <= SKEW_TOLERANCE)
+        
+        // 컬러 페이지: 누렇게 찍힌 종이, 밝기 축소본으로 추정만 하고 회전은 생략 (PageProcessor와 같음)
+        val colorPhoto = IntArray(PHOTO_WIDTH * PHOTO_HEIGHT)
+        for (i in photo.indices) {
+            val v = photo[i] and 0xFF
+            colorPhoto[i] = -0x1000000 or (v shl 16) or ((v * 15 / 16) shl 8) or (v * 3 / 4)
+        }
+        var colorAngle = 0f
+        StageBudget("deskew color", maxMillis = 150.0, maxBytes = STEADY_BYTES).check {
+            colorAngle = estimator.estimate(shrink(colorPhoto, small))
+        }
+        assertTrue("컬러 추정 $colorAngle°", abs(colorAngle - angle) <= SKEW_TOLERANCE)
+    }
+    
+    // createThumbnail + toGrayImage처럼 긴 변이 DESKEW_ANALYSIS_SIZE가 되도록 축소한 밝기 이미지
+    private fun shrink(photo: IntArray, out: GrayImage): GrayImage {
+        val step = (PHOTO_WIDTH + DESKEW_ANALYSIS_SIZE - 1) / DESKEW_ANALYSIS_SIZE
+        out.reset(PHOTO_WIDTH / step, PHOTO_HEIGHT / step)
+        for (y in 0 until out.height) {
+            for (x in 0 until out.width) {
+                val pixel = photo[y * step * PHOTO_WIDTH + x * step]
+                val r = (pixel shr 16) and 0xFF
+                val g = (pixel shr 8) and 0xFF
+                val b = pixel and 0xFF
+                out.data[y * out.width + x] = ((r * 77 + g * 150 + b * 29) shr 8).toByte()
+            }
+        }
+        return out
+    }
+    
+    // 글자 줄 검출, 뒤집힌 페이지 판단, 글자 영역 (PageProcessor의 글자 정리 단계)
+    @Test
+    fun textRegions() {
+        val detector = TextRegionDetector()
+        val bounds = Region()
+        val expected = Region()
+        for (upsideDown in listOf(false, true)) {
+            val page = SyntheticFrames.textPage(rightBlock = false, upsideDown = upsideDown)
+            val lines = detector.detect(page)
+            assertTrue("줄 $lines", lines >= MIN_TEXT_LINES)
+            val orientation = if (upsideDown) {
+                TextRegionDetector.ORIENTATION_UPSIDE_DOWN
+            } else {
+                TextRegionDetector.ORIENTATION_UPRIGHT
+            }
+            assertEquals("뒤집힘=$upsideDown", orientation, detector.orientation)
+            
+            detector.contentBounds(bounds, 0f)
+            SyntheticFrames.textPageBounds(rightBlock = false, upsideDown = upsideDown, out = expected)
+            assertEquals("왼쪽", expected.left.toFloat(), bounds.left.toFloat(), BOUNDS_TOLERANCE.toFloat())
+            assertEquals("위", expected.top.toFloat(), bounds.top.toFloat(), BOUNDS_TOLERANCE.toFloat())
+            assertEquals("오른쪽", expected.right.toFloat(), bounds.right.toFloat(), BOUNDS_TOLERANCE.toFloat())
+            assertEquals("아래", expected.bottom.toFloat(), bounds.bottom.toFloat(), BOUNDS_TOLERANCE.toFloat())
+        }
+        
+        // 오른쪽 정렬한 주소/서명 블록이 많아도 바로 선 페이지를 뒤집으면 안 됨
+        detector.detect(SyntheticFrames.textPage(rightBlock = true, upsideDown = false))
+        assertFalse("오른쪽 정렬 블록", detector.orientation == TextRegionDetector.ORIENTATION_UPSIDE_DOWN)
+        
+        // 어센더 단서가 없는 글자(막대 획만 있는 골든 페이지)는 판단을 보류
+        for (case in cases) {
+            detector.detect(page(case))
+            assertEquals("$case", TextRegionDetector.ORIENTATION_UNKNOWN, detector.orientation)
+        }
+        
+        // 촬영 후 글자 정리 예산 (페이지당 200ms)
+        val page = SyntheticFrames.textPage(rightBlock = false, upsideDown = false)
+        StageBudget("textRegions", maxMillis = 200.0, maxBytes = STEADY_BYTES).check {
+            detector.detect(page)
+        }
+    }
+    
+    @Test
+    fun components() {
+        val labeler = ComponentLabeler()
+        val binary = ByteArray(SyntheticFrames.WIDTH * SyntheticFrames.HEIGHT)
+        for (case in cases) {
+            binarize(page(case), binary)
+            val count = labeler.label(binary, SyntheticFrames.WIDTH, SyntheticFrames.HEIGHT)
+            assertFalse("$case 요소 없음", count == 0)
+            GoldenFiles.checkValues("${case.name.lowercase()}_components", floatArrayOf(count.toFloat()), 0f)
+        }
+        
+        binarize(page(SyntheticFrames.Case.CLEAN), binary)
+        StageBudget("components", maxMillis = 10.0, maxBytes = STEADY_BYTES).check {
+            labeler.label(binary, SyntheticFrames.WIDTH, SyntheticFrames.HEIGHT)
+        }
+    }
+    
+    // Otsu 임계값보다 어두운 픽셀을 전경으로
+    private fun binarize(gray: GrayImage, out: ByteArray) {
+        val histogram = IntArray(256)
+        val size = gray.width * gray.height
+        for (i in 0 until size) histogram[gray.data[i].toInt() and 0xFF]++
+        val threshold = Otsu.threshold(histogram)
+        for (i in 0 until size) {
+            out[i] = if ((gray.data[i].toInt() and 0xFF) <= threshold) 1 else 0
+        }
+    }
+}
\ No newline at end of file
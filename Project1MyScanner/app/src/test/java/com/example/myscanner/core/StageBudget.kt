@@ -0,0 +1,64 @@
+package com.example.myscanner.core
+
+import java.lang.management.ManagementFactory
+import org.junit.Assert.assertTrue
+
+// 단계별 시간/할당 예산 검사
+// 워밍업 후 여러 번 실행해 한 번당 평균 할당량과 중앙값 시간을 잰다
+// 할당 검사는 항상, 시간 검사는 장비마다 결과가 달라 -Pscanner.timing=true 로 켰을 때만 실행
+// 느린 장비에서는 -Pscanner.budgetScale=2 처럼 시간 예산만 늘려서 실행
+class StageBudget(
+    private val name: String,
+    private val maxMillis: Double,
+    private val maxBytes: Long
+) {
+    
+    companion object {
+        private const val WARMUP_RUNS = 20
+        private const val MEASURED_RUNS = 25
+        
+        private val timingEnabled = System.getProperty("scanner.timing") == "true"
+        private val timeScale = System.getProperty("scanner.budgetScale")?.toDoubleOrNull() ?: 1.0
+        
+        // 스레드별 할당량은 HotSpot 계열 JVM의 확장 인터페이스에만 있음
+        private val allocationBean: com.sun.management.ThreadMXBean? = try {
+            (ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean)
+                ?.takeIf { it.isThreadAllocatedMemorySupported && it.isThreadAllocatedMemoryEnabled }
+        } catch (e: LinkageError) {
+            null
+        }
+    }
+    
+    var medianMillis = 0.0
+        private set
+    var bytesPerRun = 0L
+        private set
+    
+    fun check(stage: () -> Unit) {
+        val bean = allocationBean
+            ?: throw AssertionError("$name: 이 JVM은 스레드별 할당량 측정을 지원하지 않음 (HotSpot 계열 JDK로 실행)")
+        repeat(WARMUP_RUNS) { stage() }
+        
+        val times = LongArray(MEASURED_RUNS)
+        val threadId = Thread.currentThread().id
+        val allocatedBefore = bean.getThreadAllocatedBytes(threadId)
+        for (i in 0 until MEASURED_RUNS) {
+            val start = System.nanoTime()
+            stage()
+            times[i] = System.nanoTime() - start
+        }
+        val allocated = bean.getThreadAllocatedBytes(threadId) - allocatedBefore
+        
+        times.sort()
+        medianMillis = times[MEASURED_RUNS / 2] / 1_000_000.0
+        bytesPerRun = allocated / MEASURED_RUNS
+        
+        assertTrue("$name 할당 초과: ${bytesPerRun}B > ${maxBytes}B", bytesPerRun <= maxBytes)
+        if (timingEnabled) {
+            assertTrue(
+                "$name 시간 초과: %.2fms > %.2fms".format(medianMillis, maxMillis * timeScale),
+                medianMillis <= maxMillis * timeScale
+            )
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,289 @@
+package com.example.myscanner.core
+
+import java.util.Random
+import kotlin.math.PI
+import kotlin.math.cos
+import kotlin.math.exp
+import kotlin.math.floor
+import kotlin.math.roundToInt
+import kotlin.math.sin
+
+// 골든 테스트용 문서 프레임을 절차적으로 생성 (사진 파일 없이 항상 같은 픽셀이 나오도록 시드 고정)
+// 책상 위에 놓인 글자 페이지를 그린 뒤 상황별 조명(반사광, 그림자, 어두운 환경)과 센서 잡음을 입힌다
+object SyntheticFrames {
+    
+    // 분석기 검색 해상도와 같은 크기
+    const val WIDTH = 480
+    const val HEIGHT = 360
+    
+    private const val PAGE_WIDTH = 300
+    private const val PAGE_HEIGHT = 220
+    private const val PAGE_CENTER_X = 240f
+    private const val PAGE_CENTER_Y = 185f
+    
+    private const val PAPER = 0.92f // 반사율
+    private const val INK = 0.12f
+    private const val TABLE = 0.22f
+    private const val LIGHT = 240f // 조명 세기 (반사율 1일 때 밝기)
+    
+    private const val MARGIN = 24
+    private const val LINE_PITCH = 18
+    private const val LINE_HEIGHT = 9
+    private const val STROKE_PERIOD = 5 // 글자 획 간격
+    private const val STROKE_WIDTH = 3
+    private const val SUPERSAMPLE = 2
+    
+    // 글자 영역 검출용 페이지 (PageProcessor의 글자 분석 크기와 비슷하게)
+    const val TEXT_PAGE_WIDTH = 1440
+    const val TEXT_PAGE_HEIGHT = 1080
+    
+    private const val TEXT_MARGIN = 120
+    private const val TEXT_LINES = 14
+    private const val TEXT_LINE_PITCH = 54
+    private const val X_HEIGHT = 18
+    private const val ASCENDER = 10 // x-높이 위로 솟는 길이 (b, d, h, 대문자)
+    private const val DESCENDER = 10 // 아래로 내려가는 길이 (g, p, y)
+    private const val GLYPH_WIDTH = 6
+    private const val GLYPH_PITCH = 12
+    private const val WORD_GAP = 18
+    private const val RIGHT_BLOCK_START = 4 // rightBlock 페이지에서 오른쪽 정렬이 시작되는 줄
+    
+    // pageAngle: 프레임 안에서 페이지 회전, textSkew: 페이지 안에서 글자 줄 기울기 (도, 시계 방향)
+    enum class Case(val seed: Long, val pageAngle: Float, val textSkew: Float) {
+        CLEAN(1, 0f, 0f),
+        GLARE(2, -3f, 0f),
+        SHADOW(3, 2f, -1.5f),
+        SKEW(4, 8f, 3f),
+        LOW_LIGHT(5, -1.5f, 1f)
+    }
+    
+    // 책상 위 페이지가 찍힌 프레임
+    fun frame(case: Case): GrayImage {
+        val text = TextLayout(case, PAGE_WIDTH, PAGE_HEIGHT)
+        val angle = case.pageAngle * PI.toFloat() / 180f
+        val cosA = cos(angle)
+        val sinA = sin(angle)
+        return render(case) { x, y ->
+            // 프레임 좌표 -> 페이지 좌표 (페이지 회전의 역변환)
+            val dx = x - PAGE_CENTER_X
+            val dy = y - PAGE_CENTER_Y
+            val u = dx * cosA + dy * sinA + PAGE_WIDTH / 2f
+            val v = -dx * sinA + dy * cosA + PAGE_HEIGHT / 2f
+            if (u >= 0 && v >= 0 && u < PAGE_WIDTH && v < PAGE_HEIGHT) {
+                text.reflectance(u, v)
+            } else {
+                TABLE + 0.03f * sin(x * 0.07f + y * 0.01f)
+            }
+        }
+    }
+    
+    // 원근 보정이 끝난 페이지 (프레임 전체가 종이, 기울기 추정용)
+    fun page(case: Case): GrayImage {
+        val text = TextLayout(case, WIDTH, HEIGHT)
+        return render(case) { x, y -> text.reflectance(x, y) }
+    }
+    
+    // frame()의 실제 페이지 꼭짓점 (좌상, 우상, 우하, 좌하)
+    fun pageCorners(case: Case, out: Quad): Quad {
+        val angle = case.pageAngle * PI.toFloat() / 180f
+        val cosA = cos(angle)
+        val sinA = sin(angle)
+        val hw = PAGE_WIDTH / 2f
+        val hh = PAGE_HEIGHT / 2f
+        val cornerU = floatArrayOf(-hw, hw, hw, -hw)
+        val cornerV = floatArrayOf(-hh, -hh, hh, hh)
+        for (c in 0 until 4) {
+            out.set(
+                c,
+                PAGE_CENTER_X + cornerU[c] * cosA - cornerV[c] * sinA,
+                PAGE_CENTER_Y + cornerU[c] * sinA + cornerV[c] * cosA
+            )
+        }
+        return out
+    }
+    
+    // 스캔한 글자 페이지 (글자 하나를 x-높이 막대로 그리고 일부는 어센더/디센더 길이만큼 늘임)
+    // 기본은 왼쪽 정렬 본문, rightBlock이면 본문 몇 줄 아래에 오른쪽 정렬한 주소/서명 블록이 대부분인 페이지
+    // upsideDown이면 180도 뒤집어 찍힌 페이지
+    fun textPage(rightBlock: Boolean, upsideDown: Boolean): GrayImage {
+        val glyphs = glyphBoxes(rightBlock)
+        val width = TEXT_PAGE_WIDTH
+        val height = TEXT_PAGE_HEIGHT
+        val image = GrayImage(width, height)
+        val data = image.data
+        val ink = ByteArray(width * height)
+        for (box in glyphs) {
+            for (y in box[1]..box[3]) ink.fill(1, y * width + box[0], y * width + box[2] + 1)
+        }
+        val random = Random(7)
+        for (i in 0 until width * height) {
+            val source = if (upsideDown) width * height - 1 - i else i
+            val reflectance = if (ink[source].toInt() == 1) INK else PAPER
+            data[i] = (reflectance * LIGHT + random.nextGaussian() * 3.0).roundToInt().coerceIn(0, 255).toByte()
+        }
+        return image
+    }
+    
+    // textPage()의 실제 글자 영역 (right, bottom 미포함)
+    fun textPageBounds(rightBlock: Boolean, upsideDown: Boolean, out: Region): Region {
+        var left = Int.MAX_VALUE
+        var top = Int.MAX_VALUE
+        var right = 0
+        var bottom = 0
+        for (box in glyphBoxes(rightBlock)) {
+            left = minOf(left, box[0])
+            top = minOf(top, box[1])
+            right = maxOf(right, box[2] + 1)
+            bottom = maxOf(bottom, box[3] + 1)
+        }
+        if (upsideDown) {
+            out.set(TEXT_PAGE_WIDTH - right, TEXT_PAGE_HEIGHT - bottom, TEXT_PAGE_WIDTH - left, TEXT_PAGE_HEIGHT - top)
+        } else {
+            out.set(left, top, right, bottom)
+        }
+        return out
+    }
+    
+    // 글자 상자 목록 (left, top, right, bottom 포함), 시드 고정이라 호출할 때마다 같다
+    private fun glyphBoxes(rightBlock: Boolean): List<IntArray> {
+        val random = Random(11)
+        val boxes = ArrayList<IntArray>()
+        val lineRight = TEXT_PAGE_WIDTH - TEXT_MARGIN
+        for (line in 0 until TEXT_LINES) {
+            val baseTop = TEXT_MARGIN + ASCENDER + line * TEXT_LINE_PITCH
+            // 단어 길이(글자 수)를 먼저 정하고, 줄 폭을 넘지 않는 만큼만 배치
+            val lineWidth = when {
+                rightBlock && line >= RIGHT_BLOCK_START -> 300 + random.nextInt(400)
+                line % 5 == 4 -> 500 + random.nextInt(200) // 문단 끝 줄은 짧게
+                else -> lineRight - TEXT_MARGIN - random.nextInt(60)
+            }
+            val words = ArrayList<Int>()
+            var used = 0
+            while (true) {
+                val letters = 3 + random.nextInt(6)
+                val wordWidth = letters * GLYPH_PITCH - (GLYPH_PITCH - GLYPH_WIDTH)
+                if (used + wordWidth > lineWidth) break
+                words.add(letters)
+                used += wordWidth + WORD_GAP
+            }
+            val alignRight = rightBlock && line >= RIGHT_BLOCK_START
+            var x = if (alignRight) lineRight - (used - WORD_GAP) else TEXT_MARGIN
+            for (letters in words) {
+                for (k in 0 until letters) {
+                    val kind = random.nextInt(10)
+                    val top = if (kind < 3) baseTop - ASCENDER else baseTop
+                    val bottom = baseTop + X_HEIGHT - 1 + if (kind == 9) DESCENDER else 0
+                    boxes.add(intArrayOf(x, top, x + GLYPH_WIDTH - 1, bottom))
+                    x += GLYPH_PITCH
+                }
+                x += WORD_GAP - (GLYPH_PITCH - GLYPH_WIDTH)
+            }
+        }
+        return boxes
+    }
+    
+    // 픽셀마다 2x2 부분 샘플의 반사율을 평균한 뒤 조명과 잡음 적용
+    private fun render(case: Case, reflectance: (Float, Float) -> Float): GrayImage {
+        val image = GrayImage(WIDTH, HEIGHT)
+        val random = Random(case.seed)
+        val noise = if (case == Case.LOW_LIGHT) 5.0 else 2.0
+        val data = image.data
+        for (y in 0 until HEIGHT) {
+            for (x in 0 until WIDTH) {
+                var sum = 0f
+                for (sy in 0 until SUPERSAMPLE) {
+                    for (sx in 0 until SUPERSAMPLE) {
+                        sum += reflectance(
+                            x + (sx + 0.5f) / SUPERSAMPLE,
+                            y + (sy + 0.5f) / SUPERSAMPLE
+                        )
+                    }
+                }
+                val value = sum / (SUPERSAMPLE * SUPERSAMPLE) * illumination(case, x, y) +
+                    glare(case, x, y) + random.nextGaussian() * noise
+                data[y * WIDTH + x] = value.roundToInt().coerceIn(0, 255).toByte()
+            }
+        }
+        return image
+    }
+    
+    private fun illumination(case: Case, x: Int, y: Int): Float = when (case) {
+        // 왼쪽에서 오른쪽으로 점점 어두워지는 그림자
+        Case.SHADOW -> LIGHT * (1f - 0.55f * smoothStep(x / WIDTH.toFloat()))
+        Case.LOW_LIGHT -> LIGHT * 0.35f
+        else -> LIGHT
+    }
+    
+    // 페이지 오른쪽 위의 조명 반사
+    private fun glare(case: Case, x: Int, y: Int): Float {
+        if (case != Case.GLARE) return 0f
+        val dx = x - 320f
+        val dy = y - 120f
+        return 140f * exp(-(dx * dx + dy * dy) / (2f * 35f * 35f))
+    }
+    
+    private fun smoothStep(t: Float): Float {
+        val c = t.coerceIn(0f, 1f)
+        return c * c * (3 - 2 * c)
+    }
+    
+    // 시드로 정한 단어 배치 (줄마다 단어 시작/끝 위치)
+    private class TextLayout(case: Case, private val width: Int, private val height: Int) {
+        
+        private val lineCount = (height - 2 * MARGIN) / LINE_PITCH
+        private val wordStarts = Array(lineCount) { IntArray(0) }
+        private val wordEnds = Array(lineCount) { IntArray(0) }
+        private val cosS: Float
+        private val sinS: Float
+        
+        init {
+            val random = Random(case.seed * 31)
+            val starts = ArrayList<Int>()
+            val ends = ArrayList<Int>()
+            for (line in 0 until lineCount) {
+                starts.clear()
+                ends.clear()
+                // 문단 끝 줄은 짧게
+                val lineEnd = if (line % 5 == 4) width / 2 else width - MARGIN
+                var x = MARGIN
+                while (true) {
+                    val length = 12 + random.nextInt(36)
+                    if (x + length > lineEnd) break
+                    starts.add(x)
+                    ends.add(x + length)
+                    x += length + 6 + random.nextInt(6)
+                }
+                wordStarts[line] = starts.toIntArray()
+                wordEnds[line] = ends.toIntArray()
+            }
+            val skew = case.textSkew * PI.toFloat() / 180f
+            cosS = cos(skew)
+            sinS = sin(skew)
+        }
+        
+        fun reflectance(u: Float, v: Float): Float = if (isInk(u, v)) INK else PAPER
+        
+        // 페이지 중심 기준으로 글자 기울기를 되돌린 좌표에서 획 여부 판단
+        private fun isInk(u: Float, v: Float): Boolean {
+            val du = u - width / 2f
+            val dv = v - height / 2f
+            val tu = du * cosS + dv * sinS + width / 2f
+            val tv = -du * sinS + dv * cosS + height / 2f
+            
+            val lineOffset = tv - MARGIN
+            if (lineOffset < 0) return false
+            val line = floor(lineOffset / LINE_PITCH).toInt()
+            if (line >= lineCount || lineOffset - line * LINE_PITCH >= LINE_HEIGHT) return false
+            
+            val column = floor(tu).toInt()
+            val starts = wordStarts[line]
+            val ends = wordEnds[line]
+            for (w in starts.indices) {
+                if (column >= starts[w] && column < ends[w]) {
+                    return (column - starts[w]) % STROKE_PERIOD < STROKE_WIDTH
+                }
+            }
+            return false
+        }
+    }
+}
\ No newline at end of file
@@ -47,6 +47,17 @@ android {
             excludes += "/META-INF/{AL2.0,LGPL2.1}"
         }
     }
+    // 마이그레이션 테스트(MigrationTestHelper)가 버전별 스키마 JSON을 읽을 수 있도록 androidTest 에셋에 포함
+    sourceSets {
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
+    }
+}
+
+// Room 스키마 JSON 내보내기 위치 (마이그레이션 이력 관리)
+kapt {
+    arguments {
+        arg("room.schemaLocation", "$projectDir/schemas")
+    }
 }
 
 dependencies {
@@ -65,6 +76,10 @@ dependencies {
     implementation(libs.androidx.room.runtime)
     implementation(libs.androidx.room.ktx)
     kapt(libs.androidx.room.compiler)
+    implementation(libs.androidx.room.paging)
+    
+    // Paging
+    implementation(libs.androidx.paging.compose)
     
     // Hilt
     implementation(libs.hilt.android)
@@ -73,6 +88,7 @@ dependencies {
     
     testImplementation(libs.junit)
     androidTestImplementation(libs.androidx.junit)
+    androidTestImplementation(libs.androidx.room.testing)
     androidTestImplementation(libs.androidx.espresso.core)
     androidTestImplementation(platform(libs.androidx.compose.bom))
     androidTestImplementation(libs.androidx.ui.test.junit4)
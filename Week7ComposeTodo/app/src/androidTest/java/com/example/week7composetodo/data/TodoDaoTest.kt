@@ -0,0 +1,130 @@
+package com.example.week7composetodo.data
+
+import android.content.Context
+import androidx.paging.PagingSource
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * TodoDao 계측 테스트 - 집계 쿼리와 페이지 쿼리 검증
+ * 
+ * 인메모리 데이터베이스 사용 이유:
+ * - 테스트마다 빈 데이터베이스로 시작 (앱 데이터와 분리)
+ * - 프로세스가 끝나면 사라지므로 정리할 파일이 없음
+ * - 실제 SQLite에서 실행하므로 쿼리와 인덱스가 앱과 똑같이 동작
+ * 
+ * PagingSource 직접 호출:
+ * - Pager 없이 load(Refresh)로 첫 페이지를 바로 읽어 결과 목록을 확인
+ */
+@RunWith(AndroidJUnit4::class)
+class TodoDaoTest {
+    
+    private lateinit var database: TodoDatabase
+    private lateinit var dao: TodoDao
+    
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        database = Room.inMemoryDatabaseBuilder(context, TodoDatabase::class.java).build()
+        dao = database.todoDao()
+    }
+    
+    @After
+    fun tearDown() {
+        database.close()
+    }
+    
+    /**
+     * 빈 테이블에서는 SUM()이 NULL이므로 COALESCE로 0이 나와야 함
+     */
+    @Test
+    fun todoCountIsZeroWhenEmpty() = runBlocking {
+        assertEquals(TodoCount(total = 0, active = 0, completed = 0), dao.getTodoCount().first())
+    }
+    
+    /**
+     * 삽입, 완료 토글, 삭제가 세 개수에 모두 반영되는지 확인
+     */
+    @Test
+    fun todoCountTracksCompletion() = runBlocking {
+        insertTodos(active = 3, completed = 2)
+        assertEquals(TodoCount(total = 5, active = 3, completed = 2), dao.getTodoCount().first())
+        
+        dao.toggleComplete("active-0")
+        assertEquals(TodoCount(total = 5, active = 2, completed = 3), dao.getTodoCount().first())
+        
+        dao.deleteTodoById("completed-0")
+        assertEquals(TodoCount(total = 4, active = 2, completed = 2), dao.getTodoCount().first())
+    }
+    
+    /**
+     * 필터 없는 페이지 쿼리: 모든 항목을 생성일 최신순으로
+     */
+    @Test
+    fun pagedTodosAreNewestFirst() = runBlocking {
+        insertTodos(active = 3, completed = 2)
+        
+        val page = loadFirstPage(dao.getTodosPaged(), loadSize = 10)
+        assertEquals(5, page.size)
+        assertEquals(page.sortedByDescending { it.createdAt }, page)
+    }
+    
+    /**
+     * 완료 상태 필터 페이지 쿼리: 해당 상태만, 생성일 최신순으로
+     */
+    @Test
+    fun pagedTodosFilterByCompletion() = runBlocking {
+        insertTodos(active = 3, completed = 2)
+        
+        val active = loadFirstPage(dao.getTodosPagedByCompleted(false), loadSize = 10)
+        assertEquals(listOf("active-2", "active-1", "active-0"), active.map { it.id })
+        
+        val completed = loadFirstPage(dao.getTodosPagedByCompleted(true), loadSize = 10)
+        assertEquals(listOf("completed-1", "completed-0"), completed.map { it.id })
+    }
+    
+    /**
+     * loadSize보다 많으면 첫 페이지는 loadSize개만 읽고 다음 페이지 키를 돌려줌
+     */
+    @Test
+    fun pagedTodosLoadOnlyOnePage() = runBlocking {
+        insertTodos(active = 25, completed = 0)
+        
+        val result = dao.getTodosPagedByCompleted(false).load(
+            PagingSource.LoadParams.Refresh(key = null, loadSize = 10, placeholdersEnabled = false)
+        ) as PagingSource.LoadResult.Page
+        assertEquals(10, result.data.size)
+        assertEquals("active-24", result.data.first().id)
+        assertEquals(10, result.nextKey)
+    }
+    
+    /**
+     * 생성 시각이 겹치지 않도록 1초씩 차이를 두고 삽입 (정렬 순서를 확인할 수 있도록)
+     */
+    private suspend fun insertTodos(active: Int, completed: Int) {
+        var time = 1_000_000L
+        repeat(active) { index ->
+            dao.insertTodo(Todo(id = "active-$index", title = "진행중 $index", createdAt = time))
+            time += 1_000L
+        }
+        repeat(completed) { index ->
+            dao.insertTodo(Todo(id = "completed-$index", title = "완료 $index", isCompleted = true, createdAt = time))
+            time += 1_000L
+        }
+    }
+    
+    private suspend fun loadFirstPage(source: PagingSource<Int, Todo>, loadSize: Int): List<Todo> {
+        val result = source.load(
+            PagingSource.LoadParams.Refresh(key = null, loadSize = loadSize, placeholdersEnabled = false)
+        )
+        return (result as PagingSource.LoadResult.Page).data
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.example.week7composetodo.data
+
+import androidx.room.testing.MigrationTestHelper
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * TodoDatabase 마이그레이션 계측 테스트
+ * 
+ * MigrationTestHelper 사용 이유:
+ * - app/schemas에 내보낸 버전별 스키마 JSON으로 이전 버전 데이터베이스를 그대로 만들 수 있음
+ * - 마이그레이션 후 스키마가 현재 엔티티(Todo의 indices 포함)와 일치하는지 Room이 직접 검증
+ * 
+ * 스키마 JSON:
+ * - 1.json, 2.json은 kapt가 빌드 중에 app/schemas에 생성 (room.schemaLocation)
+ * - build.gradle.kts에서 androidTest 에셋으로 포함하여 테스트가 읽음
+ */
+@RunWith(AndroidJUnit4::class)
+class TodoMigrationTest {
+    
+    companion object {
+        private const val TEST_DB = "migration-test"
+    }
+    
+    @get:Rule
+    val helper = MigrationTestHelper(
+        InstrumentationRegistry.getInstrumentation(),
+        TodoDatabase::class.java
+    )
+    
+    /**
+     * 1 -> 2: 두 인덱스가 생기고 기존 할 일은 그대로 남아야 함
+     */
+    @Test
+    fun migrate1To2AddsIndices() {
+        helper.createDatabase(TEST_DB, 1).apply {
+            execSQL(
+                "INSERT INTO todos (id, title, description, isCompleted, createdAt, priority) " +
+                    "VALUES ('todo-1', '장보기', '', 0, 1000, 'NORMAL')"
+            )
+            close()
+        }
+        
+        // validateDroppedTables = true: 스키마 전체(인덱스 포함)를 2.json과 비교
+        val db = helper.runMigrationsAndValidate(TEST_DB, 2, true, TodoDatabase.MIGRATION_1_2)
+        
+        val indices = mutableListOf<String>()
+        db.query("PRAGMA index_list(`todos`)").use { cursor ->
+            val nameColumn = cursor.getColumnIndexOrThrow("name")
+            while (cursor.moveToNext()) {
+                indices.add(cursor.getString(nameColumn))
+            }
+        }
+        assertTrue(indices.toString(), "index_todos_isCompleted_createdAt" in indices)
+        assertTrue(indices.toString(), "index_todos_createdAt" in indices)
+        
+        db.query("SELECT title FROM todos WHERE id = 'todo-1'").use { cursor ->
+            assertTrue(cursor.moveToFirst())
+            assertEquals("장보기", cursor.getString(0))
+        }
+    }
+}
\ No newline at end of file
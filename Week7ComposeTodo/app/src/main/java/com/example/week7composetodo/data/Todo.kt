@@ -1,6 +1,7 @@
 package com.example.week7composetodo.data
 
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import java.util.UUID
 
@@ -15,13 +16,23 @@ import java.util.UUID
  * @Entity 어노테이션:
  * - 이 클래스가 Room 데이터베이스의 테이블임을 명시
  * - tableName: 실제 SQLite 테이블 이름 지정
+ * - indices: 자주 쓰는 WHERE / ORDER BY 조건에 맞춘 인덱스
+ *   - (isCompleted, createdAt): 진행중/완료 필터 + 생성일 정렬
+ *   - createdAt: 필터 없는 전체 목록의 생성일 정렬
+ *   - 인덱스를 바꾸면 TodoDatabase의 버전을 올리고 마이그레이션을 추가해야 함
  * 
  * data class 사용 이유:
  * - 자동으로 equals(), hashCode(), toString() 등 메서드 생성
  * - 불변성(immutability) 보장으로 데이터 안전성 향상
  * - copy() 메서드로 일부 필드만 변경한 새 객체 생성 가능
  */
-@Entity(tableName = "todos")
+@Entity(
+    tableName = "todos",
+    indices = [
+        Index(value = ["isCompleted", "createdAt"]),
+        Index(value = ["createdAt"])
+    ]
+)
 data class Todo(
     /**
      * 기본키 필드
@@ -0,0 +1,18 @@
+package com.example.week7composetodo.data
+
+/**
+ * 상태별 Todo 개수 - 집계 쿼리 결과를 담는 클래스
+ * 
+ * Room 결과 매핑:
+ * - @Entity가 아닌 일반 data class도 @Query의 반환 타입으로 사용 가능
+ * - SELECT 결과의 컬럼 별칭(AS total, AS active, AS completed)이 프로퍼티 이름과 일치해야 함
+ * 
+ * 사용 위치:
+ * - TodoDao.getTodoCount()의 반환 타입
+ * - TodoFilterBar의 필터 칩 개수 배지와 통계 정보
+ */
+data class TodoCount(
+    val total: Int = 0,
+    val active: Int = 0,
+    val completed: Int = 0
+)
\ No newline at end of file
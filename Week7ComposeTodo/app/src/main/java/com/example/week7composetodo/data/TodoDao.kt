@@ -1,5 +1,6 @@
 package com.example.week7composetodo.data
 
+import androidx.paging.PagingSource
 import androidx.room.*
 import kotlinx.coroutines.flow.Flow
 
@@ -22,19 +23,55 @@ import kotlinx.coroutines.flow.Flow
 interface TodoDao {
     
     /**
-     * 모든 Todo 목록을 생성일 순으로 조회
+     * 전체/진행중/완료 개수를 한 번의 집계 쿼리로 조회
      * 
-     * Flow<List<Todo>> 사용 이유:
-     * - 데이터베이스 변경 시 자동으로 UI 업데이트
-     * - 반응형 프로그래밍 지원
-     * - 코루틴과 함께 비동기 처리 가능
+     * 집계 쿼리 사용 이유:
+     * - 목록을 불러와 Kotlin에서 count { }로 세지 않음 (행 전체를 읽고 객체로 만들 필요 없음)
+     * - 필터와 상관없이 항상 세 개수를 모두 계산하여 필터 배지가 정확함
      * 
-     * @Query 어노테이션:
-     * - 직접 SQL 쿼리 작성
-     * - ORDER BY createdAt DESC: 최근 생성된 순서로 정렬
+     * (isCompleted, createdAt) 인덱스 활용:
+     * - 필요한 컬럼(isCompleted)이 모두 인덱스에 있어 테이블 행을 읽지 않고 인덱스만 스캔
+     * 
+     * COALESCE(..., 0):
+     * - 테이블이 비어 있으면 SUM()이 NULL을 반환하므로 0으로 대체
+     * 
+     * Flow 반환:
+     * - todos 테이블이 변경될 때마다 새 개수를 자동으로 방출
+     */
+    @Query(
+        """
+        SELECT COUNT(*) AS total,
+               COALESCE(SUM(CASE WHEN isCompleted = 0 THEN 1 ELSE 0 END), 0) AS active,
+               COALESCE(SUM(isCompleted), 0) AS completed
+        FROM todos
+        """
+    )
+    fun getTodoCount(): Flow<TodoCount>
+    
+    /**
+     * 모든 Todo를 페이지 단위로 조회 (생성일 최신순)
+     * 
+     * PagingSource<Int, Todo> 반환:
+     * - room-paging이 LIMIT/OFFSET 쿼리로 화면에 필요한 페이지만 읽음
+     * - 테이블이 변경되면 Room이 PagingSource를 무효화하고 현재 위치 주변만 다시 읽음
+     * - Flow<List<Todo>>처럼 변경마다 전체 테이블을 다시 읽지 않음
      */
     @Query("SELECT * FROM todos ORDER BY createdAt DESC")
-    fun getAllTodos(): Flow<List<Todo>>
+    fun getTodosPaged(): PagingSource<Int, Todo>
+    
+    /**
+     * 완료 상태로 걸러서 페이지 단위로 조회 (진행중/완료 필터용)
+     * 
+     * WHERE 절로 SQL에서 필터링:
+     * - 선택한 필터에 해당하는 행만 읽음
+     * - 정렬 기준은 getTodosPaged()와 동일
+     * 
+     * (isCompleted, createdAt) 인덱스 활용:
+     * - isCompleted 조건으로 인덱스에서 해당 구간만 찾음
+     * - 같은 구간 안에서 createdAt 순으로 정렬되어 있어 별도 정렬 불필요
+     */
+    @Query("SELECT * FROM todos WHERE isCompleted = :isCompleted ORDER BY createdAt DESC")
+    fun getTodosPagedByCompleted(isCompleted: Boolean): PagingSource<Int, Todo>
     
     /**
      * ID로 특정 Todo 조회
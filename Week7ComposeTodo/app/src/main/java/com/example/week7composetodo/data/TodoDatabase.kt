@@ -4,6 +4,8 @@ import androidx.room.Database
 import androidx.room.RoomDatabase
 import androidx.room.TypeConverter
 import androidx.room.TypeConverters
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
 
 /**
  * Todo 앱의 Room 데이터베이스 정의
@@ -16,12 +18,16 @@ import androidx.room.TypeConverters
  * @Database 어노테이션 매개변수:
  * - entities: 데이터베이스에 포함될 엔티티 목록
  * - version: 데이터베이스 스키마 버전 (마이그레이션 시 사용)
- * - exportSchema: 스키마 내보내기 여부 (false로 설정하여 빌드 간단화)
+ * - exportSchema: 스키마를 app/schemas에 JSON으로 내보내기 (버전별 변경 이력, 마이그레이션 검증용)
+ * 
+ * 버전 이력:
+ * - 1: todos 테이블
+ * - 2: (isCompleted, createdAt), createdAt 인덱스 추가 (MIGRATION_1_2)
  */
 @Database(
     entities = [Todo::class],
-    version = 1,
-    exportSchema = false
+    version = 2,
+    exportSchema = true
 )
 /**
  * @TypeConverters: 커스텀 타입 변환기 등록
@@ -38,6 +44,26 @@ abstract class TodoDatabase : RoomDatabase() {
      * - 개발자는 메서드 시그니처만 정의하고 구현은 Room에 위임
      */
     abstract fun todoDao(): TodoDao
+    
+    companion object {
+        /**
+         * 버전 1 -> 2 마이그레이션
+         * 
+         * 마이그레이션이 필요한 이유:
+         * - 버전만 올리면 Room이 기존 데이터베이스를 열 수 없어 앱이 종료됨
+         * - fallbackToDestructiveMigration()은 사용자의 할 일을 모두 삭제하므로 사용하지 않음
+         * 
+         * 변경 내용:
+         * - 테이블 구조는 그대로 두고 인덱스만 추가 (기존 데이터 유지)
+         * - 인덱스 이름과 컬럼은 Todo 엔티티의 indices와 일치해야 Room 검증을 통과
+         */
+        val MIGRATION_1_2 = object : Migration(1, 2) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_isCompleted_createdAt` ON `todos` (`isCompleted`, `createdAt`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_todos_createdAt` ON `todos` (`createdAt`)")
+            }
+        }
+    }
 }
 
 /**
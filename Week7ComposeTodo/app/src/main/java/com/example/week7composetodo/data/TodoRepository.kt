@@ -1,5 +1,8 @@
 package com.example.week7composetodo.data
 
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
 import kotlinx.coroutines.flow.Flow
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -29,14 +32,42 @@ class TodoRepository @Inject constructor(
 ) {
     
     /**
-     * 모든 Todo 목록 조회
+     * 전체/진행중/완료 개수 조회 (집계는 SQL에서 처리)
+     */
+    fun getTodoCount(): Flow<TodoCount> = todoDao.getTodoCount()
+    
+    /**
+     * Todo 목록을 페이지 단위로 조회
+     * 
+     * 매개변수 isCompleted:
+     * - null: 전체, true: 완료된 항목만, false: 진행중인 항목만
      * 
-     * 직접 DAO 메서드 위임:
-     * - Repository는 데이터 소스 조정자 역할
-     * - 향후 네트워크, 캐시 등 추가 시 이 메서드에서 통합 처리
-     * - Flow를 그대로 반환하여 반응형 프로그래밍 지원
+     * Pager 설정:
+     * - pageSize: 한 번에 읽는 행 수
+     * - enablePlaceholders = false: 아직 읽지 않은 자리를 null 항목으로 만들지 않음
+     *   (null 자리를 건너뛰면 높이 0인 행이 생겨 스크롤 위치가 튐, 다음 페이지는 끝에 가까워지면 이어서 읽음)
+     * - maxSize: 메모리에 유지하는 최대 행 수 (스크롤로 멀어진 페이지는 버림)
+     * - 항목이 5만 개여도 메모리 사용량과 변경 시 재조회 비용이 일정하게 유지됨
+     * 
+     * pagingSourceFactory:
+     * - Room이 PagingSource를 무효화할 때마다 새로 생성하므로 람다로 전달
      */
-    fun getAllTodos(): Flow<List<Todo>> = todoDao.getAllTodos()
+    fun getTodosPaged(isCompleted: Boolean? = null): Flow<PagingData<Todo>> {
+        return Pager(
+            config = PagingConfig(
+                pageSize = PAGE_SIZE,
+                enablePlaceholders = false,
+                maxSize = MAX_LOADED_ITEMS
+            ),
+            pagingSourceFactory = {
+                if (isCompleted == null) {
+                    todoDao.getTodosPaged()
+                } else {
+                    todoDao.getTodosPagedByCompleted(isCompleted)
+                }
+            }
+        ).flow
+    }
     
     /**
      * ID로 특정 Todo 조회
@@ -90,4 +121,9 @@ class TodoRepository @Inject constructor(
     suspend fun toggleComplete(todoId: String) {
         todoDao.toggleComplete(todoId)
     }
+    
+    companion object {
+        private const val PAGE_SIZE = 30
+        private const val MAX_LOADED_ITEMS = 300
+    }
 }
\ No newline at end of file
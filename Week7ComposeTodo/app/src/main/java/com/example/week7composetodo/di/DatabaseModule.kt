@@ -54,6 +54,10 @@ object DatabaseModule {
      * - Application Context를 주입받음
      * - Activity Context와 달리 메모리 누수 방지
      * - 데이터베이스는 Application 생명주기와 동일해야 안전
+     * 
+     * addMigrations():
+     * - 이전 버전으로 설치된 앱의 데이터베이스를 현재 버전으로 변환
+     * - 기존 할 일을 유지한 채 스키마(인덱스)만 변경
      */
     @Provides
     @Singleton
@@ -64,7 +68,9 @@ object DatabaseModule {
             context,
             TodoDatabase::class.java,
             "todo_database"  // 데이터베이스 파일 이름
-        ).build()
+        )
+            .addMigrations(TodoDatabase.MIGRATION_1_2)
+            .build()
     }
     
     /**
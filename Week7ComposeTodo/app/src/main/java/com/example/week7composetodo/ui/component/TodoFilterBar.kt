@@ -10,6 +10,7 @@ import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.unit.dp
+import com.example.week7composetodo.data.TodoCount
 import com.example.week7composetodo.viewmodel.TodoFilter
 
 /**
@@ -199,10 +200,4 @@ private fun StatisticItem(
             color = MaterialTheme.colorScheme.onSurfaceVariant
         )
     }
-}
-
-data class TodoCount(
-    val total: Int = 0,
-    val active: Int = 0,
-    val completed: Int = 0
-)
\ No newline at end of file
+}
\ No newline at end of file
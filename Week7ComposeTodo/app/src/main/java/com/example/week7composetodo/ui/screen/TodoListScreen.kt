@@ -4,7 +4,6 @@ import androidx.compose.animation.*
 import androidx.compose.animation.core.spring
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
-import androidx.compose.foundation.lazy.items
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.Add
 import androidx.compose.material3.*
@@ -13,8 +12,10 @@ import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
+import androidx.paging.LoadState
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemKey
 import com.example.week7composetodo.ui.component.*
-import com.example.week7composetodo.ui.state.UiState
 import com.example.week7composetodo.viewmodel.TodoFilter
 import com.example.week7composetodo.viewmodel.TodoViewModel
 
@@ -72,32 +73,60 @@ fun TodoListScreen(
      * 
      * by 위임 프로퍼티:
      * - State<T>.value 접근을 T로 간소화
-     * - todosState.value 대신 todosState로 직접 접근
+     * - filter.value 대신 filter로 직접 접근
      */
-    val todosState by viewModel.filteredTodos.collectAsState()
     val filter by viewModel.filter.collectAsState()
     
     /**
-     * Todo 개수 계산 - 파생 상태(Derived State)
+     * 상태별 Todo 개수 - DAO 집계 쿼리 결과
      * 
-     * remember(todosState):
-     * - todosState가 변경될 때만 재계산
-     * - 불필요한 계산 방지로 성능 최적화
-     * - 메모이제이션 패턴
+     * 목록(todos)과 독립적으로 관찰:
+     * - 선택한 필터와 상관없이 전체/진행중/완료 개수가 정확함
+     * - 리컴포지션마다 목록을 세지 않음
+     */
+    val todoCount by viewModel.todoCount.collectAsState()
+    
+    /**
+     * 페이지 단위 목록 관찰
      * 
-     * 파생 상태 패턴:
-     * - 기존 상태에서 계산된 새로운 상태
-     * - 원본 상태 변경 시 자동으로 업데이트
-     * - UI에 표시할 통계 정보 생성
+     * collectAsLazyPagingItems():
+     * - Flow<PagingData>를 LazyColumn에서 쓰는 LazyPagingItems로 변환
+     * - 스크롤 위치에 따라 필요한 페이지만 요청
+     * - loadState로 첫 로딩, 오류 상태 확인 가능
      */
-    val todoCount = remember(todosState) {
-        when (val state = todosState) {
-            is UiState.Success -> TodoCount(
-                total = state.data.size,
-                active = state.data.count { !it.isCompleted },
-                completed = state.data.count { it.isCompleted }
-            )
-            else -> TodoCount(0, 0, 0)
+    val todos = viewModel.pagedTodos.collectAsLazyPagingItems()
+    val refreshState = todos.loadState.refresh
+    
+    /**
+     * 첫 페이지를 한 번이라도 다 읽었는지
+     * 
+     * 필터를 바꾸면 새 목록을 읽는 동안 다시 Loading이 되므로
+     * loadState만으로 필터 바를 숨기면 필터를 누를 때마다 바가 깜빡임
+     * - 처음 읽기가 끝난 뒤로는 계속 표시
+     */
+    var initialLoadDone by remember { mutableStateOf(false) }
+    LaunchedEffect(refreshState) {
+        if (refreshState !is LoadState.Loading) {
+            initialLoadDone = true
+        }
+    }
+    
+    /**
+     * 추가/수정/삭제/완료 처리 실패 알림 - 스낵바
+     * 
+     * SnackbarHostState:
+     * - 스낵바 표시 상태를 보관 (remember로 리컴포지션 사이에 유지)
+     * 
+     * LaunchedEffect(errorMessage):
+     * - 메시지가 바뀔 때마다 스낵바를 띄우고, 닫히면 ViewModel의 메시지를 비움
+     * - 목록은 그대로 두고 실패한 작업만 알려줌
+     */
+    val snackbarHostState = remember { SnackbarHostState() }
+    val errorMessage by viewModel.errorMessage.collectAsState()
+    LaunchedEffect(errorMessage) {
+        errorMessage?.let { message ->
+            snackbarHostState.showSnackbar(message)
+            viewModel.clearErrorMessage()
         }
     }
     
@@ -147,7 +176,8 @@ fun TodoListScreen(
             ) {
                 Icon(Icons.Default.Add, contentDescription = "Add Todo")
             }
-        }
+        },
+        snackbarHost = { SnackbarHost(snackbarHostState) }
     ) { paddingValues ->
         /**
          * ===== 메인 컨텐츠 영역 =====
@@ -170,11 +200,11 @@ fun TodoListScreen(
              * 
              * AnimatedVisibility:
              * - 컴포넌트의 나타남/사라짐 애니메이션
-             * - 로딩 중이 아닐 때만 표시
+             * - 첫 페이지 로딩이 끝난 뒤 표시
              * - 부드러운 사용자 경험 제공
              */
             AnimatedVisibility(
-                visible = todosState !is UiState.Loading,
+                visible = initialLoadDone,
                 enter = fadeIn() + slideInVertically()
             ) {
                 TodoFilterBar(
@@ -185,18 +215,54 @@ fun TodoListScreen(
             }
             
             /**
-             * Todo 목록 - UiState 패턴으로 상태별 UI 처리
+             * Todo 목록 - 페이지 로딩 상태별 UI 처리
+             * 
+             * loadState.refresh:
+             * - 첫 페이지(또는 필터 변경, 데이터 변경 후 다시 읽기)의 로딩 상태
+             * - Loading: 읽는 중, Error: 실패, NotLoading: 완료
              * 
              * when 표현식의 장점:
              * - 모든 상태를 명시적으로 처리
-             * - 컴파일러가 누락된 케이스 체크
-             * - 타입 안전성 보장
+             * - 위에서부터 순서대로 조건 확인
              */
-            when (val state = todosState) {
+            when {
+                /**
+                 * 에러 상태 - 사용자 친화적 에러 처리
+                 * 
+                 * 에러 UI 구성:
+                 * - 명확한 에러 메시지
+                 * - 재시도 버튼 제공 (실패한 페이지를 다시 요청)
+                 * - 중앙 정렬로 주목도 향상
+                 */
+                refreshState is LoadState.Error -> {
+                    Column(
+                        modifier = Modifier
+                            .fillMaxSize()
+                            .padding(16.dp),
+                        horizontalAlignment = Alignment.CenterHorizontally,
+                        verticalArrangement = Arrangement.Center
+                    ) {
+                        Text(
+                            text = "할 일 목록을 불러올 수 없습니다.",
+                            style = MaterialTheme.typography.bodyLarge,
+                            color = MaterialTheme.colorScheme.error
+                        )
+                        Spacer(modifier = Modifier.height(16.dp))
+                        Button(
+                            onClick = { todos.retry() }
+                        ) {
+                            Text("다시 시도")
+                        }
+                    }
+                }
+                
                 /**
-                 * 로딩 상태 - 중앙 정렬 로딩 인디케이터
+                 * 로딩 상태 - 첫 페이지를 읽는 동안만 로딩 인디케이터
+                 * 
+                 * itemCount == 0 조건:
+                 * - 이미 표시 중인 항목이 있으면 다시 읽는 동안에도 목록을 유지
                  */
-                is UiState.Loading -> {
+                refreshState is LoadState.Loading && todos.itemCount == 0 -> {
                     Box(
                         modifier = Modifier.fillMaxSize(),
                         contentAlignment = Alignment.Center
@@ -212,7 +278,7 @@ fun TodoListScreen(
                  * - 사용자 상황에 맞는 안내 제공
                  * - 다음 액션 유도
                  */
-                is UiState.Empty -> {
+                todos.itemCount == 0 -> {
                     EmptyStateView(
                         title = when (filter) {
                             TodoFilter.ALL -> "할 일이 없습니다"
@@ -228,28 +294,33 @@ fun TodoListScreen(
                 }
                 
                 /**
-                 * 성공 상태 - LazyColumn으로 효율적인 목록 표시
+                 * 목록 표시 - LazyColumn + LazyPagingItems
                  * 
                  * LazyColumn 성능 최적화:
                  * - 화면에 보이는 항목만 컴포즈
-                 * - 스크롤 시 동적으로 생성/제거
+                 * - 스크롤 위치에 가까워지면 다음 페이지를 자동으로 요청
                  * - 대용량 리스트에 적합
                  * 
-                 * items() key 매개변수:
-                 * - 각 항목의 고유 식별자 지정
+                 * itemKey { it.id }:
+                 * - 각 항목의 고유 식별자 지정 (아직 읽지 않은 자리는 위치 기반 키)
                  * - 리컴포지션 시 효율적인 업데이트
-                 * - 애니메이션 성능 향상
+                 * 
+                 * todos[index]:
+                 * - placeholder를 끈 Pager라 읽은 항목만 세므로 null이 아님
+                 * - 목록 끝 근처 항목을 읽으면 다음 페이지를 요청
                  */
-                is UiState.Success -> {
+                else -> {
                     LazyColumn(
                         modifier = Modifier.fillMaxSize(),
                         contentPadding = PaddingValues(16.dp),
                         verticalArrangement = Arrangement.spacedBy(8.dp)
                     ) {
                         items(
-                            items = state.data,
-                            key = { it.id }  // 성능 최적화를 위한 키 지정
-                        ) { todo ->
+                            count = todos.itemCount,
+                            key = todos.itemKey { it.id }  // 성능 최적화를 위한 키 지정
+                        ) { index ->
+                            val todo = todos[index] ?: return@items
+                            
                             /**
                              * 개별 Todo 항목 애니메이션
                              * 
@@ -272,36 +343,6 @@ fun TodoListScreen(
                         }
                     }
                 }
-                
-                /**
-                 * 에러 상태 - 사용자 친화적 에러 처리
-                 * 
-                 * 에러 UI 구성:
-                 * - 명확한 에러 메시지
-                 * - 재시도 버튼 제공
-                 * - 중앙 정렬로 주목도 향상
-                 */
-                is UiState.Error -> {
-                    Column(
-                        modifier = Modifier
-                            .fillMaxSize()
-                            .padding(16.dp),
-                        horizontalAlignment = Alignment.CenterHorizontally,
-                        verticalArrangement = Arrangement.Center
-                    ) {
-                        Text(
-                            text = state.message ?: "오류가 발생했습니다",
-                            style = MaterialTheme.typography.bodyLarge,
-                            color = MaterialTheme.colorScheme.error
-                        )
-                        Spacer(modifier = Modifier.height(16.dp))
-                        Button(
-                            onClick = { /* TODO: 재시도 로직 구현 */ }
-                        ) {
-                            Text("다시 시도")
-                        }
-                    }
-                }
             }
         }
     }
@@ -2,11 +2,14 @@ package com.example.week7composetodo.viewmodel
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
 import com.example.week7composetodo.data.Priority
 import com.example.week7composetodo.data.Todo
+import com.example.week7composetodo.data.TodoCount
 import com.example.week7composetodo.data.TodoRepository
-import com.example.week7composetodo.ui.state.UiState
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
 import javax.inject.Inject
@@ -53,28 +56,16 @@ class TodoViewModel @Inject constructor(
      */
     
     /**
-     * 전체 Todo 목록의 상태를 관리하는 StateFlow
+     * 추가/수정/삭제/완료 처리 실패 메시지 (한 번만 보여주는 이벤트)
      * 
-     * MutableStateFlow<UiState<List<Todo>>>:
-     * - MutableStateFlow: 상태를 변경할 수 있는 Flow
-     * - UiState<List<Todo>>: Todo 목록을 UiState 패턴으로 래핑
-     * - 초기값 UiState.Loading: 앱 시작 시 로딩 상태로 설정
+     * 목록의 로딩/에러 상태(LazyPagingItems.loadState)와 분리한 이유:
+     * - 저장 하나가 실패했다고 목록 전체를 에러 화면으로 바꾸지 않음
+     * - 목록 에러 화면의 "다시 시도"는 목록을 다시 읽는 것이라 저장 실패를 되돌릴 수 없음
      * 
-     * private 접근자:
-     * - ViewModel 내부에서만 상태 변경 가능
-     * - 비즈니스 로직의 캡슐화
+     * 화면에서 스낵바로 보여준 뒤 clearErrorMessage()로 비움 (null이면 보여줄 메시지 없음)
      */
-    private val _todosState = MutableStateFlow<UiState<List<Todo>>>(UiState.Loading)
-    
-    /**
-     * 외부에서 관찰할 수 있는 읽기 전용 StateFlow
-     * 
-     * asStateFlow():
-     * - MutableStateFlow를 읽기 전용 StateFlow로 변환
-     * - 외부에서 상태 변경 시도 시 컴파일 에러 발생
-     * - Compose에서 collectAsState()로 구독 가능
-     */
-    val todosState: StateFlow<UiState<List<Todo>>> = _todosState.asStateFlow()
+    private val _errorMessage = MutableStateFlow<String?>(null)
+    val errorMessage: StateFlow<String?> = _errorMessage.asStateFlow()
     
     /**
      * 현재 선택된 필터 상태
@@ -87,123 +78,59 @@ class TodoViewModel @Inject constructor(
     val filter: StateFlow<TodoFilter> = _filter.asStateFlow()
     
     /**
-     * 필터가 적용된 Todo 목록 - 복합 상태 관리
+     * 상태별 Todo 개수 (필터 바 배지용)
      * 
-     * combine() 함수의 역할:
-     * - 여러 Flow를 결합하여 새로운 Flow 생성
-     * - todosState나 filter 중 하나라도 변경되면 자동으로 재계산
-     * - 반응형 프로그래밍의 핵심 개념
+     * 목록과 독립적으로 관찰:
+     * - 선택한 필터와 상관없이 항상 전체/진행중/완료 개수를 제공
+     * - DAO의 집계 쿼리 결과를 그대로 사용하여 UI에서 목록을 세지 않음
      * 
-     * when 표현식으로 상태별 처리:
-     * - UiState.Success인 경우에만 필터링 적용
-     * - 다른 상태(Loading, Error, Empty)는 그대로 전달
-     * 
-     * 필터링 로직:
-     * - ALL: 모든 Todo 반환
-     * - ACTIVE: 완료되지 않은 Todo만 반환
-     * - COMPLETED: 완료된 Todo만 반환
-     * 
-     * Empty 상태 처리:
-     * - 필터링 결과가 비어있으면 UiState.Empty 반환
-     * - UI에서 적절한 빈 상태 메시지 표시 가능
-     */
-    val filteredTodos: StateFlow<UiState<List<Todo>>> = combine(
-        todosState,
-        filter
-    ) { todosState, filter ->
-        when (todosState) {
-            is UiState.Success -> {
-                val filtered = when (filter) {
-                    TodoFilter.ALL -> todosState.data
-                    TodoFilter.ACTIVE -> todosState.data.filter { !it.isCompleted }
-                    TodoFilter.COMPLETED -> todosState.data.filter { it.isCompleted }
-                }
-                if (filtered.isEmpty()) UiState.Empty else UiState.Success(filtered)
-            }
-            else -> todosState
-        }
-    }.stateIn(
-        scope = viewModelScope,
-        started = SharingStarted.WhileSubscribed(5000),
-        initialValue = UiState.Loading
-    )
-    /**
-     * stateIn() 함수의 역할:
-     * - Flow를 StateFlow로 변환
-     * - 여러 구독자가 있을 때 데이터 공유 (Hot Stream)
-     * 
-     * 매개변수 설명:
-     * - scope = viewModelScope: ViewModel 생명주기와 연동
-     * - started = SharingStarted.WhileSubscribed(5000): 
-     *   구독자가 있을 때만 활성화, 구독자가 없어진 후 5초 후 정지
-     * - initialValue = UiState.Loading: 초기값 설정
+     * stateIn():
+     * - Flow를 StateFlow로 변환하여 Compose에서 collectAsState()로 구독
+     * - SharingStarted.WhileSubscribed(5000): 구독자가 없어지고 5초 후 쿼리 구독 중지
+     *   (화면 회전처럼 잠깐 구독이 끊겨도 쿼리를 다시 시작하지 않음)
+     * - 초기값 TodoCount(): 첫 결과가 오기 전까지 모두 0
      */
+    val todoCount: StateFlow<TodoCount> = repository.getTodoCount()
+        .catch { emit(TodoCount()) }
+        .stateIn(
+            scope = viewModelScope,
+            started = SharingStarted.WhileSubscribed(5000),
+            initialValue = TodoCount()
+        )
     
     /**
-     * ===== 초기화 영역 =====
-     */
-    
-    /**
-     * ViewModel 초기화 블록
+     * 필터가 적용된 Todo 목록 - 페이지 단위 (목록 화면용)
      * 
-     * init 블록의 역할:
-     * - ViewModel 인스턴스 생성 시 자동으로 실행
-     * - 초기 데이터 로딩 시작
-     * - 생성자에서 할 수 없는 초기화 작업 수행
+     * flatMapLatest:
+     * - 필터가 바뀌면 이전 필터의 Pager 구독을 취소하고 새 필터의 Pager로 전환
+     * - 필터링은 DAO 쿼리의 WHERE 절에서 처리되어 선택한 항목만 읽음
      * 
-     * loadTodos() 호출:
-     * - 앱 시작과 동시에 데이터베이스에서 Todo 목록 로딩 시작
-     * - Repository의 Flow를 구독하여 실시간 데이터 동기화
-     */
-    init {
-        loadTodos()
-    }
-    
-    /**
-     * ===== 데이터 로딩 영역 =====
+     * cachedIn(viewModelScope):
+     * - 불러온 페이지를 ViewModel 범위에 캐시
+     * - 화면 회전 등으로 다시 구독해도 처음부터 다시 읽지 않음
+     * 
+     * 목록의 유일한 데이터 소스:
+     * - 전체 목록을 Flow<List<Todo>>로 따로 구독하지 않음 (변경마다 테이블 전체를 다시 읽게 됨)
+     * - 로딩/에러 상태는 화면에서 LazyPagingItems.loadState로 확인
      */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val pagedTodos: Flow<PagingData<Todo>> = _filter
+        .flatMapLatest { filter ->
+            repository.getTodosPaged(
+                isCompleted = when (filter) {
+                    TodoFilter.ALL -> null
+                    TodoFilter.ACTIVE -> false
+                    TodoFilter.COMPLETED -> true
+                }
+            )
+        }
+        .cachedIn(viewModelScope)
     
     /**
-     * Todo 목록을 Repository에서 불러오는 private 메서드
-     * 
-     * private 접근자:
-     * - ViewModel 내부에서만 사용
-     * - UI에서 직접 호출할 필요 없음 (자동으로 실행)
-     * 
-     * viewModelScope.launch:
-     * - ViewModel 전용 코루틴 스코프
-     * - ViewModel이 소멸되면 자동으로 코루틴 취소
-     * - 메모리 누수 방지
-     * 
-     * repository.getAllTodos():
-     * - Repository에서 Flow<List<Todo>> 반환
-     * - 데이터베이스 변경 시 자동으로 새 데이터 방출
-     * - Room의 @Query가 반환하는 Flow는 데이터 변경 시 자동 업데이트
-     * 
-     * .catch { } 연산자:
-     * - Flow에서 발생하는 예외 처리
-     * - 네트워크 오류, 데이터베이스 오류 등을 안전하게 처리
-     * - UiState.Error로 변환하여 UI에 오류 상태 전달
-     * 
-     * .collect { } 연산자:
-     * - Flow에서 방출되는 데이터를 구독
-     * - 새 데이터가 방출될 때마다 실행
-     * - 데이터가 비어있으면 UiState.Empty, 있으면 UiState.Success로 설정
+     * 스낵바로 보여준 에러 메시지 비우기
      */
-    private fun loadTodos() {
-        viewModelScope.launch {
-            repository.getAllTodos()
-                .catch { e ->
-                    _todosState.value = UiState.Error(e, "할 일 목록을 불러올 수 없습니다.")
-                }
-                .collect { todos ->
-                    _todosState.value = if (todos.isEmpty()) {
-                        UiState.Empty
-                    } else {
-                        UiState.Success(todos)
-                    }
-                }
-        }
+    fun clearErrorMessage() {
+        _errorMessage.value = null
     }
     
     /**
@@ -233,7 +160,7 @@ class TodoViewModel @Inject constructor(
      * 예외 처리:
      * - try-catch로 모든 예외 포착
      * - 사용자 친화적 에러 메시지 제공
-     * - UI에서 에러 상태 표시 가능
+     * - 목록 상태가 아닌 errorMessage로 전달해 스낵바로 표시
      */
     fun addTodo(title: String, description: String, priority: Priority = Priority.NORMAL) {
         if (title.isBlank()) return
@@ -247,7 +174,7 @@ class TodoViewModel @Inject constructor(
                 )
                 repository.addTodo(newTodo)
             } catch (e: Exception) {
-                _todosState.value = UiState.Error(e, "할 일을 추가할 수 없습니다.")
+                _errorMessage.value = "할 일을 추가할 수 없습니다."
             }
         }
     }
@@ -273,7 +200,7 @@ class TodoViewModel @Inject constructor(
             try {
                 repository.updateTodo(todo)
             } catch (e: Exception) {
-                _todosState.value = UiState.Error(e, "할 일을 수정할 수 없습니다.")
+                _errorMessage.value = "할 일을 수정할 수 없습니다."
             }
         }
     }
@@ -298,7 +225,7 @@ class TodoViewModel @Inject constructor(
             try {
                 repository.deleteTodo(todoId)
             } catch (e: Exception) {
-                _todosState.value = UiState.Error(e, "할 일을 삭제할 수 없습니다.")
+                _errorMessage.value = "할 일을 삭제할 수 없습니다."
             }
         }
     }
@@ -329,7 +256,7 @@ class TodoViewModel @Inject constructor(
             try {
                 repository.toggleComplete(todoId)
             } catch (e: Exception) {
-                _todosState.value = UiState.Error(e, "상태를 변경할 수 없습니다.")
+                _errorMessage.value = "상태를 변경할 수 없습니다."
             }
         }
     }
@@ -342,17 +269,17 @@ class TodoViewModel @Inject constructor(
      * 
      * 동작 방식:
      * - _filter StateFlow의 값을 직접 변경
-     * - combine()으로 연결된 filteredTodos가 자동으로 재계산됨
+     * - flatMapLatest로 연결된 pagedTodos가 새 필터의 쿼리로 전환됨
      * - UI가 자동으로 새로운 필터 결과 표시
      * 
      * 즉시 실행:
-     * - suspend 함수가 아님 (데이터베이스 액세스 없음)
+     * - suspend 함수가 아님 (쿼리 전환은 flatMapLatest가 처리)
      * - 메모리상의 상태만 변경
      * - viewModelScope.launch 불필요
      * 
      * 반응형 업데이트:
      * - 필터 변경 시 UI가 즉시 반응
-     * - 기존 데이터를 재사용하여 성능 효율적
+     * - 선택한 필터의 항목만 데이터베이스에서 읽어 성능 효율적
      */
     fun setFilter(newFilter: TodoFilter) {
         _filter.value = newFilter
@@ -401,7 +328,7 @@ class TodoViewModel @Inject constructor(
  * 
  * UI에서 사용:
  * - 필터 바의 탭/버튼에 연결
- * - ViewModel의 combine() 함수에서 필터링 로직에 활용
+ * - ViewModel의 flatMapLatest에서 필터에 맞는 DAO 쿼리 선택에 활용
  * - 사용자가 선택한 필터에 따라 자동으로 목록 업데이트
  */
 enum class TodoFilter {